@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty.benchmarks;
+
+import com.oracle.bmc.http.client.HttpClient;
+import com.oracle.bmc.http.client.HttpRequest;
+import com.oracle.bmc.http.client.HttpResponse;
+import com.oracle.bmc.http.client.Method;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.oraclecloud.httpclient.netty.NettyClientProperties;
+import io.micronaut.oraclecloud.monitoring.sdk.SdkMetricsNettyClientFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request cost of {@link SdkMetricsNettyClientFilter}, without any IO. With the gc
+ * profiler, the allocation rate shows what recording a request costs beyond the
+ * {@link Timer.Sample}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsFilterBenchmark {
+    private static final HttpResponse OK = new StatusResponse(200);
+
+    private MeterRegistry registry;
+    private SdkMetricsNettyClientFilter filter;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new SdkMetricsNettyClientFilter(() -> registry);
+        client = BenchmarkClients.provider(BenchmarkClients.NETTY).newBuilder()
+            .baseUri(URI.create("https://objectstorage.us-phoenix-1.oraclecloud.com"))
+            .build();
+        // the attributes the netty client sets when filters are configured
+        request = client.createRequest(Method.GET)
+            .attribute(NettyClientProperties.CLASS_AND_METHOD_KEY_NAME, "ObjectStorageClient.getObject")
+            .attribute(NettyClientProperties.HOST_KEY_NAME, "objectstorage.us-phoenix-1.oraclecloud.com");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        registry.close();
+    }
+
+    @Benchmark
+    public HttpResponse record() {
+        return filter.afterResponse(request, OK, null, filter.beforeRequest(request));
+    }
+
+    /**
+     * A response that only has a status.
+     */
+    private record StatusResponse(int status) implements HttpResponse {
+        @Override
+        public Map<String, List<String>> headers() {
+            return Map.of();
+        }
+
+        @Override
+        public CompletionStage<InputStream> streamBody() {
+            return CompletableFuture.completedFuture(InputStream.nullInputStream());
+        }
+
+        @Override
+        public <T> CompletionStage<T> body(Class<T> type) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public <T> CompletionStage<List<T>> listBody(Class<T> type) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        @Override
+        public CompletionStage<String> textBody() {
+            return CompletableFuture.completedFuture("");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
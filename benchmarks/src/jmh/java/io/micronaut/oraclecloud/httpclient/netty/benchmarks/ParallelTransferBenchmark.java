@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty.benchmarks;
+
+import com.oracle.bmc.objectstorage.ObjectStorageAsyncClient;
+import com.oracle.bmc.objectstorage.responses.CommitMultipartUploadResponse;
+import com.oracle.bmc.objectstorage.responses.HeadObjectResponse;
+import io.micronaut.oraclecloud.httpclient.netty.MultipartUploader;
+import io.micronaut.oraclecloud.httpclient.netty.RangedDownloader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the parallel {@link RangedDownloader} and {@link MultipartUploader} at different
+ * degrees of parallelism.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParallelTransferBenchmark {
+    private static final int SIZE = 64 * 1024 * 1024;
+    private static final int PART_SIZE = 8 * 1024 * 1024;
+
+    @Param({"1", "4", "8"})
+    int parallelism;
+
+    private StubServer server;
+    private ObjectStorageAsyncClient client;
+    private ExecutorService executor;
+    private Path source;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StubServer(SIZE, 0);
+        client = BenchmarkClients.objectStorageAsync(BenchmarkClients.NETTY, server.uri(), builder -> { });
+        executor = Executors.newCachedThreadPool();
+        source = Files.createTempFile("upload", ".bin");
+        Files.write(source, new byte[SIZE]);
+        target = Files.createTempFile("download", ".bin");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+        executor.shutdown();
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+    }
+
+    @Benchmark
+    public HeadObjectResponse rangedDownload() throws ExecutionException, InterruptedException {
+        return new RangedDownloader(client, PART_SIZE, parallelism, 0, executor)
+            .download(StubServer.NAMESPACE, StubServer.BUCKET, String.valueOf(SIZE), target)
+            .get();
+    }
+
+    @Benchmark
+    public CommitMultipartUploadResponse multipartUpload() throws ExecutionException, InterruptedException {
+        return new MultipartUploader(client, PART_SIZE, parallelism, 0, executor)
+            .upload(StubServer.NAMESPACE, StubServer.BUCKET, "upload", source)
+            .get();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty.benchmarks;
+
+import com.oracle.bmc.objectstorage.ObjectStorageClient;
+import com.oracle.bmc.objectstorage.requests.GetObjectRequest;
+import io.micronaut.oraclecloud.httpclient.netty.NettyClientProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Download throughput of the netty client at different read-ahead windows
+ * ({@link NettyClientProperties#READ_AHEAD_HIGH_WATERMARK}), with and without deciding the body
+ * mode from the operation ({@link NettyClientProperties#OPERATION_BODY_MODE}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReadAheadBenchmark {
+    private static final int SIZE = 64 * 1024 * 1024;
+
+    @Param({"65536", "1048576", "8388608"})
+    int highWatermark;
+
+    @Param({"false", "true"})
+    boolean operationBodyMode;
+
+    private StubServer server;
+    private ObjectStorageClient client;
+    private final byte[] chunk = new byte[8192];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new StubServer(SIZE, 0);
+        client = BenchmarkClients.objectStorage(BenchmarkClients.NETTY, server.uri(), builder -> builder
+            .property(NettyClientProperties.READ_AHEAD_HIGH_WATERMARK, highWatermark)
+            .property(NettyClientProperties.OPERATION_BODY_MODE, operationBodyMode));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public long download() throws IOException {
+        long total = 0;
+        try (InputStream body = client.getObject(GetObjectRequest.builder()
+            .namespaceName(StubServer.NAMESPACE)
+            .bucketName(StubServer.BUCKET)
+            .objectName(String.valueOf(SIZE))
+            .build()).getInputStream()) {
+            int n;
+            while ((n = body.read(chunk)) != -1) {
+                total += n;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty.benchmarks;
+
+import com.oracle.bmc.http.client.HttpClient;
+import com.oracle.bmc.http.client.HttpRequest;
+import com.oracle.bmc.http.client.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of a request the way the SDK builds it, without sending it. Together with the
+ * gc profiler, this shows the allocations per request that happen before any IO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestBuildingBenchmark {
+    @Param({BenchmarkClients.NETTY, BenchmarkClients.JERSEY})
+    String provider;
+
+    private HttpClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = BenchmarkClients.provider(provider).newBuilder()
+            .baseUri(URI.create("https://objectstorage.us-phoenix-1.oraclecloud.com"))
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public HttpRequest getObject() {
+        return client.createRequest(Method.GET)
+            .appendPathPart("n")
+            .appendPathPart(StubServer.NAMESPACE)
+            .appendPathPart("b")
+            .appendPathPart(StubServer.BUCKET)
+            .appendPathPart("o")
+            .appendPathPart("path/to/object.bin")
+            .query("versionId", "v1")
+            .header("accept", "application/json")
+            .header("opc-request-id", "0123456789ABCDEF0123456789ABCDEF")
+            .header("range", "bytes=0-1048575");
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty.benchmarks;
+
+import com.oracle.bmc.objectstorage.ObjectStorageClient;
+import com.oracle.bmc.objectstorage.model.ListObjects;
+import com.oracle.bmc.objectstorage.requests.GetNamespaceRequest;
+import com.oracle.bmc.objectstorage.requests.ListObjectsRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full SDK round trips of small and large JSON responses: request construction, signing, the
+ * exchange, header access and decoding. Sample mode reports latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RoundTripBenchmark {
+    @Param({BenchmarkClients.NETTY, BenchmarkClients.JERSEY})
+    String provider;
+
+    @Param({"1000"})
+    int listedObjects;
+
+    private StubServer server;
+    private ObjectStorageClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new StubServer(1, listedObjects);
+        client = BenchmarkClients.objectStorage(provider, server.uri(), builder -> { });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    /**
+     * A tiny JSON body, dominated by per-request overhead.
+     */
+    @Benchmark
+    public String smallJson() {
+        return client.getNamespace(GetNamespaceRequest.builder().build()).getValue();
+    }
+
+    /**
+     * A large JSON body that is buffered before it is decoded.
+     */
+    @Benchmark
+    public ListObjects largeJson() {
+        return client.listObjects(ListObjectsRequest.builder()
+            .namespaceName(StubServer.NAMESPACE)
+            .bucketName(StubServer.BUCKET)
+            .build()).getListObjects();
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty.benchmarks;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerKeepAliveHandler;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * In-process stand-in for the Object Storage endpoints used by the benchmarks. It does as little
+ * work as possible per request, so that the measurements are dominated by the client:
+ *
+ * <ul>
+ *     <li>{@code GET /n}: the namespace, a tiny JSON body</li>
+ *     <li>{@code GET /n/ns/b/bucket/o}: a listing of {@code listedObjects} objects, a large JSON
+ *     body</li>
+ *     <li>{@code GET} and {@code HEAD /n/ns/b/bucket/o/<size>}: an object of {@code size} bytes,
+ *     with support for single ranges</li>
+ *     <li>{@code PUT /n/ns/b/bucket/o/<name>}: an upload, the body is discarded</li>
+ *     <li>{@code /n/ns/b/bucket/u}: the multipart upload operations, part bodies are
+ *     discarded</li>
+ * </ul>
+ */
+final class StubServer implements Closeable {
+    static final String NAMESPACE = "ns";
+    static final String BUCKET = "bucket";
+
+    private static final String OBJECTS_PATH = "/n/" + NAMESPACE + "/b/" + BUCKET + "/o";
+    private static final String UPLOADS_PATH = "/n/" + NAMESPACE + "/b/" + BUCKET + "/u";
+    private static final String ETAG = "etag";
+
+    private final NioEventLoopGroup group = new NioEventLoopGroup();
+    private final Channel serverChannel;
+    /**
+     * Object data, sliced for every download. Shared between connections and never released.
+     */
+    private final ByteBuf data;
+    private final ByteBuf listing;
+
+    /**
+     * @param maxObjectSize The largest object that can be downloaded
+     * @param listedObjects The number of objects in the bucket listing
+     */
+    StubServer(int maxObjectSize, int listedObjects) {
+        ByteBuf content = Unpooled.directBuffer(maxObjectSize);
+        for (int i = 0; i < maxObjectSize; i++) {
+            content.writeByte(i * 31);
+        }
+        data = Unpooled.unreleasableBuffer(content);
+        listing = Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(listing(listedObjects), StandardCharsets.UTF_8));
+        serverChannel = new ServerBootstrap()
+            .channel(NioServerSocketChannel.class)
+            .group(group)
+            .localAddress("127.0.0.1", 0)
+            .childHandler(new ChannelInitializer<>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline()
+                        .addLast(new HttpServerCodec())
+                        .addLast(new HttpServerKeepAliveHandler())
+                        .addLast(new RequestHandler());
+                }
+            })
+            .bind().syncUninterruptibly().channel();
+    }
+
+    private static String listing(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> "{\"name\":\"object-" + i + "\",\"size\":" + (i * 1024) + ",\"md5\":\"1B2M2Y8AsgTpgAmY7PhCfg==\",\"etag\":\"etag-" + i + "\",\"timeCreated\":\"2024-01-01T00:00:00.000Z\",\"storageTier\":\"Standard\"}")
+            .collect(Collectors.joining(",", "{\"objects\":[", "]}"));
+    }
+
+    private static FullHttpResponse json(String body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        return response;
+    }
+
+    private static FullHttpResponse empty(HttpResponseStatus status) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status);
+        response.headers().set(HttpHeaderNames.ETAG, ETAG);
+        if (status.code() != HttpResponseStatus.NO_CONTENT.code()) {
+            HttpUtil.setContentLength(response, 0);
+        }
+        return response;
+    }
+
+    URI uri() {
+        InetSocketAddress address = (InetSocketAddress) serverChannel.localAddress();
+        return URI.create("http://127.0.0.1:" + address.getPort());
+    }
+
+    @Override
+    public void close() {
+        serverChannel.close().syncUninterruptibly();
+        group.shutdownGracefully().syncUninterruptibly();
+        data.unwrap().release();
+        listing.unwrap().release();
+    }
+
+    private final class RequestHandler extends ChannelInboundHandlerAdapter {
+        private HttpRequest request;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof HttpRequest r) {
+                request = r;
+            }
+            if (msg instanceof HttpContent content) {
+                // upload bodies are not needed, only the time to receive them matters
+                content.release();
+                if (content instanceof LastHttpContent) {
+                    respond(ctx, request);
+                    request = null;
+                }
+            } else {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        private void respond(ChannelHandlerContext ctx, HttpRequest request) {
+            String path = new QueryStringDecoder(request.uri()).path();
+            HttpMethod method = request.method();
+            if (path.equals("/n") || path.equals("/n/")) {
+                ctx.writeAndFlush(json("\"" + NAMESPACE + "\""));
+            } else if (path.equals(OBJECTS_PATH) && method.equals(HttpMethod.GET)) {
+                FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, listing.duplicate());
+                response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+                HttpUtil.setContentLength(response, listing.readableBytes());
+                ctx.writeAndFlush(response);
+            } else if (path.startsWith(OBJECTS_PATH + "/")) {
+                String objectName = path.substring(OBJECTS_PATH.length() + 1);
+                if (method.equals(HttpMethod.PUT)) {
+                    ctx.writeAndFlush(empty(HttpResponseStatus.OK));
+                } else {
+                    object(ctx, request, Integer.parseInt(objectName));
+                }
+            } else if (path.equals(UPLOADS_PATH) && method.equals(HttpMethod.POST)) {
+                ctx.writeAndFlush(json("{\"namespace\":\"" + NAMESPACE + "\",\"bucket\":\"" + BUCKET + "\",\"object\":\"upload\",\"uploadId\":\"upload\"}"));
+            } else if (path.startsWith(UPLOADS_PATH + "/")) {
+                // upload part, commit and abort
+                ctx.writeAndFlush(empty(method.equals(HttpMethod.DELETE) ? HttpResponseStatus.NO_CONTENT : HttpResponseStatus.OK));
+            } else {
+                FullHttpResponse response = json("{\"code\":\"NotFound\",\"message\":\"" + path + "\"}");
+                response.setStatus(HttpResponseStatus.NOT_FOUND);
+                ctx.writeAndFlush(response);
+            }
+        }
+
+        private void object(ChannelHandlerContext ctx, HttpRequest request, int size) {
+            int start = 0;
+            int length = size;
+            String range = request.headers().get(HttpHeaderNames.RANGE);
+            HttpResponse response;
+            if (range == null) {
+                response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            } else {
+                List<String> bounds = List.of(range.substring("bytes=".length()).split("-"));
+                start = Integer.parseInt(bounds.get(0));
+                int end = bounds.size() > 1 ? Math.min(Integer.parseInt(bounds.get(1)), size - 1) : size - 1;
+                length = end - start + 1;
+                response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.PARTIAL_CONTENT);
+                response.headers().set(HttpHeaderNames.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+            response.headers().set(HttpHeaderNames.ETAG, ETAG);
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_OCTET_STREAM);
+            HttpUtil.setContentLength(response, request.method().equals(HttpMethod.HEAD) ? size : length);
+            if (request.method().equals(HttpMethod.HEAD)) {
+                ctx.write(response);
+                ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+            } else {
+                ctx.write(response);
+                ctx.writeAndFlush(new DefaultLastHttpContent(data.slice(start, length)));
+            }
+        }
+    }
+}
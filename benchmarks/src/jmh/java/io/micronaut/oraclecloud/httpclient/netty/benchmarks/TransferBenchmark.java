@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty.benchmarks;
+
+import com.oracle.bmc.objectstorage.ObjectStorageClient;
+import com.oracle.bmc.objectstorage.requests.GetObjectRequest;
+import com.oracle.bmc.objectstorage.requests.PutObjectRequest;
+import com.oracle.bmc.objectstorage.responses.PutObjectResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streamed uploads and downloads of a single object. Uploads come from memory and from a file,
+ * which the netty client sends without copying it through the blocking executor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransferBenchmark {
+    @Param({BenchmarkClients.NETTY, BenchmarkClients.JERSEY})
+    String provider;
+
+    @Param({"65536", "16777216"})
+    int size;
+
+    private StubServer server;
+    private ObjectStorageClient client;
+    private byte[] data;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StubServer(size, 0);
+        client = BenchmarkClients.objectStorage(provider, server.uri(), builder -> { });
+        data = new byte[size];
+        file = Files.createTempFile("upload", ".bin");
+        Files.write(file, data);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long download() throws IOException {
+        try (InputStream body = client.getObject(GetObjectRequest.builder()
+            .namespaceName(StubServer.NAMESPACE)
+            .bucketName(StubServer.BUCKET)
+            .objectName(String.valueOf(size))
+            .build()).getInputStream()) {
+            return body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public PutObjectResponse uploadStream() {
+        return put(new ByteArrayInputStream(data));
+    }
+
+    @Benchmark
+    public PutObjectResponse uploadFile() throws IOException {
+        try (InputStream body = new FileInputStream(file.toFile())) {
+            return put(body);
+        }
+    }
+
+    private PutObjectResponse put(InputStream body) {
+        return client.putObject(PutObjectRequest.builder()
+            .namespaceName(StubServer.NAMESPACE)
+            .bucketName(StubServer.BUCKET)
+            .objectName("upload")
+            .contentLength((long) size)
+            .putObjectBody(body)
+            .build());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.model.BmcException;
+import com.oracle.bmc.responses.AsyncHandler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Helpers for driving the asynchronous SDK clients with {@link CompletableFuture}s.
+ */
+final class AsyncCalls {
+    private AsyncCalls() {
+    }
+
+    /**
+     * Call an asynchronous SDK operation.
+     *
+     * @param method  The operation, e.g. {@code client::getObject}
+     * @param request The request
+     * @param <Q>     The request type
+     * @param <R>     The response type
+     * @return A future that completes through the {@link AsyncHandler}
+     */
+    static <Q, R> CompletableFuture<R> call(BiFunction<Q, AsyncHandler<Q, R>, Future<R>> method, Q request) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        method.apply(request, new AsyncHandler<>() {
+            @Override
+            public void onSuccess(Q q, R r) {
+                future.complete(r);
+            }
+
+            @Override
+            public void onError(Q q, Throwable error) {
+                future.completeExceptionally(error);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @param error The failure of a call
+     * @return Whether the call may succeed when repeated
+     */
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof BmcException bmc && bmc.getStatusCode() > 0) {
+            return bmc.getStatusCode() == 429 || bmc.getStatusCode() >= 500;
+        }
+        // connection failures, mismatched checksums or lengths
+        return true;
+    }
+
+    static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
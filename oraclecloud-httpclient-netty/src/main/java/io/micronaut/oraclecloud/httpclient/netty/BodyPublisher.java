@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-subscriber {@link Publisher} of response body data. Data is pushed in by the channel
+ * handler, and more is read from the channel only while the subscriber has outstanding demand.
+ * Signals to the subscriber are serialized by a work-in-progress counter, so {@link #request}
+ * may be called from any thread.
+ */
+final class BodyPublisher implements Publisher<ByteBuf>, Subscription {
+    private final Runnable readMore;
+    private final Runnable cancelUpstream;
+
+    private final Queue<ByteBuf> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private volatile Subscriber<? super ByteBuf> subscriber;
+    private volatile boolean terminated = false;
+    private volatile Throwable failure;
+    private volatile boolean cancelled = false;
+    /**
+     * Only accessed in {@link #drain()}.
+     */
+    private boolean signalled = false;
+
+    /**
+     * @param readMore       Called to read more data from the channel
+     * @param cancelUpstream Called when the subscriber cancels
+     */
+    BodyPublisher(Runnable readMore, Runnable cancelUpstream) {
+        this.readMore = readMore;
+        this.cancelUpstream = cancelUpstream;
+    }
+
+    /**
+     * @return Whether the channel should continue reading without waiting for more demand
+     */
+    boolean wantsMore() {
+        return !cancelled && !terminated && demand.get() > queue.size();
+    }
+
+    void onData(ByteBuf data) {
+        queue.add(data);
+        drain();
+    }
+
+    void complete() {
+        terminated = true;
+        drain();
+    }
+
+    void fail(Throwable cause) {
+        if (!terminated) {
+            failure = cause;
+            terminated = true;
+        }
+        drain();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuf> s) {
+        if (!subscribed.compareAndSet(false, true)) {
+            s.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            s.onError(new IllegalStateException("Response body can only be subscribed to once"));
+            return;
+        }
+        subscriber = s;
+        s.onSubscribe(this);
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("Request must be positive: " + n));
+            cancel();
+            return;
+        }
+        demand.accumulateAndGet(n, (a, b) -> {
+            long sum = a + b;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        });
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            cancelUpstream.run();
+            drain();
+        }
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            Subscriber<? super ByteBuf> s = subscriber;
+            if (cancelled) {
+                ByteBuf buf;
+                while ((buf = queue.poll()) != null) {
+                    buf.release();
+                }
+            } else if (s != null && !signalled) {
+                ByteBuf buf;
+                if (failure != null) {
+                    // errors don't wait for demand
+                    while ((buf = queue.poll()) != null) {
+                        buf.release();
+                    }
+                }
+                while (demand.get() > 0 && (buf = queue.poll()) != null) {
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    s.onNext(buf);
+                }
+                if (queue.isEmpty()) {
+                    if (terminated) {
+                        signalled = true;
+                        Throwable f = failure;
+                        if (f != null) {
+                            s.onError(f);
+                        } else {
+                            s.onComplete();
+                        }
+                    } else if (demand.get() > 0) {
+                        readMore.run();
+                    }
+                }
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+}
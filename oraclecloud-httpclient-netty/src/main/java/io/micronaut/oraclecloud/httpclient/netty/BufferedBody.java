@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * A response body that has been fully received and can be shared by several
+ * {@link NettyHttpResponse}s, e.g. by the {@link ResponseCache} or by coalesced requests. Only
+ * the bytes are shared: the SDK response models are mutable, so every response decodes its own.
+ */
+final class BufferedBody {
+    private final byte[] bytes;
+
+    BufferedBody(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return A new buffer wrapping the body. Releasing it is optional
+     */
+    ByteBuf buffer() {
+        return Unpooled.wrappedBuffer(bytes);
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.http.client.HttpResponse;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.netty.handler.timeout.ReadTimeoutException;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Adaptive client-side concurrency limiter. Every endpoint and operation gets its own
+ * {@link Limit} on the number of in-flight requests, which is adjusted using AIMD: it grows by one
+ * for successful requests while at least half of it is in use, and is multiplied by the backoff
+ * ratio when the server responds with {@code 429} or {@code 503}, when the request times out, or
+ * when the recent latency rises above the long-term latency. Requests beyond the limit wait in a
+ * bounded queue, and fail with a {@link RejectedExecutionException} once the queue is full.
+ * <p>
+ * A request holds its permit until its exchange ends, so a streamed response body counts as in
+ * flight, and towards the latency, until it has been read or closed. A body that is neither
+ * gives its permit back once it counts as abandoned, see
+ * {@link NettyClientProperties#ABANDONED_BODY_TIMEOUT}.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(property = NettyClientLimiterConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public final class ConcurrencyLimiter {
+    private static final CompletableFuture<Void> ACQUIRED = CompletableFuture.completedFuture(null);
+
+    private static final double SHORT_RTT_WEIGHT = 0.1;
+    private static final double LONG_RTT_WEIGHT = 0.01;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int maxQueued;
+
+    /**
+     * {@code host -> operation -> limit}. Nested so that the lookup does not allocate a key.
+     */
+    private final Map<String, Map<String, Limit>> limits = new ConcurrentHashMap<>();
+    private final List<Consumer<Limit>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param initialLimit     The initial number of concurrent requests per endpoint and operation
+     * @param minLimit         The lower bound of the limit
+     * @param maxLimit         The upper bound of the limit
+     * @param backoffRatio     The factor the limit is multiplied with on overload, e.g. {@code 0.9}
+     * @param latencyTolerance The factor by which the recent latency may exceed the long-term
+     *                         latency before the limit is decreased, e.g. {@code 2}
+     * @param maxQueued        The number of requests that may wait for a permit
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance, int maxQueued) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be in (0, 1)");
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.maxQueued = maxQueued;
+    }
+
+    @Inject
+    ConcurrencyLimiter(NettyClientLimiterConfiguration configuration) {
+        this(configuration.initialLimit(), configuration.minLimit(), configuration.maxLimit(),
+            configuration.backoffRatio(), configuration.latencyTolerance(), configuration.maxQueued());
+    }
+
+    /**
+     * @return The limits created so far
+     */
+    public Collection<Limit> getLimits() {
+        List<Limit> all = new ArrayList<>();
+        for (Map<String, Limit> byOperation : limits.values()) {
+            all.addAll(byOperation.values());
+        }
+        return all;
+    }
+
+    /**
+     * Register a listener that is called for every existing and every future limit, e.g. to
+     * register metrics.
+     *
+     * @param listener The listener
+     */
+    public void onLimitCreated(Consumer<Limit> listener) {
+        listeners.add(listener);
+        getLimits().forEach(listener);
+    }
+
+    /**
+     * Get the limit of an operation.
+     *
+     * @param host      The endpoint host
+     * @param operation The operation, as in {@link NettyClientProperties#CLASS_AND_METHOD_KEY_NAME}
+     * @return The limit
+     */
+    Limit limit(String host, String operation) {
+        Map<String, Limit> byOperation = limits.computeIfAbsent(host, h -> new ConcurrentHashMap<>());
+        Limit limit = byOperation.get(operation);
+        if (limit == null) {
+            Limit created = new Limit(host, operation);
+            limit = byOperation.putIfAbsent(operation, created);
+            if (limit == null) {
+                limit = created;
+                for (Consumer<Limit> listener : listeners) {
+                    listener.accept(created);
+                }
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * The adaptive limit of a single endpoint and operation.
+     */
+    public final class Limit {
+        private final String host;
+        private final String operation;
+        private final Queue<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+        private double limit = initialLimit;
+        private int inFlight;
+        /**
+         * Number of requests that were already in flight at the last decrease. Their outcome does
+         * not reflect the new limit, so a burst of {@code 429}s only decreases the limit once.
+         */
+        private int staleInFlight;
+        private double shortRttNanos;
+        private double longRttNanos;
+
+        private Limit(String host, String operation) {
+            this.host = host;
+            this.operation = operation;
+        }
+
+        /**
+         * @return The endpoint host
+         */
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * @return The operation
+         */
+        public String getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return The current number of requests allowed in flight
+         */
+        public synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        /**
+         * @return The current number of requests in flight
+         */
+        public synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * @return The current number of requests waiting for a permit
+         */
+        public synchronized int getQueued() {
+            return waiting.size();
+        }
+
+        /**
+         * Acquire a permit for a request.
+         *
+         * @return A future that completes when the permit is granted. Already completed if a
+         * permit was available
+         * @throws RejectedExecutionException If the limit is reached and the queue is full
+         */
+        synchronized CompletableFuture<Void> acquire() {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return ACQUIRED;
+            }
+            if (waiting.size() >= maxQueued) {
+                throw new RejectedExecutionException("Too many concurrent requests to " + operation + " on " + host + " (limit " + (int) limit + ")");
+            }
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            waiting.add(future);
+            return future;
+        }
+
+        /**
+         * Acquire a permit only if one is available right away, for optional requests such as
+         * hedges.
+         *
+         * @return {@code true} if the permit was acquired
+         */
+        synchronized boolean tryAcquire() {
+            if (waiting.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Release a permit once the exchange of a request ends. A streamed response body keeps
+         * the exchange in flight long after the response head.
+         *
+         * @param result The response of the request that holds the permit
+         */
+        void releaseAfter(CompletableFuture<HttpResponse> result) {
+            long start = System.nanoTime();
+            result.whenComplete((response, error) -> {
+                CompletionStage<MeteredHttpResponse.Transfer> transfer = response instanceof MeteredHttpResponse metered ? metered.transfer() : null;
+                if (transfer == null) {
+                    release(System.nanoTime() - start, response == null ? -1 : response.status(), error);
+                } else {
+                    transfer.whenComplete((t, e) -> release(System.nanoTime() - start, response.status(), null));
+                }
+            });
+        }
+
+        /**
+         * Release a permit and adjust the limit.
+         *
+         * @param rttNanos The time from sending the request until the exchange ended, i.e. the
+         *                 response body was received or abandoned
+         * @param status   The response status, or {@code -1} if the request failed
+         * @param error    The request failure, or {@code null}
+         */
+        void release(long rttNanos, int status, Throwable error) {
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+            boolean overloaded = status == 429 || status == 503 || error instanceof ReadTimeoutException;
+            List<CompletableFuture<Void>> ready = null;
+            synchronized (this) {
+                inFlight--;
+                boolean stale = staleInFlight > 0;
+                if (stale) {
+                    staleInFlight--;
+                }
+                if (overloaded) {
+                    if (!stale) {
+                        decrease();
+                    }
+                } else if (error == null) {
+                    onSuccess(rttNanos, stale);
+                }
+                while (!waiting.isEmpty() && inFlight < (int) limit) {
+                    if (ready == null) {
+                        ready = new ArrayList<>();
+                    }
+                    inFlight++;
+                    ready.add(waiting.poll());
+                }
+            }
+            if (ready != null) {
+                for (CompletableFuture<Void> future : ready) {
+                    future.complete(null);
+                }
+            }
+        }
+
+        private void onSuccess(long rttNanos, boolean stale) {
+            if (longRttNanos == 0) {
+                shortRttNanos = rttNanos;
+                longRttNanos = rttNanos;
+            } else {
+                shortRttNanos += (rttNanos - shortRttNanos) * SHORT_RTT_WEIGHT;
+                longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_WEIGHT;
+            }
+            if (shortRttNanos > longRttNanos * latencyTolerance) {
+                if (!stale) {
+                    decrease();
+                }
+            } else if ((inFlight + 1) * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+
+        private void decrease() {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            staleInFlight = inFlight;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.http.client.netty.NettyClientCustomizer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Instrumentation of the connection pool and the event loops used by the netty client. Per
+ * endpoint, it tracks how long requests wait for a pooled connection, the connections that are
+ * pending, in use and idle, how many acquisitions had to open a new connection, and how long the
+ * connect and the TLS handshake of new connections took. It also samples the task queue depth and
+ * the scheduling latency of every event loop that serves a connection.
+ * <p>
+ * The connect and handshake durations are measured by a {@link NettyClientCustomizer}, so they
+ * are only available for clients of the application context, i.e. the managed client.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(property = NettyClientPoolMonitorConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public final class ConnectionPoolMonitor {
+    private static final AttributeKey<ConnectionTiming> TIMING = AttributeKey.valueOf(ConnectionPoolMonitor.class, "timing");
+    private static final AttributeKey<Boolean> OBSERVED = AttributeKey.valueOf(ConnectionPoolMonitor.class, "observed");
+
+    private final long eventLoopProbeIntervalNanos;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final List<Consumer<Endpoint>> endpointListeners = new CopyOnWriteArrayList<>();
+    private final Map<EventExecutor, EventLoopProbe> eventLoops = new ConcurrentHashMap<>();
+    private final List<Consumer<EventLoopProbe>> eventLoopListeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger eventLoopIndex = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param eventLoopProbeInterval How often the scheduling latency of each event loop is sampled
+     */
+    public ConnectionPoolMonitor(Duration eventLoopProbeInterval) {
+        if (eventLoopProbeInterval.isNegative() || eventLoopProbeInterval.isZero()) {
+            throw new IllegalArgumentException("The event loop probe interval must be positive");
+        }
+        this.eventLoopProbeIntervalNanos = eventLoopProbeInterval.toNanos();
+    }
+
+    @Inject
+    ConnectionPoolMonitor(NettyClientPoolMonitorConfiguration configuration, @Nullable NettyClientCustomizer.Registry customizers) {
+        this(configuration.eventLoopProbeInterval());
+        if (customizers != null) {
+            customizers.register(new TimingCustomizer());
+        }
+    }
+
+    /**
+     * @return The endpoints seen so far
+     */
+    public Collection<Endpoint> getEndpoints() {
+        return new ArrayList<>(endpoints.values());
+    }
+
+    /**
+     * @return The event loops seen so far
+     */
+    public Collection<EventLoopProbe> getEventLoops() {
+        return new ArrayList<>(eventLoops.values());
+    }
+
+    /**
+     * Register a listener that is called for every existing and every future endpoint, e.g. to
+     * register metrics.
+     *
+     * @param listener The listener
+     */
+    public void onEndpointCreated(Consumer<Endpoint> listener) {
+        endpointListeners.add(listener);
+        getEndpoints().forEach(listener);
+    }
+
+    /**
+     * Register a listener that is called for every existing and every future event loop, e.g. to
+     * register metrics.
+     *
+     * @param listener The listener
+     */
+    public void onEventLoopCreated(Consumer<EventLoopProbe> listener) {
+        eventLoopListeners.add(listener);
+        getEventLoops().forEach(listener);
+    }
+
+    /**
+     * Stop sampling the event loops.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Get the statistics of an endpoint.
+     *
+     * @param host The endpoint host
+     * @return The endpoint
+     */
+    Endpoint endpoint(String host) {
+        Endpoint endpoint = endpoints.get(host);
+        if (endpoint == null) {
+            Endpoint created = new Endpoint(host);
+            endpoint = endpoints.putIfAbsent(host, created);
+            if (endpoint == null) {
+                endpoint = created;
+                for (Consumer<Endpoint> listener : endpointListeners) {
+                    listener.accept(created);
+                }
+            }
+        }
+        return endpoint;
+    }
+
+    private void probe(EventExecutor executor) {
+        if (eventLoops.containsKey(executor)) {
+            return;
+        }
+        EventLoopProbe created = new EventLoopProbe(executor, eventLoopIndex.getAndIncrement());
+        if (eventLoops.putIfAbsent(executor, created) == null) {
+            for (Consumer<EventLoopProbe> listener : eventLoopListeners) {
+                listener.accept(created);
+            }
+            created.schedule();
+        }
+    }
+
+    /**
+     * Receives the measurements of the connections to an endpoint.
+     */
+    public interface EndpointListener {
+        /**
+         * A pooled connection was acquired for a request.
+         *
+         * @param waitNanos     The time from requesting the connection until it was available
+         * @param newConnection Whether the connection was opened for this request, rather than
+         *                      reused from the pool
+         */
+        void onAcquire(long waitNanos, boolean newConnection);
+
+        /**
+         * A new connection was established. Only called if the connection was opened by a client
+         * of the application context.
+         *
+         * @param connectNanos   The time to resolve the address and open the TCP connection
+         * @param handshakeNanos The time of the TLS handshake, or {@code -1} for a plaintext
+         *                       connection
+         */
+        void onConnect(long connectNanos, long handshakeNanos);
+    }
+
+    /**
+     * The connections to a single endpoint.
+     */
+    public final class Endpoint {
+        private final String host;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger open = new AtomicInteger();
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder created = new LongAdder();
+        private final List<EndpointListener> listeners = new CopyOnWriteArrayList<>();
+
+        private Endpoint(String host) {
+            this.host = host;
+        }
+
+        /**
+         * @return The endpoint host
+         */
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * @return The number of requests currently waiting for a connection
+         */
+        public int getPending() {
+            return pending.get();
+        }
+
+        /**
+         * @return The number of exchanges currently using a connection. With HTTP/2, several
+         * exchanges can share a connection
+         */
+        public int getActive() {
+            return active.get();
+        }
+
+        /**
+         * @return The number of open connections that were used by the client
+         */
+        public int getOpen() {
+            return open.get();
+        }
+
+        /**
+         * @return The number of open connections that are not used by an exchange. Only accurate
+         * for HTTP/1 connections
+         */
+        public int getIdle() {
+            return Math.max(0, open.get() - active.get());
+        }
+
+        /**
+         * @return The total number of connection acquisitions
+         */
+        public long getAcquired() {
+            return acquired.sum();
+        }
+
+        /**
+         * @return The total number of acquisitions that opened a new connection
+         */
+        public long getCreated() {
+            return created.sum();
+        }
+
+        /**
+         * @param listener The listener to notify of the measurements of this endpoint
+         */
+        public void addListener(EndpointListener listener) {
+            listeners.add(listener);
+        }
+
+        /**
+         * A request started waiting for a connection.
+         *
+         * @return The start time, to pass to {@link #acquired}
+         */
+        long acquireStarted() {
+            pending.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        /**
+         * A request stopped waiting for a connection, successfully or not.
+         */
+        void acquireEnded() {
+            pending.decrementAndGet();
+        }
+
+        /**
+         * A connection was acquired.
+         *
+         * @param channel The channel of the pool handle, a stream channel for HTTP/2
+         * @param start   The value returned by {@link #acquireStarted()}
+         */
+        void acquired(Channel channel, long start) {
+            long waitNanos = System.nanoTime() - start;
+            Channel connection = channel.parent() == null ? channel : channel.parent();
+            boolean newConnection = connection.attr(OBSERVED).setIfAbsent(Boolean.TRUE) == null;
+            acquired.increment();
+            if (newConnection) {
+                created.increment();
+                open.incrementAndGet();
+                connection.closeFuture().addListener(f -> open.decrementAndGet());
+            }
+            for (EndpointListener listener : listeners) {
+                listener.onAcquire(waitNanos, newConnection);
+            }
+            ConnectionTiming timing = newConnection ? connection.attr(TIMING).get() : null;
+            if (timing != null && timing.isComplete()) {
+                long connectNanos = timing.connectedNanos - timing.startedNanos;
+                long handshakeNanos = timing.tls ? timing.handshakeNanos - timing.connectedNanos : -1;
+                for (EndpointListener listener : listeners) {
+                    listener.onConnect(connectNanos, handshakeNanos);
+                }
+            }
+            probe(channel.eventLoop());
+        }
+
+        void exchangeStarted() {
+            active.incrementAndGet();
+        }
+
+        void exchangeEnded() {
+            active.decrementAndGet();
+        }
+    }
+
+    /**
+     * Samples the task queue of an event loop, and periodically schedules a task to measure how
+     * late it runs, i.e. how long the event loop was too busy to run it.
+     */
+    public final class EventLoopProbe implements Runnable {
+        private final EventExecutor executor;
+        private final int index;
+        private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+        private long deadline;
+
+        private EventLoopProbe(EventExecutor executor, int index) {
+            this.executor = executor;
+            this.index = index;
+        }
+
+        /**
+         * @return The number of this event loop, in the order the event loops were first seen
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return The number of tasks waiting to run on this event loop, or {@code -1} if the
+         * event loop does not expose its queue
+         */
+        public int getPendingTasks() {
+            return executor instanceof SingleThreadEventExecutor loop ? loop.pendingTasks() : -1;
+        }
+
+        /**
+         * @param listener Receives the scheduling latency of every sample, in nanoseconds
+         */
+        public void addListener(LongConsumer listener) {
+            listeners.add(listener);
+        }
+
+        private void schedule() {
+            if (closed || executor.isShuttingDown()) {
+                return;
+            }
+            deadline = System.nanoTime() + eventLoopProbeIntervalNanos;
+            try {
+                executor.schedule(this, eventLoopProbeIntervalNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // the event loop is shutting down
+            }
+        }
+
+        @Override
+        public void run() {
+            long latencyNanos = Math.max(0, System.nanoTime() - deadline);
+            for (LongConsumer listener : listeners) {
+                listener.accept(latencyNanos);
+            }
+            schedule();
+        }
+    }
+
+    /**
+     * Attaches a {@link ConnectionTiming} to every connection the micronaut clients open.
+     */
+    private static final class TimingCustomizer implements NettyClientCustomizer {
+        @Override
+        public NettyClientCustomizer specializeForChannel(Channel channel, ChannelRole role) {
+            if (role == ChannelRole.CONNECTION) {
+                ConnectionTiming timing = new ConnectionTiming(channel);
+                channel.attr(TIMING).set(timing);
+                return timing;
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Records when a connection was created, became active and completed the TLS handshake. The
+     * handler removes itself once the connection is active, so it does not see any messages.
+     */
+    private static final class ConnectionTiming extends ChannelInboundHandlerAdapter implements NettyClientCustomizer {
+        private final Channel channel;
+        private final long startedNanos = System.nanoTime();
+        private volatile long connectedNanos;
+        private volatile long handshakeNanos;
+        private volatile boolean tls;
+
+        ConnectionTiming(Channel channel) {
+            this.channel = channel;
+        }
+
+        boolean isComplete() {
+            return connectedNanos != 0 && (!tls || handshakeNanos != 0);
+        }
+
+        @Override
+        public void onInitialPipelineBuilt() {
+            channel.pipeline().addFirst(this);
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            SslHandler sslHandler = ctx.pipeline().get(SslHandler.class);
+            // written before connectedNanos, which readers check first
+            tls = sslHandler != null;
+            connectedNanos = System.nanoTime();
+            if (sslHandler != null) {
+                sslHandler.handshakeFuture().addListener(f -> {
+                    if (f.isSuccess()) {
+                        handshakeNanos = System.nanoTime();
+                    }
+                });
+            }
+            ctx.fireChannelActive();
+            ctx.pipeline().remove(this);
+        }
+    }
+}
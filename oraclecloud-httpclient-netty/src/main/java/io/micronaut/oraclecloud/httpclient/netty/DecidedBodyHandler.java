@@ -16,68 +16,107 @@
 package io.micronaut.oraclecloud.httpclient.netty;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
-import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.LastHttpContent;
 
 import java.io.EOFException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Base class for handlers that replace the {@link UndecidedBodyHandler} once the user has decided how they want to
- * consume the body. First any data buffered by {@link UndecidedBodyHandler} is processed, then a {@link HandlerImpl}
- * is added to the pipeline to directly process the remaining chunks.
+ * Base class for the ways to consume a response body, once the user has decided how they want to
+ * consume it. First any data buffered by {@link ResponseHandler} is processed, then the remaining
+ * chunks are forwarded as they arrive.
  */
 abstract class DecidedBodyHandler {
     private boolean done = false;
-    private volatile ChannelHandlerContext context;
-    private final List<Runnable> pendingContextActions = new ArrayList<>();
+    private volatile ResponseHandler.Body upstream;
+    private final List<Runnable> pendingUpstreamActions = new ArrayList<>();
+    /**
+     * Guards {@link #pendingUpstreamActions}. Not a monitor, since this is called from threads
+     * blocked on the response stream, which may be virtual threads.
+     */
+    private final Lock pendingUpstreamActionsLock = new ReentrantLock();
+    /**
+     * Set whenever the consumer takes data, see {@link #takeActivity()}.
+     */
+    private volatile boolean active = false;
 
-    private void runWithContext(Runnable r) {
-        if (context != null) {
+    private void runWithUpstream(Runnable r) {
+        if (upstream != null) {
             r.run();
             return;
         }
-        synchronized (pendingContextActions) {
-            if (context != null) {
+        pendingUpstreamActionsLock.lock();
+        try {
+            if (upstream != null) {
                 r.run();
                 return;
             }
-            pendingContextActions.add(r);
+            pendingUpstreamActions.add(r);
+        } finally {
+            pendingUpstreamActionsLock.unlock();
+        }
+    }
+
+    /**
+     * Connect this handler to the body it consumes. Called on the event loop.
+     *
+     * @param upstream The body
+     */
+    final void attach(ResponseHandler.Body upstream) {
+        pendingUpstreamActionsLock.lock();
+        try {
+            this.upstream = upstream;
+            for (Runnable action : pendingUpstreamActions) {
+                action.run();
+            }
+            pendingUpstreamActions.clear();
+        } finally {
+            pendingUpstreamActionsLock.unlock();
         }
     }
 
     /**
-     * Trigger an upstream {@link ChannelHandlerContext#read()}.
+     * Trigger an upstream {@link io.netty.channel.ChannelHandlerContext#read()}.
      */
     final void triggerUpstreamRead() {
-        runWithContext(() -> context.read());
+        runWithUpstream(() -> upstream.read());
+    }
+
+    /**
+     * Record that the consumer took data, so that a paused body is not considered abandoned.
+     */
+    final void markActive() {
+        active = true;
+    }
+
+    /**
+     * @return Whether the consumer took data since the last call
+     */
+    final boolean takeActivity() {
+        boolean a = active;
+        active = false;
+        return a;
     }
 
     /**
      * Best-effort check that this is not called in the event loop.
      */
     final void checkNotOnEventLoop() {
-        // embedded channel always returns true for inEventLoop
-        if (context != null && context.executor().inEventLoop() && !(context.channel() instanceof EmbeddedChannel)) {
+        ResponseHandler.Body u = upstream;
+        if (u != null && u.inEventLoop()) {
             throw new IllegalStateException("This method must not be called on the netty event loop");
         }
     }
 
     /**
-     * Signal early cancellation by the user, remove this handler.
+     * Signal early cancellation by the user. The rest of the body is not received.
      */
     final void removeEarly() {
-        runWithContext(() -> {
-            try {
-                context.pipeline().remove(context.handler());
-            } catch (NoSuchElementException ignored) {
-            }
-        });
+        runWithUpstream(() -> upstream.cancel());
     }
 
     /**
@@ -101,6 +140,16 @@ abstract class DecidedBodyHandler {
      */
     abstract void onComplete();
 
+    /**
+     * Whether the next chunk should be read as soon as one has been processed. Handlers that
+     * return {@code false} call {@link #triggerUpstreamRead()} themselves once they want more data.
+     *
+     * @return {@code true} to keep reading
+     */
+    boolean wantsMoreData() {
+        return true;
+    }
+
     /**
      * Handle an early cancellation (e.g. channel close).
      */
@@ -119,55 +168,4 @@ abstract class DecidedBodyHandler {
             onComplete();
         }
     }
-
-    /**
-     * {@link io.netty.channel.ChannelHandler} that forwards to this {@link DecidedBodyHandler}.
-     */
-    final class HandlerImpl extends ChannelInboundHandlerAdapter {
-        private final Runnable release;
-
-        HandlerImpl(Runnable release) {
-            this.release = release;
-        }
-
-        @Override
-        public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
-            context = ctx;
-            synchronized (pendingContextActions) {
-                for (Runnable action : pendingContextActions) {
-                    action.run();
-                }
-                pendingContextActions.clear();
-            }
-        }
-
-        @Override
-        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-            if (!onError(cause)) {
-                ctx.fireExceptionCaught(cause);
-            }
-            ctx.pipeline().remove(this);
-            done = true;
-        }
-
-        @Override
-        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-            if (msg instanceof HttpContent) {
-                onContent((HttpContent) msg);
-                if (done) {
-                    ctx.pipeline().remove(this);
-                } else {
-                    ctx.read();
-                }
-            } else {
-                ctx.fireChannelRead(msg);
-            }
-        }
-
-        @Override
-        public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
-            onCancel();
-            release.run();
-        }
-    }
 }
@@ -21,11 +21,6 @@ import io.netty.buffer.ByteBuf;
  * Handler that discards incoming data.
  */
 final class DiscardingHandler extends DecidedBodyHandler {
-    static final DiscardingHandler INSTANCE = new DiscardingHandler();
-
-    private DiscardingHandler() {
-    }
-
     @Override
     boolean onError(Throwable cause) {
         return false;
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.core.annotation.Nullable;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.FileRegion;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.AbstractReferenceCounted;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A request body that is backed by a file. Unlike {@link StreamWritingHandler}, the data is not
+ * copied through heap buffers on the blocking executor: on plain HTTP/1.1 connections it is
+ * written as a {@link FileRegion}, so the kernel can transfer it directly ({@code sendfile}).
+ * When the bytes need to pass through the pipeline (TLS, HTTP/2), the file is read into pooled
+ * direct buffers by a {@link ChunkedNioFile} instead.
+ * <p>
+ * The file channel is never closed by this class, it still belongs to the stream it came from.
+ * The owner must keep it open until the future returned by {@link #write} completes.
+ */
+final class FileBody {
+    private static final int CHUNK_SIZE = 1024 * 64;
+    private static final String HANDLER_CHUNKED_WRITE = "chunked-write";
+
+    private final FileChannel channel;
+    private final long position;
+    private final long count;
+
+    private FileBody(FileChannel channel, long position, long count) {
+        this.channel = channel;
+        this.position = position;
+        this.count = count;
+    }
+
+    /**
+     * Find the file behind a request body stream.
+     *
+     * @param stream        The request body
+     * @param contentLength The declared content length, or {@code -1} if unknown
+     * @return The file body, or {@code null} if the stream is not backed by a regular file that
+     * holds at least {@code contentLength} more bytes
+     */
+    @Nullable
+    static FileBody of(InputStream stream, long contentLength) {
+        FileChannel channel;
+        if (stream instanceof Slice slice) {
+            if (contentLength < 0 || contentLength > slice.remaining) {
+                return null;
+            }
+            channel = slice.channel;
+        } else if (stream instanceof FileInputStream fis) {
+            channel = fis.getChannel();
+        } else if (stream instanceof SpooledBody.Stream spooled) {
+            channel = spooled.channel();
+        } else {
+            return null;
+        }
+        if (contentLength < 0) {
+            // pipes and devices also come as FileInputStream, the length is the only reliable bound
+            return null;
+        }
+        try {
+            long position = channel.position();
+            if (channel.size() - position < contentLength) {
+                return null;
+            }
+            return new FileBody(channel, position, contentLength);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the body, followed by the {@code LastHttpContent}. Errors are fired down the pipeline.
+     *
+     * @param ch       The channel, with the request head already written
+     * @param zeroCopy Whether the channel can take a {@link FileRegion}, i.e. there are no
+     *                 handlers between the HTTP codec and the transport
+     * @return A future that completes once the file is no longer read, successfully or not
+     */
+    ChannelFuture write(Channel ch, boolean zeroCopy) {
+        if (zeroCopy) {
+            ch.write(new SharedFileRegion(channel, position, count), ch.voidPromise());
+            // writes complete in order, so this also covers the region
+            return ch.writeAndFlush(new DefaultLastHttpContent());
+        } else {
+            ChunkedNioFile chunks;
+            try {
+                chunks = new ChunkedNioFile(channel, position, count, CHUNK_SIZE) {
+                    @Override
+                    public void close() {
+                        // the file is not ours to close
+                    }
+                };
+            } catch (IOException e) {
+                ch.pipeline().fireExceptionCaught(e);
+                return ch.newFailedFuture(e);
+            }
+            ch.pipeline().addLast(HANDLER_CHUNKED_WRITE, new ChunkedWriteHandler());
+            return ch.writeAndFlush(new HttpChunkedInput(chunks, new DefaultLastHttpContent())).addListener((ChannelFutureListener) f -> {
+                if (ch.pipeline().get(HANDLER_CHUNKED_WRITE) != null) {
+                    ch.pipeline().remove(HANDLER_CHUNKED_WRITE);
+                }
+                if (!f.isSuccess()) {
+                    ch.pipeline().fireExceptionCaught(f.cause());
+                }
+            });
+        }
+    }
+
+    /**
+     * A {@link FileRegion} over a file channel that it does not own. Unlike
+     * {@link io.netty.channel.DefaultFileRegion}, releasing it does not close the file.
+     */
+    private static final class SharedFileRegion extends AbstractReferenceCounted implements FileRegion {
+        private final FileChannel file;
+        private final long position;
+        private final long count;
+        private long transferred;
+
+        SharedFileRegion(FileChannel file, long position, long count) {
+            this.file = file;
+            this.position = position;
+            this.count = count;
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public long count() {
+            return count;
+        }
+
+        @Override
+        @Deprecated
+        public long transfered() {
+            return transferred;
+        }
+
+        @Override
+        public long transferred() {
+            return transferred;
+        }
+
+        @Override
+        public long transferTo(WritableByteChannel target, long position) throws IOException {
+            long remaining = count - position;
+            if (remaining < 0 || position < 0) {
+                throw new IllegalArgumentException("position out of range: " + position + " (expected: 0 - " + (count - 1) + ')');
+            }
+            if (remaining == 0) {
+                return 0;
+            }
+            long written = file.transferTo(this.position + position, remaining, target);
+            if (written > 0) {
+                transferred += written;
+            } else if (written == 0 && file.size() < this.position + count) {
+                throw new IOException("File was truncated to " + file.size() + " bytes while sending it");
+            }
+            return written;
+        }
+
+        @Override
+        public FileRegion retain() {
+            super.retain();
+            return this;
+        }
+
+        @Override
+        public FileRegion retain(int increment) {
+            super.retain(increment);
+            return this;
+        }
+
+        @Override
+        public FileRegion touch() {
+            return this;
+        }
+
+        @Override
+        public FileRegion touch(Object hint) {
+            return this;
+        }
+
+        @Override
+        protected void deallocate() {
+            // the file is not ours to close
+        }
+    }
+
+    /**
+     * A stream over a range of a file. Unlike a positioned {@link FileInputStream}, it ends after
+     * the range, so a consumer that reads to EOF (e.g. request buffering) does not send the rest
+     * of the file. {@link #of} still recognizes it, so the range can be sent zero-copy.
+     */
+    static final class Slice extends InputStream {
+        private final FileChannel channel;
+        /**
+         * Reused by {@link #read()}, so that reading byte by byte does not allocate.
+         */
+        private final ByteBuffer single = ByteBuffer.allocate(1);
+        private long remaining;
+
+        private Slice(FileChannel channel, long length) {
+            this.channel = channel;
+            this.remaining = length;
+        }
+
+        /**
+         * Open a slice of a file.
+         *
+         * @param file   The file
+         * @param offset The start of the range
+         * @param length The length of the range
+         * @return The stream, which owns the file channel
+         * @throws IOException If the file cannot be opened
+         */
+        static Slice open(Path file, long offset, long length) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                channel.position(offset);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            return new Slice(channel, length);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            single.clear();
+            if (channel.read(single) == -1) {
+                return -1;
+            }
+            remaining--;
+            return single.get(0) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(remaining, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.http.client.HttpResponse;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.client.netty.ConnectionManager;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A request exchange that is hedged according to a {@link HedgingPolicy}. The original request is
+ * sent immediately. If it has not produced a response after the policy delay, a copy is sent, and
+ * whichever response arrives first completes the exchange. The connection of the losing attempt
+ * is closed.
+ * <p>
+ * The state is guarded by a {@link Lock} rather than a monitor, since the attempts complete on
+ * threads that may be virtual threads.
+ */
+final class HedgedExchange {
+    private final NettyHttpRequest request;
+    private final NettyHttpRequest hedgeRequest;
+    private final HedgingPolicy.OperationStats stats;
+    @Nullable
+    private final ConcurrencyLimiter.Limit limit;
+    private final CompletableFuture<HttpResponse> result;
+    private final long start = System.nanoTime();
+    private final Lock lock = new ReentrantLock();
+
+    private final Attempt primary = new Attempt();
+    private Attempt hedge;
+    private Throwable firstError;
+    private int pending;
+    /**
+     * Set once the exchange has a result, no hedge may be sent after that.
+     */
+    private boolean closed;
+    /**
+     * Set once the hedge request has been either sent or discarded.
+     */
+    private boolean hedgeResolved;
+
+    private HedgedExchange(NettyHttpRequest request, HedgingPolicy.OperationStats stats, @Nullable ConcurrencyLimiter.Limit limit, CompletableFuture<HttpResponse> result) {
+        this.request = request;
+        // copy up front, the original headers are modified once the request is sent
+        this.hedgeRequest = (NettyHttpRequest) request.copy();
+        this.stats = stats;
+        this.limit = limit;
+        this.result = result;
+    }
+
+    /**
+     * @param request The request
+     * @param stats   The stats of the operation
+     * @param limit   The concurrency limit of the operation, if any. The original request already
+     *                holds a permit, the hedge is only sent if it gets one too
+     * @param result  The future to complete with the response
+     */
+    static void send(NettyHttpRequest request, HedgingPolicy.OperationStats stats, @Nullable ConcurrencyLimiter.Limit limit, CompletableFuture<HttpResponse> result) {
+        new HedgedExchange(request, stats, limit, result).start();
+    }
+
+    private void start() {
+        stats.requests.increment();
+        pending = 1;
+        launch(primary, request);
+        long delay = stats.delayNanos();
+        if (delay >= 0) {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(this::fireHedge);
+        } else {
+            // not enough latency samples yet
+            discardHedge();
+        }
+    }
+
+    private void launch(Attempt attempt, NettyHttpRequest r) {
+        r.send(attempt.future, attempt::onConnect);
+        attempt.future.whenComplete((response, error) -> onComplete(attempt, response, error));
+    }
+
+    private void fireHedge() {
+        Attempt h = null;
+        lock.lock();
+        try {
+            if (!closed && !hedgeResolved && stats.tryHedge()) {
+                if (limit == null || limit.tryAcquire()) {
+                    h = new Attempt();
+                    hedge = h;
+                    hedgeResolved = true;
+                    pending++;
+                } else {
+                    // the limiter is saturated, a hedge would only add to the overload
+                    stats.refundHedge();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (h == null) {
+            discardHedge();
+        } else {
+            if (limit != null) {
+                limit.releaseAfter(h.future);
+            }
+            launch(h, hedgeRequest);
+        }
+    }
+
+    private void discardHedge() {
+        lock.lock();
+        try {
+            closed = true;
+            if (hedgeResolved) {
+                return;
+            }
+            hedgeResolved = true;
+        } finally {
+            lock.unlock();
+        }
+        hedgeRequest.discard();
+    }
+
+    private void onComplete(Attempt attempt, HttpResponse response, Throwable error) {
+        if (error != null) {
+            lock.lock();
+            try {
+                if (result.isDone()) {
+                    // the other attempt already won, this is most likely our own cancellation
+                    return;
+                }
+                if (firstError == null) {
+                    firstError = error;
+                }
+                if (--pending > 0) {
+                    // the other attempt may still succeed
+                    return;
+                }
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+            discardHedge();
+            result.completeExceptionally(firstError);
+            return;
+        }
+
+        if (!result.complete(response)) {
+            // the other attempt won
+            response.close();
+            return;
+        }
+        Attempt loser;
+        lock.lock();
+        try {
+            closed = true;
+            loser = attempt == primary ? hedge : primary;
+        } finally {
+            lock.unlock();
+        }
+        discardHedge();
+        stats.recordLatency(System.nanoTime() - start);
+        if (attempt != primary) {
+            stats.wins.increment();
+        }
+        if (loser != null) {
+            loser.cancel();
+        }
+    }
+
+    /**
+     * A single attempt of the exchange.
+     */
+    private static final class Attempt {
+        final CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        private final Lock lock = new ReentrantLock();
+        private ConnectionManager.PoolHandle handle;
+        private boolean cancelled;
+
+        boolean onConnect(ConnectionManager.PoolHandle ph) {
+            lock.lock();
+            try {
+                if (!cancelled) {
+                    handle = ph;
+                    return true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            ph.taint();
+            ph.release();
+            future.completeExceptionally(new CancellationException());
+            return false;
+        }
+
+        /**
+         * Close the connection of this attempt if it has not produced a response yet. A response
+         * that arrives anyway is closed by the exchange.
+         */
+        void cancel() {
+            ConnectionManager.PoolHandle ph;
+            lock.lock();
+            try {
+                cancelled = true;
+                ph = handle;
+            } finally {
+                lock.unlock();
+            }
+            if (ph != null && !future.isDone()) {
+                ph.taint();
+                ph.channel().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Policy for hedging idempotent {@code GET} operations. If the response of a hedged operation
+ * does not arrive within the configured latency percentile of that operation, a second identical
+ * request is sent on another connection and the first response wins. The share of extra requests
+ * is limited by a budget. If a {@link ConcurrencyLimiter} is configured, a hedge also needs a
+ * permit that is available right away, hedges never wait in the queue.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(property = NettyClientHedgingConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public final class HedgingPolicy {
+    private final Set<String> operations;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budget;
+    private final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * @param operations The operations to hedge, in the form of
+     *                   {@link NettyClientProperties#CLASS_AND_METHOD_KEY_NAME}, e.g.
+     *                   {@code ObjectStorageClient.getObject}
+     * @param percentile The latency percentile after which a hedge is sent, e.g. {@code 0.95}
+     * @param minDelay   The minimum delay before a hedge is sent
+     * @param budget     The maximum number of hedges as a fraction of hedgeable requests, e.g.
+     *                   {@code 0.05} for at most 5% extra load
+     */
+    public HedgingPolicy(Set<String> operations, double percentile, Duration minDelay, double budget) {
+        if (percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile must be in (0, 1]");
+        }
+        this.operations = Set.copyOf(operations);
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budget = budget;
+    }
+
+    @Inject
+    HedgingPolicy(NettyClientHedgingConfiguration configuration) {
+        this(configuration.operations(), configuration.percentile(), configuration.minDelay(), configuration.budget());
+    }
+
+    /**
+     * @return The hedged operations
+     */
+    public Set<String> getOperations() {
+        return operations;
+    }
+
+    /**
+     * @param operation The operation
+     * @return The number of hedges sent for the operation
+     */
+    public long getHedgesFired(String operation) {
+        OperationStats s = stats.get(operation);
+        return s == null ? 0 : s.hedges.get();
+    }
+
+    /**
+     * @param operation The operation
+     * @return The number of hedges whose response arrived before the original response
+     */
+    public long getHedgesWon(String operation) {
+        OperationStats s = stats.get(operation);
+        return s == null ? 0 : s.wins.sum();
+    }
+
+    boolean isHedged(@Nullable String operation) {
+        return operation != null && operations.contains(operation);
+    }
+
+    OperationStats stats(String operation) {
+        return stats.computeIfAbsent(operation, op -> new OperationStats());
+    }
+
+    /**
+     * Latency and hedge bookkeeping for a single operation.
+     */
+    final class OperationStats {
+        private static final int SAMPLES = 128;
+        private static final int RECOMPUTE_INTERVAL = 16;
+
+        final LongAdder requests = new LongAdder();
+        /**
+         * Not a {@link LongAdder}: {@link #tryHedge()} checks and reserves the budget in one step.
+         */
+        final AtomicLong hedges = new AtomicLong();
+        final LongAdder wins = new LongAdder();
+
+        /**
+         * Guards {@link #samples} and {@link #count}. Not a monitor, since latencies are recorded
+         * from the threads completing the response, which may be virtual threads.
+         */
+        private final Lock samplesLock = new ReentrantLock();
+        private final long[] samples = new long[SAMPLES];
+        private int count;
+        /**
+         * {@code -1} until enough samples have been collected.
+         */
+        private volatile long delayNanos = -1;
+
+        long delayNanos() {
+            return delayNanos;
+        }
+
+        /**
+         * Try to reserve a hedge within the budget.
+         *
+         * @return {@code true} if a hedge may be sent
+         */
+        boolean tryHedge() {
+            while (true) {
+                long fired = hedges.get();
+                if (fired + 1 > budget * requests.sum()) {
+                    return false;
+                }
+                if (hedges.compareAndSet(fired, fired + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Give back a hedge reserved by {@link #tryHedge()} that was not sent after all.
+         */
+        void refundHedge() {
+            hedges.decrementAndGet();
+        }
+
+        void recordLatency(long nanos) {
+            samplesLock.lock();
+            try {
+                samples[count % SAMPLES] = nanos;
+                count++;
+                if (count % RECOMPUTE_INTERVAL == 0) {
+                    long[] sorted = Arrays.copyOf(samples, Math.min(count, SAMPLES));
+                    Arrays.sort(sorted);
+                    int index = Math.min(sorted.length - 1, (int) (percentile * sorted.length));
+                    delayNanos = Math.max(minDelayNanos, sorted[index]);
+                }
+            } finally {
+                samplesLock.unlock();
+            }
+        }
+    }
+}
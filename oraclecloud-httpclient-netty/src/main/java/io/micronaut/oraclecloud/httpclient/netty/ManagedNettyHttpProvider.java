@@ -60,6 +60,14 @@ public class ManagedNettyHttpProvider implements HttpProvider {
     @Nullable
     final ExecutorService ioExecutor;
     final JsonMapper jsonMapper;
+    @Nullable
+    HedgingPolicy hedgingPolicy;
+    @Nullable
+    ConcurrencyLimiter concurrencyLimiter;
+    @Nullable
+    ResponseCache responseCache;
+    @Nullable
+    ConnectionPoolMonitor poolMonitor;
 
     @Inject
     public ManagedNettyHttpProvider(
@@ -90,6 +98,26 @@ public class ManagedNettyHttpProvider implements HttpProvider {
         this.nettyClientFilters = nettyClientFilters == null ? Collections.emptyList() : nettyClientFilters;
     }
 
+    @Inject
+    void setHedgingPolicy(@Nullable HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    @Inject
+    void setConcurrencyLimiter(@Nullable ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Inject
+    void setResponseCache(@Nullable ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Inject
+    void setPoolMonitor(@Nullable ConnectionPoolMonitor poolMonitor) {
+        this.poolMonitor = poolMonitor;
+    }
+
     @Override
     public HttpClientBuilder newBuilder() {
         return new NettyHttpClientBuilder(this);
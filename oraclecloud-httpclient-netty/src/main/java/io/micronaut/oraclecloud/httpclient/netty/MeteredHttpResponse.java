@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.http.client.HttpResponse;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A response of the netty client, as passed to
+ * {@link OciNettyClientFilter#afterResponse(com.oracle.bmc.http.client.HttpRequest, HttpResponse, Throwable, Object)}.
+ * Filters can use it to observe the end of the exchange, which for a streamed body is usually
+ * long after the response head was received.
+ *
+ * @since 4.3.0
+ */
+public interface MeteredHttpResponse extends HttpResponse {
+    /**
+     * The transfer of this exchange. The bytes are counted in the channel pipeline as they are
+     * written and received, so this is available no matter how the body is consumed.
+     *
+     * @return Stage that completes when the exchange no longer uses the connection, or
+     * {@code null} if the response was not received from the network, e.g. because it was served
+     * from the {@link ResponseCache}, or if neither an {@link OciNettyClientFilter} nor a
+     * {@link ConcurrencyLimiter} is configured
+     */
+    @Nullable
+    CompletionStage<Transfer> transfer();
+
+    /**
+     * The bytes transferred by one exchange.
+     *
+     * @param requestBodyBytes  The request body bytes written to the connection
+     * @param responseBodyBytes The response body bytes received from the connection
+     * @param complete          Whether the response body was received completely, i.e. it was
+     *                          neither cancelled nor interrupted by a connection failure
+     */
+    record Transfer(long requestBodyBytes, long responseBodyBytes, boolean complete) {
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.objectstorage.ObjectStorageAsync;
+import com.oracle.bmc.objectstorage.model.CommitMultipartUploadDetails;
+import com.oracle.bmc.objectstorage.model.CommitMultipartUploadPartDetails;
+import com.oracle.bmc.objectstorage.model.CreateMultipartUploadDetails;
+import com.oracle.bmc.objectstorage.requests.AbortMultipartUploadRequest;
+import com.oracle.bmc.objectstorage.requests.CommitMultipartUploadRequest;
+import com.oracle.bmc.objectstorage.requests.CreateMultipartUploadRequest;
+import com.oracle.bmc.objectstorage.requests.UploadPartRequest;
+import com.oracle.bmc.objectstorage.responses.CommitMultipartUploadResponse;
+import com.oracle.bmc.retrier.RetryConfiguration;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Uploads large objects to Object Storage as a multipart upload. The body is split into parts
+ * that are uploaded concurrently through the asynchronous SDK client, and so over the pooled
+ * connections of the netty client. Each part carries its {@code Content-MD5}, and the MD5
+ * returned by the server is checked as well. Failed parts are retried on their own. Once all
+ * parts are uploaded, the upload is committed, and if any part fails for good, it is aborted.
+ * <p>
+ * File parts are sent straight from the file, see {@link FileBody}. The MD5 of a file part is
+ * computed from a memory mapped slice of the file, so it is not copied to the heap either.
+ * Parts of a stream are buffered, so at most {@code parallelism} parts of a stream are held in
+ * memory at a time.
+ * <p>
+ * Parts are read on the blocking executor, which may run virtual threads, so the shared state is
+ * guarded by {@link Lock}s rather than monitors.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(classes = ObjectStorageAsync.class)
+@Requires(beans = ObjectStorageAsync.class)
+public final class MultipartUploader {
+    private static final long RETRY_DELAY_MILLIS = 100;
+
+    private final ObjectStorageAsync client;
+    private final long partSize;
+    private final int parallelism;
+    private final int maxRetries;
+    private final Executor blockingExecutor;
+
+    /**
+     * @param client           The client to upload with
+     * @param partSize         The size of each part in bytes. Only the last part may be smaller
+     * @param parallelism      The maximum number of parts that are uploaded concurrently
+     * @param maxRetries       How often the upload of a single part is retried
+     * @param blockingExecutor Executor for reading the body and computing checksums
+     */
+    public MultipartUploader(ObjectStorageAsync client, long partSize, int parallelism, int maxRetries, Executor blockingExecutor) {
+        if (partSize <= 0 || partSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Part size must be between 1 and " + Integer.MAX_VALUE + ": " + partSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.client = client;
+        this.partSize = partSize;
+        this.parallelism = parallelism;
+        this.maxRetries = maxRetries;
+        this.blockingExecutor = blockingExecutor;
+    }
+
+    @Inject
+    MultipartUploader(ObjectStorageAsync client, NettyClientMultipartUploadConfiguration configuration, @Named(TaskExecutors.BLOCKING) Executor blockingExecutor) {
+        this(client, configuration.partSize(), configuration.parallelism(), configuration.maxRetries(), blockingExecutor);
+    }
+
+    /**
+     * Upload a file.
+     *
+     * @param namespaceName The Object Storage namespace
+     * @param bucketName    The bucket
+     * @param objectName    The name of the object to create
+     * @param file          The file to upload
+     * @return The response of the commit call, or the failure that caused the upload to be aborted
+     */
+    public CompletableFuture<CommitMultipartUploadResponse> upload(String namespaceName, String bucketName, String objectName, Path file) {
+        return CompletableFuture.<Source>supplyAsync(() -> {
+            try {
+                return new FileSource(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, blockingExecutor).thenCompose(source -> upload(namespaceName, bucketName, objectName, source));
+    }
+
+    /**
+     * Upload the contents of a stream. The stream is read on the blocking executor, and it is
+     * not closed.
+     *
+     * @param namespaceName The Object Storage namespace
+     * @param bucketName    The bucket
+     * @param objectName    The name of the object to create
+     * @param stream        The data to upload
+     * @return The response of the commit call, or the failure that caused the upload to be aborted
+     */
+    public CompletableFuture<CommitMultipartUploadResponse> upload(String namespaceName, String bucketName, String objectName, InputStream stream) {
+        return upload(namespaceName, bucketName, objectName, new StreamSource(stream));
+    }
+
+    private CompletableFuture<CommitMultipartUploadResponse> upload(String namespaceName, String bucketName, String objectName, Source source) {
+        CompletableFuture<CommitMultipartUploadResponse> result = AsyncCalls.call(client::createMultipartUpload, CreateMultipartUploadRequest.builder()
+            .namespaceName(namespaceName)
+            .bucketName(bucketName)
+            .createMultipartUploadDetails(CreateMultipartUploadDetails.builder().object(objectName).build())
+            .build())
+            .thenCompose(created -> new Upload(namespaceName, bucketName, objectName, created.getMultipartUpload().getUploadId(), source).start());
+        return result.whenComplete((r, e) -> source.close());
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The state of a single multipart upload.
+     */
+    private final class Upload {
+        private final String namespaceName;
+        private final String bucketName;
+        private final String objectName;
+        private final String uploadId;
+        private final Source source;
+
+        private final CompletableFuture<List<CommitMultipartUploadPartDetails>> partsDone = new CompletableFuture<>();
+        private final Lock committedLock = new ReentrantLock();
+        /**
+         * Guarded by {@link #committedLock}.
+         */
+        private final List<CommitMultipartUploadPartDetails> committed = new ArrayList<>();
+        private final AtomicInteger activeWorkers = new AtomicInteger(parallelism);
+
+        Upload(String namespaceName, String bucketName, String objectName, String uploadId, Source source) {
+            this.namespaceName = namespaceName;
+            this.bucketName = bucketName;
+            this.objectName = objectName;
+            this.uploadId = uploadId;
+            this.source = source;
+        }
+
+        CompletableFuture<CommitMultipartUploadResponse> start() {
+            for (int i = 0; i < parallelism; i++) {
+                nextPart();
+            }
+            return partsDone
+                .thenCompose(parts -> AsyncCalls.call(client::commitMultipartUpload, CommitMultipartUploadRequest.builder()
+                    .namespaceName(namespaceName)
+                    .bucketName(bucketName)
+                    .objectName(objectName)
+                    .uploadId(uploadId)
+                    .commitMultipartUploadDetails(CommitMultipartUploadDetails.builder().partsToCommit(parts).build())
+                    .build()))
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    Throwable cause = AsyncCalls.unwrap(error);
+                    return AsyncCalls.call(client::abortMultipartUpload, AbortMultipartUploadRequest.builder()
+                        .namespaceName(namespaceName)
+                        .bucketName(bucketName)
+                        .objectName(objectName)
+                        .uploadId(uploadId)
+                        .build())
+                        .<CommitMultipartUploadResponse>handle((r, abortError) -> {
+                            if (abortError != null) {
+                                cause.addSuppressed(AsyncCalls.unwrap(abortError));
+                            }
+                            throw new CompletionException(cause);
+                        });
+                })
+                .thenCompose(f -> f);
+        }
+
+        /**
+         * Read the next part and upload it. Each call is one of {@code parallelism} workers,
+         * and the parts are read one at a time.
+         */
+        private void nextPart() {
+            if (partsDone.isDone()) {
+                // another part failed
+                return;
+            }
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return source.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, blockingExecutor).whenComplete((part, error) -> {
+                if (error != null) {
+                    partsDone.completeExceptionally(AsyncCalls.unwrap(error));
+                } else if (part == null) {
+                    if (activeWorkers.decrementAndGet() == 0) {
+                        List<CommitMultipartUploadPartDetails> parts;
+                        committedLock.lock();
+                        try {
+                            parts = new ArrayList<>(committed);
+                        } finally {
+                            committedLock.unlock();
+                        }
+                        parts.sort(Comparator.comparing(CommitMultipartUploadPartDetails::getPartNum));
+                        partsDone.complete(parts);
+                    }
+                } else {
+                    uploadPart(part, 0);
+                }
+            });
+        }
+
+        private void uploadPart(Part part, int attempt) {
+            InputStream body;
+            try {
+                body = part.open();
+            } catch (IOException e) {
+                partsDone.completeExceptionally(e);
+                return;
+            }
+            AsyncCalls.call(client::uploadPart, UploadPartRequest.builder()
+                .namespaceName(namespaceName)
+                .bucketName(bucketName)
+                .objectName(objectName)
+                .uploadId(uploadId)
+                .uploadPartNum(part.number())
+                .contentLength(part.length())
+                .contentMD5(part.md5())
+                .uploadPartBody(body)
+                // retries are done here, per part, with a fresh body stream
+                .retryConfiguration(RetryConfiguration.NO_RETRY_CONFIGURATION)
+                .build())
+                .thenApply(response -> {
+                    if (response.getOpcContentMd5() != null && !response.getOpcContentMd5().equals(part.md5())) {
+                        throw new IllegalStateException("MD5 mismatch for part " + part.number() + ": sent " + part.md5() + ", server computed " + response.getOpcContentMd5());
+                    }
+                    return response.getETag();
+                })
+                .whenComplete((etag, error) -> {
+                    try {
+                        body.close();
+                    } catch (IOException ignored) {
+                    }
+                    if (error == null) {
+                        committedLock.lock();
+                        try {
+                            committed.add(CommitMultipartUploadPartDetails.builder().partNum(part.number()).etag(etag).build());
+                        } finally {
+                            committedLock.unlock();
+                        }
+                        nextPart();
+                        return;
+                    }
+                    Throwable cause = AsyncCalls.unwrap(error);
+                    if (attempt < maxRetries && AsyncCalls.isRetryable(cause) && !partsDone.isDone()) {
+                        CompletableFuture.runAsync(
+                            () -> uploadPart(part, attempt + 1),
+                            CompletableFuture.delayedExecutor(RETRY_DELAY_MILLIS << attempt, TimeUnit.MILLISECONDS, blockingExecutor));
+                    } else {
+                        partsDone.completeExceptionally(cause);
+                    }
+                });
+        }
+    }
+
+    /**
+     * A part that has been read and checksummed.
+     *
+     * @param number The 1-based part number
+     * @param length The length in bytes
+     * @param md5    The Base64 encoded MD5
+     * @param data   The data for stream parts, {@code null} for file parts
+     * @param file   The file for file parts
+     * @param offset The offset of the part in the file
+     */
+    private record Part(int number, long length, String md5, @Nullable byte[] data, @Nullable Path file, long offset) {
+        InputStream open() throws IOException {
+            if (data != null) {
+                return new ByteArrayInputStream(data);
+            }
+            // a file slice ends with the part, and still lets the netty client send it with FileRegion
+            return FileBody.Slice.open(file, offset, length);
+        }
+    }
+
+    private interface Source {
+        /**
+         * @return The next part, or {@code null} if there are no more parts
+         */
+        @Nullable
+        Part next() throws IOException;
+
+        void close();
+    }
+
+    private final class FileSource implements Source {
+        private final Path file;
+        private final FileChannel channel;
+        private final long size;
+        private final AtomicInteger partNumber = new AtomicInteger();
+
+        FileSource(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        @Override
+        public Part next() throws IOException {
+            int number = partNumber.incrementAndGet();
+            long offset = (number - 1) * partSize;
+            if (offset >= size && number > 1) {
+                return null;
+            }
+            long length = Math.min(partSize, size - offset);
+            MessageDigest md5 = md5();
+            md5.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+            return new Part(number, length, Base64.getEncoder().encodeToString(md5.digest()), null, file, offset);
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private final class StreamSource implements Source {
+        private final InputStream stream;
+        /**
+         * Guards reading from {@link #stream}, so that parts are read in order.
+         */
+        private final Lock lock = new ReentrantLock();
+        /**
+         * Guarded by {@link #lock}.
+         */
+        private int partNumber;
+
+        StreamSource(InputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public Part next() throws IOException {
+            byte[] data;
+            int number;
+            lock.lock();
+            try {
+                data = stream.readNBytes((int) partSize);
+                if (data.length == 0 && partNumber > 0) {
+                    return null;
+                }
+                number = ++partNumber;
+            } finally {
+                lock.unlock();
+            }
+            // hash outside the lock, so that the next part can be read meanwhile
+            return new Part(number, data.length, Base64.getEncoder().encodeToString(md5().digest(data)), data, null, 0);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
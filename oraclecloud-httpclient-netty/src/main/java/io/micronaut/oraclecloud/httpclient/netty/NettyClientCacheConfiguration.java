@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import io.micronaut.core.util.Toggleable;
+
+import java.util.Set;
+
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientCacheConfiguration.PREFIX;
+
+/**
+ * Configuration of the {@link ResponseCache} for the managed netty client.
+ *
+ * @param enabled      Whether the cache is enabled
+ * @param operations   The operations whose responses are cached, e.g.
+ *                     {@code SecretsClient.getSecretBundle}. Only {@code GET} responses with an
+ *                     {@code ETag} are ever cached
+ * @param maxSize      The maximum total size of the cached bodies in bytes
+ * @param maxEntrySize The maximum size of a single cached body in bytes
+ * @since 4.3.0
+ */
+@ConfigurationProperties(PREFIX)
+public record NettyClientCacheConfiguration(
+    @Bindable(defaultValue = "false") boolean enabled,
+    @Bindable(defaultValue = "") Set<String> operations,
+    @Bindable(defaultValue = "16777216") long maxSize,
+    @Bindable(defaultValue = "1048576") long maxEntrySize
+) implements Toggleable {
+    public static final String PREFIX = "oci.netty.cache";
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import io.micronaut.core.util.Toggleable;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientHedgingConfiguration.PREFIX;
+
+/**
+ * Configuration of the {@link HedgingPolicy} for the managed netty client.
+ *
+ * @param enabled    Whether hedging is enabled
+ * @param operations The operations to hedge, e.g. {@code ObjectStorageClient.getObject}. Only
+ *                   {@code GET} requests are ever hedged
+ * @param percentile The latency percentile of an operation after which a hedge is sent
+ * @param minDelay   The minimum delay before a hedge is sent
+ * @param budget     The maximum number of hedges as a fraction of hedgeable requests
+ * @since 4.3.0
+ */
+@ConfigurationProperties(PREFIX)
+public record NettyClientHedgingConfiguration(
+    @Bindable(defaultValue = "false") boolean enabled,
+    @Bindable(defaultValue = "") Set<String> operations,
+    @Bindable(defaultValue = "0.95") double percentile,
+    @Bindable(defaultValue = "10ms") Duration minDelay,
+    @Bindable(defaultValue = "0.05") double budget
+) implements Toggleable {
+    public static final String PREFIX = "oci.netty.hedging";
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import io.micronaut.core.util.Toggleable;
+
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientLimiterConfiguration.PREFIX;
+
+/**
+ * Configuration of the {@link ConcurrencyLimiter} for the managed netty client.
+ *
+ * @param enabled          Whether the limiter is enabled
+ * @param initialLimit     The initial number of concurrent requests per endpoint and operation
+ * @param minLimit         The lower bound of the limit
+ * @param maxLimit         The upper bound of the limit
+ * @param backoffRatio     The factor the limit is multiplied with when the server signals overload
+ * @param latencyTolerance The factor by which the recent latency may exceed the long-term latency
+ *                         before the limit is decreased
+ * @param maxQueued        The number of requests that may wait for a permit. Further requests
+ *                         fail immediately. {@code 0} disables queueing
+ * @since 4.3.0
+ */
+@ConfigurationProperties(PREFIX)
+public record NettyClientLimiterConfiguration(
+    @Bindable(defaultValue = "false") boolean enabled,
+    @Bindable(defaultValue = "20") int initialLimit,
+    @Bindable(defaultValue = "1") int minLimit,
+    @Bindable(defaultValue = "200") int maxLimit,
+    @Bindable(defaultValue = "0.9") double backoffRatio,
+    @Bindable(defaultValue = "2") double latencyTolerance,
+    @Bindable(defaultValue = "1000") int maxQueued
+) implements Toggleable {
+    public static final String PREFIX = "oci.netty.limiter";
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
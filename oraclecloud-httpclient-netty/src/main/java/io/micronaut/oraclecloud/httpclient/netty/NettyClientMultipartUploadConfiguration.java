@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientMultipartUploadConfiguration.PREFIX;
+
+/**
+ * Configuration of the {@link MultipartUploader}.
+ *
+ * @param partSize    The size of each part in bytes. Only the last part may be smaller
+ * @param parallelism The maximum number of parts that are uploaded concurrently
+ * @param maxRetries  How often the upload of a single part is retried before the whole upload
+ *                    is aborted
+ * @since 4.3.0
+ */
+@ConfigurationProperties(PREFIX)
+public record NettyClientMultipartUploadConfiguration(
+    @Bindable(defaultValue = "134217728") long partSize,
+    @Bindable(defaultValue = "4") int parallelism,
+    @Bindable(defaultValue = "3") int maxRetries
+) {
+    public static final String PREFIX = "oci.netty.multipart-upload";
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import io.micronaut.core.util.Toggleable;
+
+import java.time.Duration;
+
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientPoolMonitorConfiguration.PREFIX;
+
+/**
+ * Configuration of the {@link ConnectionPoolMonitor} for the managed netty client.
+ *
+ * @param enabled                Whether the monitor is enabled
+ * @param eventLoopProbeInterval How often the scheduling latency of each event loop is sampled
+ * @since 4.3.0
+ */
+@ConfigurationProperties(PREFIX)
+public record NettyClientPoolMonitorConfiguration(
+    @Bindable(defaultValue = "false") boolean enabled,
+    @Bindable(defaultValue = "1s") Duration eventLoopProbeInterval
+) implements Toggleable {
+    public static final String PREFIX = "oci.netty.pool-monitor";
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
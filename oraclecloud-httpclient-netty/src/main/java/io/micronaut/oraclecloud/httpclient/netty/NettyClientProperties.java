@@ -20,6 +20,7 @@ import com.oracle.bmc.http.client.HttpRequest;
 import com.oracle.bmc.http.client.HttpResponse;
 import io.micronaut.core.annotation.Internal;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -44,11 +45,153 @@ public final class NettyClientProperties {
      */
     public static final ClientProperty<List<OciNettyClientFilter<?>>> OCI_NETTY_CLIENT_FILTERS_KEY = ClientProperty.create("ociNettyClientFilters");
 
+    /**
+     * If {@code true}, JSON request bodies are serialized directly into a pooled netty buffer
+     * instead of going through an intermediate {@link String}. The {@code x-content-sha256} and
+     * {@code content-length} headers used for request signing are computed from the encoded bytes.
+     * {@link HttpRequest#body()} still returns the JSON string, but it is only built on demand for
+     * interceptors that need it. Defaults to {@code false}.
+     */
+    public static final ClientProperty<Boolean> DIRECT_JSON_BODY = ClientProperty.create("directJsonBody");
+
+    /**
+     * Response bodies larger than this many bytes, or of unknown length, are decoded from JSON
+     * while they are being received instead of being buffered completely first. This trades a
+     * thread for memory: the parser is blocking, so each such response occupies a thread of the
+     * offload or blocking IO executor until its last byte has arrived, however slowly the server
+     * sends it. In return the raw bytes of the body are never held in memory at once, only the
+     * read-ahead window, and decoding overlaps with receiving. The decoded model, e.g. the
+     * complete list of a {@code list*} response, is still built in memory. A negative value (the
+     * default) disables streaming decoding, which is the better choice unless large bodies are a
+     * memory problem and the executor is sized for the concurrent responses.
+     */
+    public static final ClientProperty<Long> STREAMING_DECODE_THRESHOLD = ClientProperty.create("streamingDecodeThreshold");
+
+    /**
+     * If {@code true}, the body mode of a response is derived from the SDK operation that sent
+     * the request. Successful responses of operations whose response model has an
+     * {@link java.io.InputStream} property, such as Object Storage {@code getObject}, are streamed
+     * from the moment the response head arrives, instead of being buffered until the SDK asks for
+     * the body. This requires resolving the operation from the call stack for every request.
+     * Defaults to {@code false}.
+     */
+    public static final ClientProperty<Boolean> OPERATION_BODY_MODE = ClientProperty.create("operationBodyMode");
+
+    /**
+     * The number of bytes of a streamed response body that the client reads ahead of the
+     * consumer of the stream. Once this many bytes are buffered, reading from the connection
+     * pauses until the consumer has drained the buffer to
+     * {@link #READ_AHEAD_LOW_WATERMARK}. Defaults to 1 MiB.
+     */
+    public static final ClientProperty<Integer> READ_AHEAD_HIGH_WATERMARK = ClientProperty.create("readAheadHighWatermark");
+
+    /**
+     * The number of buffered bytes of a streamed response body at which the client resumes
+     * reading from the connection, see {@link #READ_AHEAD_HIGH_WATERMARK}. Must not be larger
+     * than the high watermark. Defaults to a quarter of the high watermark.
+     */
+    public static final ClientProperty<Integer> READ_AHEAD_LOW_WATERMARK = ClientProperty.create("readAheadLowWatermark");
+
+    /**
+     * How long the consumer of a response body may take no data once reading from the connection
+     * has paused, e.g. because the read-ahead window of a stream is full, before the body is
+     * considered abandoned. The connection of an abandoned body is closed and its exchange ends,
+     * which also returns the {@link #CONCURRENCY_LIMITER} permit; later reads from the body fail.
+     * A zero or negative duration never abandons a body. Defaults to one minute.
+     */
+    public static final ClientProperty<Duration> ABANDONED_BODY_TIMEOUT = ClientProperty.create("abandonedBodyTimeout");
+
+    /**
+     * If {@code true}, the client negotiates HTTP/2 through ALPN on TLS connections and
+     * multiplexes concurrent requests over a small number of connections. If the server does not
+     * support HTTP/2, or the connection is not encrypted, HTTP/1.1 is used. Defaults to
+     * {@code false}.
+     */
+    public static final ClientProperty<Boolean> HTTP2 = ClientProperty.create("http2");
+
+    /**
+     * If {@code true}, requests that do not set an {@code Accept-Encoding} header themselves
+     * advertise {@code gzip, deflate}, and compressed responses to those requests are decoded in
+     * the channel pipeline, for both buffered and streamed bodies. Requests of operations whose
+     * response model has an {@link java.io.InputStream} property, such as Object Storage
+     * {@code getObject}, are not changed, so that objects stored with a {@code Content-Encoding}
+     * are returned as stored. This requires resolving the operation from the call stack for every
+     * request. Defaults to {@code false}.
+     */
+    public static final ClientProperty<Boolean> RESPONSE_DECOMPRESSION = ClientProperty.create("responseDecompression");
+
+    /**
+     * If {@code true}, {@link java.io.InputStream} request bodies that would otherwise be buffered
+     * in memory for signing are copied to a temporary file instead, computing the
+     * {@code x-content-sha256} header on the way. Bodies of known length of operations whose body
+     * is not signed, such as Object Storage {@code putObject} and {@code uploadPart}, are streamed
+     * without buffering. Defaults to {@code false}.
+     */
+    public static final ClientProperty<Boolean> STREAMING_SIGNING = ClientProperty.create("streamingSigning");
+
+    /**
+     * If {@code true}, blocking operations of the client, such as reading streamed request bodies
+     * and decoding streamed responses, run on virtual threads instead of a cached platform thread
+     * pool. Requires Java 21. The managed client uses the Micronaut blocking executor by default,
+     * which already uses virtual threads where available. Defaults to {@code false}.
+     */
+    public static final ClientProperty<Boolean> VIRTUAL_THREADS = ClientProperty.create("virtualThreads");
+
+    /**
+     * If set to a non-negative value, identical concurrent {@code GET} requests of this client
+     * share a single exchange: only the first request is signed and sent, and requests that
+     * arrive while it is in flight receive a copy of its response. Only responses with a
+     * {@code Content-Length} of at most this many bytes are shared, for larger or streamed
+     * bodies the waiting requests are sent separately. A negative value (the default) disables
+     * coalescing.
+     */
+    public static final ClientProperty<Long> COALESCING_MAX_BODY_SIZE = ClientProperty.create("coalescingMaxBodySize");
+
+    /**
+     * The {@link HedgingPolicy} for {@code GET} requests of this client. In the managed client,
+     * this defaults to the policy bean, if hedging is enabled in the configuration. Hedged
+     * operations are identified by {@link #CLASS_AND_METHOD_KEY_NAME}.
+     */
+    public static final ClientProperty<HedgingPolicy> HEDGING_POLICY = ClientProperty.create("hedgingPolicy");
+
+    /**
+     * The {@link ConcurrencyLimiter} that bounds the number of in-flight requests of this client
+     * per operation. In the managed client, this defaults to the limiter bean, if the limiter is
+     * enabled in the configuration.
+     */
+    public static final ClientProperty<ConcurrencyLimiter> CONCURRENCY_LIMITER = ClientProperty.create("concurrencyLimiter");
+
+    /**
+     * The {@link ResponseCache} for {@code GET} responses of this client. In the managed client,
+     * this defaults to the cache bean, if the cache is enabled in the configuration.
+     */
+    public static final ClientProperty<ResponseCache> RESPONSE_CACHE = ClientProperty.create("responseCache");
+
+    /**
+     * The {@link ConnectionPoolMonitor} that instruments the connection pool and the event loops
+     * used by this client. In the managed client, this defaults to the monitor bean, if the
+     * monitor is enabled in the configuration.
+     */
+    public static final ClientProperty<ConnectionPoolMonitor> POOL_MONITOR = ClientProperty.create("poolMonitor");
+
     /**
      * The Client attribute that stores class name with method of the client that invoked request.
+     * Resolving it requires walking the call stack, so the attribute is only resolved when a
+     * feature consumes it: at least one {@link OciNettyClientFilter}, {@link #HEDGING_POLICY},
+     * {@link #CONCURRENCY_LIMITER}, {@link #RESPONSE_CACHE}, {@link #STREAMING_SIGNING},
+     * {@link #OPERATION_BODY_MODE} or {@link #RESPONSE_DECOMPRESSION}. Callers that already
+     * know the operation can set the attribute on the request before it is executed, which
+     * skips the stack walk.
      */
     public static final String CLASS_AND_METHOD_KEY_NAME = "class_and_method";
 
+    /**
+     * The Client attribute that stores the host the request is sent to, so that
+     * {@link OciNettyClientFilter}s do not have to parse {@link HttpRequest#uri()}.
+     * The attribute is only set when at least one {@link OciNettyClientFilter} is configured.
+     */
+    public static final String HOST_KEY_NAME = "host";
+
     /**
      * The {@link ManagedNettyHttpProvider} to use for this client.
      */
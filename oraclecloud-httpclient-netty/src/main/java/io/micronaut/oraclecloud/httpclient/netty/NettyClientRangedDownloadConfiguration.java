@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientRangedDownloadConfiguration.PREFIX;
+
+/**
+ * Configuration of the {@link RangedDownloader}.
+ *
+ * @param rangeSize   The size of each range in bytes. Only the last range may be smaller
+ * @param parallelism The maximum number of ranges that are downloaded concurrently
+ * @param maxRetries  How often the download of a single range is retried before the whole
+ *                    download fails
+ * @since 4.3.0
+ */
+@ConfigurationProperties(PREFIX)
+public record NettyClientRangedDownloadConfiguration(
+    @Bindable(defaultValue = "33554432") long rangeSize,
+    @Bindable(defaultValue = "4") int parallelism,
+    @Bindable(defaultValue = "3") int maxRetries
+) {
+    public static final String PREFIX = "oci.netty.ranged-download";
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.http.client.HttpClient;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens pooled connections to the configured OCI endpoints on startup, so that the first SDK
+ * calls do not pay for DNS resolution, TCP connect and the TLS handshake. Startup blocks until
+ * the warmup completes or {@link NettyClientWarmupConfiguration#timeout()} elapses.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(property = NettyClientWarmupConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public final class NettyClientWarmup implements ApplicationEventListener<StartupEvent> {
+    private static final Logger LOG = LoggerFactory.getLogger(NettyClientWarmup.class);
+
+    private final ManagedNettyHttpProvider provider;
+    private final NettyClientWarmupConfiguration configuration;
+    private final Map<URI, Duration> durations = new ConcurrentHashMap<>();
+
+    NettyClientWarmup(ManagedNettyHttpProvider provider, NettyClientWarmupConfiguration configuration) {
+        this.provider = provider;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void onApplicationEvent(StartupEvent event) {
+        List<HttpClient> clients = new ArrayList<>();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (URI endpoint : configuration.endpoints()) {
+            NettyHttpClient client = (NettyHttpClient) provider.newBuilder().baseUri(endpoint).build();
+            clients.add(client);
+            long start = System.nanoTime();
+            futures.add(client.warmUp(configuration.connections()).whenComplete((v, t) -> {
+                if (t == null) {
+                    durations.put(endpoint, Duration.ofNanos(System.nanoTime() - start));
+                } else {
+                    LOG.warn("Failed to warm up connections to {}", endpoint, t);
+                }
+            }));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .get(configuration.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.warn("OCI connection warmup did not complete", e);
+        } finally {
+            // the connections stay in the shared pool of the managed micronaut client
+            clients.forEach(HttpClient::close);
+        }
+    }
+
+    /**
+     * @return The configured endpoints
+     */
+    public List<URI> getEndpoints() {
+        return Collections.unmodifiableList(configuration.endpoints());
+    }
+
+    /**
+     * @param endpoint The endpoint
+     * @return The time it took to open all connections to the endpoint, or {@code null} if the
+     * warmup has not completed successfully
+     */
+    @Nullable
+    public Duration getDuration(URI endpoint) {
+        return durations.get(endpoint);
+    }
+}
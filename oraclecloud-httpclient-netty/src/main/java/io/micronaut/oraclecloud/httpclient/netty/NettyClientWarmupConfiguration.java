@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import io.micronaut.core.util.Toggleable;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientWarmupConfiguration.PREFIX;
+
+/**
+ * Configuration of the connection warmup for the managed netty client. When enabled, connections
+ * to the configured endpoints are opened during application startup, before the server reports
+ * readiness.
+ *
+ * @param enabled     Whether the warmup is enabled
+ * @param endpoints   The OCI service endpoints to connect to, e.g.
+ *                    {@code https://objectstorage.us-phoenix-1.oraclecloud.com}
+ * @param connections The number of connections to open per endpoint. Should not exceed the pool
+ *                    size of the {@code oci} HTTP client service
+ * @param timeout     The maximum time to wait for the warmup to complete
+ * @since 4.3.0
+ */
+@ConfigurationProperties(PREFIX)
+public record NettyClientWarmupConfiguration(
+    @Bindable(defaultValue = "false") boolean enabled,
+    @Bindable(defaultValue = "") List<URI> endpoints,
+    @Bindable(defaultValue = "1") int connections,
+    @Bindable(defaultValue = "30s") Duration timeout
+) implements Toggleable {
+    public static final String PREFIX = "oci.netty.warmup";
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
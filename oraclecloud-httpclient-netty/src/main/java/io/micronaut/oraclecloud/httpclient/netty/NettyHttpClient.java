@@ -23,9 +23,11 @@ import com.oracle.bmc.http.client.HttpRequest;
 import com.oracle.bmc.http.client.Method;
 import com.oracle.bmc.http.client.RequestInterceptor;
 import com.oracle.bmc.http.client.StandardClientProperties;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.order.OrderUtil;
 import io.micronaut.http.client.DefaultHttpClientConfiguration;
 import io.micronaut.http.client.HttpVersionSelection;
+import io.micronaut.http.client.netty.BlockHint;
 import io.micronaut.http.client.netty.ConnectionManager;
 import io.micronaut.http.client.netty.DefaultHttpClient;
 import io.micronaut.json.JsonMapper;
@@ -33,17 +35,21 @@ import io.micronaut.oraclecloud.serde.OciSdkMicronautSerializer;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.codec.PrematureChannelClosureException;
 import io.netty.handler.timeout.ReadTimeoutException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
@@ -66,6 +72,29 @@ final class NettyHttpClient implements HttpClient {
     final String host;
     final int port;
     final boolean buffered;
+    final boolean directJsonBody;
+    final long streamingDecodeThreshold;
+    final boolean operationBodyMode;
+    final int readAheadLowWatermark;
+    final int readAheadHighWatermark;
+    final long abandonedBodyTimeoutNanos;
+    final boolean responseDecompression;
+    final boolean streamingSigning;
+    /**
+     * Whether requests resolve their SDK operation, see
+     * {@link NettyClientProperties#CLASS_AND_METHOD_KEY_NAME}.
+     */
+    final boolean resolvesOperation;
+    @Nullable
+    final RequestCoalescer requestCoalescer;
+    @Nullable
+    final HedgingPolicy hedgingPolicy;
+    @Nullable
+    final ConcurrencyLimiter concurrencyLimiter;
+    @Nullable
+    final ResponseCache responseCache;
+    @Nullable
+    final ConnectionPoolMonitor.Endpoint poolEndpoint;
     final Closeable upstreamHttpClient;
     final ConnectionManager connectionManager;
     final DefaultHttpClient.RequestKey requestKey;
@@ -92,8 +121,11 @@ final class NettyHttpClient implements HttpClient {
             if (builder.properties.containsKey(StandardClientProperties.READ_TIMEOUT)) {
                 cfg.setReadTimeout((Duration) builder.properties.get(StandardClientProperties.READ_TIMEOUT));
             }
+            if (builder.http2) {
+                enableHttp2(cfg);
+            }
             mnClient = new DefaultHttpClient((URI) null, cfg);
-            blockingIoExecutor = Executors.newCachedThreadPool();
+            blockingIoExecutor = builder.virtualThreads ? VirtualThreads.newExecutor() : Executors.newCachedThreadPool();
             jsonMapper = OciSdkMicronautSerializer.getDefaultObjectMapper();
         } else {
             hasContext = true;
@@ -105,13 +137,20 @@ final class NettyHttpClient implements HttpClient {
             if (builder.managedProvider.mnHttpClient != null) {
                 mnClient = (DefaultHttpClient) builder.managedProvider.mnHttpClient;
             } else {
+                DefaultHttpClientConfiguration versionCfg = new DefaultHttpClientConfiguration();
+                if (builder.http2) {
+                    enableHttp2(versionCfg);
+                }
                 mnClient = (DefaultHttpClient) builder.managedProvider.mnHttpClientRegistry.getClient(
-                    HttpVersionSelection.forClientConfiguration(new DefaultHttpClientConfiguration()),
+                    HttpVersionSelection.forClientConfiguration(versionCfg),
                     builder.serviceId,
                     null
                 );
             }
-            if (builder.managedProvider.ioExecutor == null) {
+            if (builder.virtualThreads) {
+                ownsThreadPool = true;
+                blockingIoExecutor = VirtualThreads.newExecutor();
+            } else if (builder.managedProvider.ioExecutor == null) {
                 ownsThreadPool = true;
                 blockingIoExecutor = Executors.newCachedThreadPool();
             } else {
@@ -138,6 +177,81 @@ final class NettyHttpClient implements HttpClient {
         this.port = builder.baseUri.getPort();
         this.host = builder.baseUri.getHost();
         this.buffered = builder.buffered;
+        this.directJsonBody = builder.directJsonBody;
+        this.streamingDecodeThreshold = builder.streamingDecodeThreshold;
+        this.operationBodyMode = builder.operationBodyMode;
+        this.readAheadHighWatermark = builder.readAheadHighWatermark;
+        this.readAheadLowWatermark = builder.readAheadLowWatermark();
+        this.abandonedBodyTimeoutNanos = builder.abandonedBodyTimeout.toNanos();
+        this.responseDecompression = builder.responseDecompression;
+        this.streamingSigning = builder.streamingSigning;
+        this.requestCoalescer = builder.coalescingMaxBodySize < 0 ? null : new RequestCoalescer(builder.coalescingMaxBodySize);
+        this.hedgingPolicy = builder.hedgingPolicy;
+        this.concurrencyLimiter = builder.concurrencyLimiter;
+        this.responseCache = builder.responseCache;
+        this.poolEndpoint = builder.poolMonitor == null ? null : builder.poolMonitor.endpoint(host);
+        // only filters and the optional per-operation features consume the call site, so don't pay for resolving it without them
+        this.resolvesOperation = !nettyClientFilter.isEmpty() || streamingSigning || operationBodyMode || responseDecompression ||
+            hedgingPolicy != null || concurrencyLimiter != null || responseCache != null;
+    }
+
+    /**
+     * Negotiate HTTP/2 through ALPN on TLS connections, falling back to HTTP/1.1 if the server
+     * does not support it. Plaintext connections always use HTTP/1.1.
+     */
+    private static void enableHttp2(DefaultHttpClientConfiguration cfg) {
+        cfg.setAlpnModes(List.of(HttpVersionSelection.ALPN_HTTP_2, HttpVersionSelection.ALPN_HTTP_1));
+        cfg.setPlaintextMode(HttpVersionSelection.PlaintextMode.HTTP_1);
+    }
+
+    /**
+     * Open and handshake the given number of pooled connections to the base URI, then return them
+     * to the pool. All connections are held at the same time, so that the pool cannot satisfy the
+     * requests by reusing a single connection.
+     *
+     * @param connections The number of connections to open
+     * @return A future that completes when all connections have been established
+     */
+    CompletableFuture<Void> warmUp(int connections) {
+        List<ConnectionManager.PoolHandle> acquired = new ArrayList<>(connections);
+        return Flux.range(0, connections)
+            .flatMap(i -> connect(null), connections)
+            .doOnNext(ph -> {
+                synchronized (acquired) {
+                    acquired.add(ph);
+                }
+            })
+            .doFinally(signal -> {
+                synchronized (acquired) {
+                    for (ConnectionManager.PoolHandle ph : acquired) {
+                        ph.release();
+                    }
+                    acquired.clear();
+                }
+            })
+            .then()
+            .toFuture();
+    }
+
+    /**
+     * Acquire a pooled connection to the base URI. Only goes through the
+     * {@link ConnectionPoolMonitor} if one is configured.
+     *
+     * @param blockHint The block hint of the calling thread, or {@code null}
+     * @return The connection
+     */
+    Mono<ConnectionManager.PoolHandle> connect(@Nullable BlockHint blockHint) {
+        Mono<ConnectionManager.PoolHandle> connect = connectionManager.connect(requestKey, blockHint);
+        ConnectionPoolMonitor.Endpoint endpoint = poolEndpoint;
+        if (endpoint == null) {
+            return connect;
+        }
+        return Mono.defer(() -> {
+            long start = endpoint.acquireStarted();
+            return connect
+                .doOnNext(ph -> endpoint.acquired(ph.channel(), start))
+                .doFinally(signal -> endpoint.acquireEnded());
+        });
     }
 
     ByteBufAllocator alloc() {
@@ -23,6 +23,7 @@ import com.oracle.bmc.http.client.StandardClientProperties;
 import io.micronaut.core.annotation.Nullable;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -40,12 +41,35 @@ final class NettyHttpClientBuilder implements HttpClientBuilder {
     final Map<ClientProperty<?>, Object> properties = new HashMap<>();
     URI baseUri;
     boolean buffered = true;
+    boolean directJsonBody = false;
+    long streamingDecodeThreshold = -1;
+    boolean operationBodyMode = false;
+    int readAheadHighWatermark = StreamReadingHandler.DEFAULT_HIGH_WATERMARK;
+    int readAheadLowWatermark = -1;
+    Duration abandonedBodyTimeout = ResponseHandler.DEFAULT_ABANDONED_BODY_TIMEOUT;
+    boolean http2 = false;
+    boolean responseDecompression = false;
+    long coalescingMaxBodySize = -1;
+    boolean virtualThreads = false;
+    boolean streamingSigning = false;
+    @Nullable
+    HedgingPolicy hedgingPolicy;
+    @Nullable
+    ConcurrencyLimiter concurrencyLimiter;
+    @Nullable
+    ResponseCache responseCache;
+    @Nullable
+    ConnectionPoolMonitor poolMonitor;
     String serviceId = ManagedNettyHttpProvider.SERVICE_ID;
 
     NettyHttpClientBuilder(@Nullable ManagedNettyHttpProvider managedProvider) {
         this.managedProvider = managedProvider;
         if (managedProvider != null) {
             property(OCI_NETTY_CLIENT_FILTERS_KEY, managedProvider.nettyClientFilters);
+            hedgingPolicy = managedProvider.hedgingPolicy;
+            concurrencyLimiter = managedProvider.concurrencyLimiter;
+            responseCache = managedProvider.responseCache;
+            poolMonitor = managedProvider.poolMonitor;
         }
     }
 
@@ -70,6 +94,48 @@ final class NettyHttpClientBuilder implements HttpClientBuilder {
             properties.put(key, value);
         } else if (key == StandardClientProperties.BUFFER_REQUEST) {
             buffered = (Boolean) value;
+        } else if (key == NettyClientProperties.DIRECT_JSON_BODY) {
+            directJsonBody = (Boolean) value;
+        } else if (key == NettyClientProperties.STREAMING_DECODE_THRESHOLD) {
+            streamingDecodeThreshold = (Long) value;
+        } else if (key == NettyClientProperties.OPERATION_BODY_MODE) {
+            operationBodyMode = (Boolean) value;
+        } else if (key == NettyClientProperties.READ_AHEAD_HIGH_WATERMARK) {
+            if ((Integer) value <= 0) {
+                throw new IllegalArgumentException("The read-ahead high watermark must be positive");
+            }
+            readAheadHighWatermark = (Integer) value;
+        } else if (key == NettyClientProperties.READ_AHEAD_LOW_WATERMARK) {
+            if ((Integer) value < 0) {
+                throw new IllegalArgumentException("The read-ahead low watermark must not be negative");
+            }
+            readAheadLowWatermark = (Integer) value;
+        } else if (key == NettyClientProperties.ABANDONED_BODY_TIMEOUT) {
+            abandonedBodyTimeout = Objects.requireNonNull((Duration) value, "abandonedBodyTimeout");
+        } else if (key == NettyClientProperties.HTTP2) {
+            if (managedProvider != null && managedProvider.mnHttpClient != null) {
+                throw new IllegalArgumentException("Cannot enable HTTP/2 when the client is passed explicitly");
+            }
+            http2 = (Boolean) value;
+        } else if (key == NettyClientProperties.RESPONSE_DECOMPRESSION) {
+            responseDecompression = (Boolean) value;
+        } else if (key == NettyClientProperties.STREAMING_SIGNING) {
+            streamingSigning = (Boolean) value;
+        } else if (key == NettyClientProperties.VIRTUAL_THREADS) {
+            if ((Boolean) value && !VirtualThreads.isSupported()) {
+                throw new IllegalArgumentException("Virtual threads are not supported by this JVM");
+            }
+            virtualThreads = (Boolean) value;
+        } else if (key == NettyClientProperties.COALESCING_MAX_BODY_SIZE) {
+            coalescingMaxBodySize = (Long) value;
+        } else if (key == NettyClientProperties.HEDGING_POLICY) {
+            hedgingPolicy = (HedgingPolicy) value;
+        } else if (key == NettyClientProperties.CONCURRENCY_LIMITER) {
+            concurrencyLimiter = (ConcurrencyLimiter) value;
+        } else if (key == NettyClientProperties.RESPONSE_CACHE) {
+            responseCache = (ResponseCache) value;
+        } else if (key == NettyClientProperties.POOL_MONITOR) {
+            poolMonitor = (ConnectionPoolMonitor) value;
         } else if (key == NettyClientProperties.SERVICE_ID) {
             if (managedProvider == null) {
                 throw new IllegalArgumentException("Can only configure the service ID for the managed netty http client");
@@ -100,9 +166,16 @@ final class NettyHttpClientBuilder implements HttpClientBuilder {
 
     @Override
     public HttpClient build() {
+        if (readAheadLowWatermark() > readAheadHighWatermark) {
+            throw new IllegalArgumentException("The read-ahead low watermark must not be larger than the high watermark");
+        }
         return new NettyHttpClient(this);
     }
 
+    int readAheadLowWatermark() {
+        return readAheadLowWatermark < 0 ? readAheadHighWatermark / 4 : readAheadLowWatermark;
+    }
+
     static final class PrioritizedValue<T> {
         final int priority;
         final T value;
@@ -19,53 +19,65 @@ import com.oracle.bmc.http.client.HttpRequest;
 import com.oracle.bmc.http.client.HttpResponse;
 import com.oracle.bmc.http.client.Method;
 import com.oracle.bmc.http.client.RequestInterceptor;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.client.netty.BlockHint;
 import io.micronaut.http.client.netty.ConnectionManager;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
-import io.netty.handler.codec.PrematureChannelClosureException;
+import io.netty.channel.ChannelFuture;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.EmptyHttpHeaders;
-import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
-import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
 import io.netty.handler.codec.http.HttpVersion;
-import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslHandler;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import static io.micronaut.oraclecloud.httpclient.netty.NettyClientProperties.CLASS_AND_METHOD_KEY_NAME;
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientProperties.HOST_KEY_NAME;
 
 final class NettyHttpRequest implements HttpRequest {
 
     private static final long UNKNOWN_CONTENT_LENGTH = -1;
 
-    private static final String HANDLER_PREFACE = "preface";
-    private static final String HANDLER_UNDECIDED_BODY = "undecided-body";
-    private static final String HANDLER_LIMITED_BUFFERING = "limited-buffering";
+    private static final String HEADER_CONTENT_SHA256 = "x-content-sha256";
+    private static final String HEADER_HTTP2_SCHEME = "x-http2-scheme";
+    private static final String ACCEPT_ENCODING_GZIP_DEFLATE = "gzip, deflate";
 
     private final NettyHttpClient client;
 
@@ -73,6 +85,16 @@ final class NettyHttpRequest implements HttpRequest {
 
     private final Method method;
     private final HttpHeaders headers;
+    /**
+     * Whether successful responses are streamed as soon as the head arrives, see
+     * {@link NettyClientProperties#OPERATION_BODY_MODE}.
+     */
+    private boolean streamResponse;
+    /**
+     * Whether the client may negotiate a compressed response, see
+     * {@link NettyClientProperties#RESPONSE_DECOMPRESSION}.
+     */
+    private boolean negotiateEncoding;
 
     private final StringBuilder uri;
     private final StringBuilder query;
@@ -85,14 +107,31 @@ final class NettyHttpRequest implements HttpRequest {
     private ByteBuf immediateBody;
     private InputStream blockingBody;
     private long blockingContentLength;
+    private boolean precomputedBodyHeaders;
+    private SpooledBody spooledBody;
+    private Closeable openedFile;
+    /**
+     * Closes {@link #spooledBody} and {@link #openedFile} once the request is done with them.
+     */
+    private BodyFileCloser bodyFileCloser;
+    /**
+     * Whether the {@link OciNettyClientFilter}s have been run for this request. Not copied, a copy
+     * is a new call.
+     */
+    private boolean filtersStarted;
+    /**
+     * Whether the client added the {@code Accept-Encoding} header, and so decodes the response.
+     */
+    private boolean decompressResponse;
 
     public NettyHttpRequest(NettyHttpClient nettyHttpClient, Method method) {
         client = nettyHttpClient;
         this.method = method;
         this.uri = new StringBuilder(client.baseUri.toString());
         attributes = new HashMap<>();
-        StackWalker.StackFrame frame = StackWalker.getInstance().walk(s -> s.filter(stackFrame -> stackFrame.getClassName().contains("com.oracle.bmc") && !stackFrame.getClassName().contains("com.oracle.bmc.http.internal")).toList()).stream().findFirst().orElse(null);
-        attributes.put(CLASS_AND_METHOD_KEY_NAME, frame == null ? "N/A" : Arrays.stream(frame.getClassName().split("\\.")).reduce((first, second) -> second).orElse("N/A") + "." + frame.getMethodName());
+        if (!client.nettyClientFilter.isEmpty()) {
+            attributes.put(HOST_KEY_NAME, client.host);
+        }
         headers = new DefaultHttpHeaders();
         query = new StringBuilder();
     }
@@ -101,6 +140,9 @@ final class NettyHttpRequest implements HttpRequest {
         this.client = from.client;
         this.attributes = new HashMap<>(from.attributes);
         this.method = from.method;
+        this.streamResponse = from.streamResponse;
+        this.negotiateEncoding = from.negotiateEncoding;
+        this.decompressResponse = from.decompressResponse;
         this.headers = from.headers.copy();
         this.uri = new StringBuilder(from.uri);
         this.query = new StringBuilder(from.query);
@@ -112,6 +154,7 @@ final class NettyHttpRequest implements HttpRequest {
         this.immediateBody = from.immediateBody == null ? null : from.immediateBody.retainedDuplicate();
         this.blockingBody = from.blockingBody;
         this.blockingContentLength = from.blockingContentLength;
+        this.precomputedBodyHeaders = from.precomputedBodyHeaders;
     }
 
     @Override
@@ -123,8 +166,22 @@ final class NettyHttpRequest implements HttpRequest {
     public HttpRequest body(Object body) {
         immediateBody = null;
         blockingBody = null;
+        clearPrecomputedBodyHeaders();
+        closeSpooledBody();
 
-        if (body instanceof String) {
+        if (body instanceof Path || body instanceof File) {
+            File file = body instanceof Path path ? path.toFile() : (File) body;
+            FileInputStream stream;
+            try {
+                stream = new FileInputStream(file);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Unable to open file body", e);
+            }
+            body(stream, file.length());
+            openedFile = stream;
+        } else if (body instanceof Publisher<?> publisher) {
+            body(new PublisherInputStream(publisher), UNKNOWN_CONTENT_LENGTH);
+        } else if (body instanceof String) {
             immediateBody = ByteBufUtil.encodeString(client.alloc(), CharBuffer.wrap((CharSequence) body), StandardCharsets.UTF_8);
             returningBody = body;
         } else if (body instanceof InputStream) {
@@ -132,9 +189,11 @@ final class NettyHttpRequest implements HttpRequest {
         } else if (body == null) {
             immediateBody = Unpooled.EMPTY_BUFFER;
             returningBody = "";
+        } else if (client.directJsonBody) {
+            immediateBody = encodeJson(body);
+            // the string representation is only built if an interceptor asks for it
+            returningBody = null;
         } else {
-            // todo: would be better to write directly to ByteBuf here, but RequestSignerImpl does not yet support
-            //  anything but String
             String json;
             try {
                 json = client.jsonMapper.writeValueAsString(body);
@@ -150,14 +209,82 @@ final class NettyHttpRequest implements HttpRequest {
     @Override
     public HttpRequest body(InputStream body, long contentLength) {
         immediateBody = null;
+        clearPrecomputedBodyHeaders();
+        closeSpooledBody();
         blockingBody = body;
         blockingContentLength = contentLength;
         returningBody = body;
         return this;
     }
 
+    /**
+     * Serialize the given body straight into a pooled buffer, and precompute the
+     * {@code x-content-sha256} and {@code content-length} headers from those bytes so that the
+     * request signer does not need a {@link String} copy of the body.
+     */
+    private ByteBuf encodeJson(Object body) {
+        ByteBuf buf = client.alloc().buffer();
+        try {
+            try (ByteBufOutputStream out = new ByteBufOutputStream(buf)) {
+                client.jsonMapper.writeValue(out, body);
+            }
+            headers.set(HEADER_CONTENT_SHA256, sha256(buf));
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, buf.readableBytes());
+            precomputedBodyHeaders = true;
+            return buf;
+        } catch (IOException e) {
+            buf.release();
+            throw new IllegalArgumentException("Unable to process JSON body", e);
+        } catch (RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    private void clearPrecomputedBodyHeaders() {
+        if (precomputedBodyHeaders) {
+            headers.remove(HEADER_CONTENT_SHA256);
+            headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+            precomputedBodyHeaders = false;
+        }
+    }
+
+    private void closeSpooledBody() {
+        if (spooledBody != null) {
+            spooledBody.close();
+            spooledBody = null;
+        }
+        if (openedFile != null) {
+            closeQuietly(openedFile);
+            openedFile = null;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static String sha256(ByteBuf buf) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (ByteBuffer nioBuffer : buf.nioBuffers()) {
+            digest.update(nioBuffer);
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
     @Override
     public Object body() {
+        if (returningBody == null && immediateBody != null) {
+            returningBody = immediateBody.toString(StandardCharsets.UTF_8);
+        }
         return returningBody;
     }
 
@@ -255,42 +382,227 @@ final class NettyHttpRequest implements HttpRequest {
         if (immediateBody != null) {
             immediateBody.release();
         }
+        if (spooledBody != null) {
+            spooledBody.close();
+        }
+        if (openedFile != null) {
+            closeQuietly(openedFile);
+        }
+    }
+
+    /**
+     * Resolve the SDK operation of this request. A name the caller set with the
+     * {@link NettyClientProperties#CLASS_AND_METHOD_KEY_NAME} attribute is used as is, only
+     * without one the call stack is walked. This runs in {@link #execute()}, after the caller had
+     * the chance to set the attribute, and while the SDK client method is still on the stack.
+     */
+    private void resolveOperation() {
+        SdkCallSite.Operation operation = attributes.get(CLASS_AND_METHOD_KEY_NAME) instanceof String name ?
+            SdkCallSite.operation(name) :
+            SdkCallSite.resolveOperation();
+        attributes.put(CLASS_AND_METHOD_KEY_NAME, operation.name());
+        streamResponse = client.operationBodyMode && operation.streamsResponse();
+        // stream responses are returned as stored, including their Content-Encoding
+        negotiateEncoding = client.responseDecompression && !operation.streamsResponse();
     }
 
     @Override
     public CompletionStage<HttpResponse> execute() {
+        if (client.resolvesOperation) {
+            resolveOperation();
+        }
+        if (client.nettyClientFilter.isEmpty() || filtersStarted) {
+            return execute0();
+        }
+        // the filters see the call on the thread that executes it, e.g. with its tracing context,
+        // even when the body is buffered on another thread before the request is sent
+        filtersStarted = true;
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        runFilters(result);
+        CompletionStage<HttpResponse> sent;
+        try {
+            sent = execute0();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            throw e;
+        }
+        sent.whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        return result;
+    }
+
+    private CompletionStage<HttpResponse> execute0() {
         // jersey client buffers even when BUFFER_REQUEST is off, if the content length is not explicitly set.
-        if (blockingBody != null && (client.buffered || blockingContentLength == UNKNOWN_CONTENT_LENGTH) && !expectContinue) {
+        if (blockingBody != null && spooledBody == null && (client.buffered || blockingContentLength == UNKNOWN_CONTENT_LENGTH) && !expectContinue) {
+            if (!client.streamingSigning && blockingBody instanceof PublisherInputStream reactive) {
+                // collect the body without blocking a thread, then run execute() again
+                return reactive.collect(client.alloc()).thenCompose(buf -> {
+                    blockingBody = null;
+                    immediateBody = buf;
+                    return execute0();
+                });
+            }
+            if (!client.streamingSigning) {
+                // asynchronously buffer the body, then run execute() again
+                return CompletableFuture.runAsync(this::bufferBody, client.blockingIoExecutor)
+                        .thenCompose(v -> execute0());
+            }
+            if (blockingContentLength == UNKNOWN_CONTENT_LENGTH || !SpooledBody.SIGNING_EXEMPT_OPERATIONS.contains(attributes.get(CLASS_AND_METHOD_KEY_NAME))) {
+                // asynchronously copy the body to a file while hashing it, then run execute() again
+                return CompletableFuture.runAsync(this::spoolBody, client.blockingIoExecutor)
+                        .thenCompose(v -> execute0());
+            }
+            // the signer does not hash the body of this operation, so it can be streamed as is
+        }
 
-            // asynchronously buffer the body, then run execute() again
-            return CompletableFuture.runAsync(this::bufferBody, client.blockingIoExecutor)
-                    .thenCompose(v -> execute());
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        if (spooledBody != null || openedFile != null) {
+            // a file body may be sent without reading the stream to the end, so close it here
+            BodyFileCloser closer = new BodyFileCloser(spooledBody, openedFile);
+            bodyFileCloser = closer;
+            result.whenComplete((r, e) -> closer.release());
         }
 
+        RequestCoalescer coalescer = client.requestCoalescer;
+        if (coalescer != null && method == Method.GET && blockingBody == null && immediateBody == null) {
+            // the key is computed before signing, so the signature headers are not part of it
+            String key = coalescer.key(buildUri(), headers);
+            CompletableFuture<RequestCoalescer.Shared> flight = new CompletableFuture<>();
+            CompletableFuture<RequestCoalescer.Shared> existing = coalescer.join(key, flight);
+            if (existing != null) {
+                existing.whenComplete((shared, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else if (shared != null) {
+                        result.complete(shared.toResponse(client, offloadExecutor));
+                    } else {
+                        // the response could not be shared
+                        intercept();
+                        submit(result);
+                    }
+                });
+            } else {
+                intercept();
+                CompletableFuture<HttpResponse> upstream = new CompletableFuture<>();
+                upstream.whenComplete((response, error) -> {
+                    if (error != null) {
+                        coalescer.fail(key, flight, error);
+                        result.completeExceptionally(error);
+                    } else {
+                        coalescer.share(key, flight, (NettyHttpResponse) response, client, offloadExecutor).whenComplete((r, e) -> {
+                            if (e == null) {
+                                result.complete(r);
+                            } else {
+                                result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                            }
+                        });
+                    }
+                });
+                submit(upstream);
+            }
+            return result;
+        }
+
+        intercept();
+        submit(result);
+        return result;
+    }
+
+    private void intercept() {
         for (RequestInterceptor interceptor : client.requestInterceptors) {
             interceptor.intercept(this);
         }
+    }
 
-        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
-
+    private void runFilters(CompletableFuture<HttpResponse> result) {
         CompletableFuture<HttpResponse> last = result;
 
         for (OciNettyClientFilter<?> filter: client.nettyClientFilter) {
             last = runFilter(filter, last);
         }
+    }
 
-        Mono<ConnectionManager.PoolHandle> connect = client.connectionManager.connect(client.requestKey, blockHint);
+    private void submit(CompletableFuture<HttpResponse> result) {
+        Object operation = attributes.get(CLASS_AND_METHOD_KEY_NAME);
+        ConcurrencyLimiter limiter = client.concurrencyLimiter;
+        if (limiter == null) {
+            dispatch(result, operation);
+        } else {
+            ConcurrencyLimiter.Limit limit = limiter.limit(client.host, operation instanceof String op ? op : SdkCallSite.UNKNOWN);
+            CompletableFuture<Void> permit;
+            try {
+                permit = limit.acquire();
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            permit.thenRun(() -> {
+                limit.releaseAfter(result);
+                dispatch(result, operation);
+            });
+        }
+    }
+
+    private void dispatch(CompletableFuture<HttpResponse> result, Object operation) {
+        ResponseCache cache = client.responseCache;
+        if (cache != null && method == Method.GET && operation instanceof String op && cache.isCached(op) && ResponseCache.isCacheable(headers)) {
+            String key = buildUri();
+            ResponseCache.Entry entry = cache.get(key);
+            if (entry != null) {
+                headers.set(HttpHeaderNames.IF_NONE_MATCH, entry.etag);
+            }
+            CompletableFuture<HttpResponse> upstream = new CompletableFuture<>();
+            upstream.thenCompose(r -> cache.onResponse(client, op, key, entry, (NettyHttpResponse) r, offloadExecutor))
+                .whenComplete((r, e) -> {
+                    if (e == null) {
+                        result.complete(r);
+                    } else {
+                        result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    }
+                });
+            exchange(upstream, operation);
+        } else {
+            exchange(result, operation);
+        }
+    }
+
+    private void exchange(CompletableFuture<HttpResponse> result, Object operation) {
+        HedgingPolicy hedgingPolicy = client.hedgingPolicy;
+        if (hedgingPolicy != null && method == Method.GET && blockingBody == null && operation instanceof String op && hedgingPolicy.isHedged(op)) {
+            ConcurrencyLimiter limiter = client.concurrencyLimiter;
+            HedgedExchange.send(this, hedgingPolicy.stats(op), limiter == null ? null : limiter.limit(client.host, op), result);
+        } else {
+            send(result, ph -> true);
+        }
+    }
+
+    /**
+     * Acquire a connection and send this request on it.
+     *
+     * @param future    The future to complete with the response
+     * @param onConnect Called when the connection has been acquired. If this returns
+     *                  {@code false}, the request is not sent and the callback is responsible
+     *                  for the connection and the future
+     */
+    void send(CompletableFuture<HttpResponse> future, Predicate<ConnectionManager.PoolHandle> onConnect) {
+        Mono<ConnectionManager.PoolHandle> connect = client.connect(blockHint);
         connect.subscribe(ph -> {
+            if (!onConnect.test(ph)) {
+                return;
+            }
             try {
                 io.netty.handler.codec.http.HttpRequest nettyRequest = buildNettyRequest(ph);
-                initializeChannel(ph, nettyRequest, result);
+                initializeChannel(ph, nettyRequest, future);
             } catch (Exception e) {
-                result.completeExceptionally(e);
+                future.completeExceptionally(e);
                 ph.release();
             }
-        }, result::completeExceptionally);
-
-        return result;
+        }, future::completeExceptionally);
     }
 
     private void bufferBody() {
@@ -313,6 +625,22 @@ final class NettyHttpRequest implements HttpRequest {
         immediateBody = buf;
     }
 
+    private void spoolBody() {
+        SpooledBody spooled;
+        try {
+            spooled = SpooledBody.spool(blockingBody);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        spooledBody = spooled;
+        blockingBody = spooled.stream();
+        blockingContentLength = spooled.length();
+        // the signer uses these instead of reading the body
+        headers.set(HEADER_CONTENT_SHA256, spooled.sha256());
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, spooled.length());
+        precomputedBodyHeaders = true;
+    }
+
     private boolean delayImmediateBody() {
         // immediateBody.isReadable() can change over time, but only from true to false, which is fine
         return expectContinue && immediateBody != null && immediateBody.isReadable();
@@ -334,7 +662,15 @@ final class NettyHttpRequest implements HttpRequest {
         if (!headers.contains(HttpHeaderNames.HOST)) {
             headers.add(HttpHeaderNames.HOST, uri.getHost());
         }
-        if (!poolHandle.http2()) {
+        if (negotiateEncoding && method != HttpMethod.HEAD && !headers.contains(HttpHeaderNames.ACCEPT_ENCODING)) {
+            // an Accept-Encoding set by the caller means they want the body as sent
+            headers.set(HttpHeaderNames.ACCEPT_ENCODING, ACCEPT_ENCODING_GZIP_DEFLATE);
+            decompressResponse = true;
+        }
+        if (poolHandle.http2()) {
+            // HttpConversionUtil.ExtensionHeaderNames.SCHEME, becomes the :scheme pseudo-header
+            headers.set(HEADER_HTTP2_SCHEME, client.baseUri.getScheme());
+        } else {
             if (poolHandle.canReturn()) {
                 headers.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
             } else {
@@ -383,69 +719,95 @@ final class NettyHttpRequest implements HttpRequest {
     }
 
     private void initializeChannel(ConnectionManager.PoolHandle ph, io.netty.handler.codec.http.HttpRequest nettyRequest, CompletableFuture<HttpResponse> future) {
-        LimitedBufferingBodyHandler limitedBufferingBodyHandler = new LimitedBufferingBodyHandler(4096);
-        UndecidedBodyHandler undecidedBodyHandler = new UndecidedBodyHandler(() -> {
-            ph.channel().pipeline().remove(HANDLER_LIMITED_BUFFERING);
-            ph.release();
-        }, ph.channel().alloc());
-        ph.channel().pipeline()
-                .addLast(HANDLER_PREFACE, new ChannelInboundHandlerAdapter() {
-                    boolean skipLast = false;
-
-                    @Override
-                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
-                        if (msg instanceof io.netty.handler.codec.http.HttpResponse response) {
-                            if (response.status().equals(HttpResponseStatus.CONTINUE)) {
-                                if (expectContinue) {
-                                    sendBodyIfNecessary(ctx.channel());
-                                }
-                                if (!(msg instanceof LastHttpContent)) {
-                                    // skip the LastHttpContent associated with the continue response
-                                    skipLast = true;
-                                }
-                            } else {
-                                future.complete(new NettyHttpResponse(client.jsonMapper, response, limitedBufferingBodyHandler, undecidedBodyHandler, offloadExecutor));
-                                ctx.pipeline().remove(this);
-                            }
+        ConnectionPoolMonitor.Endpoint poolEndpoint = client.poolEndpoint;
+        if (poolEndpoint != null) {
+            poolEndpoint.exchangeStarted();
+        }
+        ResponseHandler.forChannel(ph.channel()).start(decompressResponse, new ResponseHandler.Exchange() {
+            /**
+             * Only created when a filter or the concurrency limiter may observe it, see
+             * {@link MeteredHttpResponse#transfer()}.
+             */
+            private CompletableFuture<MeteredHttpResponse.Transfer> transfer;
+
+            @Override
+            public void onContinue() {
+                if (expectContinue) {
+                    sendBodyIfNecessary(ph);
+                }
+            }
 
-                            if (msg instanceof HttpContent) {
-                                ctx.fireChannelRead(msg);
-                            }
-                        } else {
-                            if (!skipLast || !(msg instanceof LastHttpContent)) {
-                                ctx.fireChannelRead(msg);
-                            }
-                        }
-                    }
+            @Override
+            public void onResponse(io.netty.handler.codec.http.HttpResponse response, ResponseHandler.Body body) {
+                InputStream stream = null;
+                if (streamResponse && response.status().codeClass() == HttpStatusClass.SUCCESS) {
+                    // error bodies are still read by the SDK, so only successful responses skip the buffering
+                    stream = body.streamImmediately(client.readAheadLowWatermark, client.readAheadHighWatermark);
+                }
+                if (!client.nettyClientFilter.isEmpty() || client.concurrencyLimiter != null) {
+                    transfer = new CompletableFuture<>();
+                }
+                future.complete(new NettyHttpResponse(client, response, body, stream, transfer, offloadExecutor));
+            }
 
-                    @Override
-                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
-                        ph.taint();
-                        future.completeExceptionally(cause);
-                        ctx.pipeline().remove(this);
-                    }
+            @Override
+            public void onFailure(Throwable cause) {
+                future.completeExceptionally(cause);
+            }
 
-                    @Override
-                    public void handlerRemoved(ChannelHandlerContext ctx) {
-                        if (!future.isDone()) {
-                            ph.taint();
-                            future.completeExceptionally(new PrematureChannelClosureException());
-                        }
-                    }
-                })
-                .addLast(HANDLER_LIMITED_BUFFERING, limitedBufferingBodyHandler)
-                .addLast(HANDLER_UNDECIDED_BODY, undecidedBodyHandler);
+            @Override
+            public void onEnd(long sentBytes, long receivedBytes, boolean complete) {
+                if (transfer != null) {
+                    transfer.complete(new MeteredHttpResponse.Transfer(sentBytes, receivedBytes, complete));
+                }
+            }
+
+            @Override
+            public long abandonedBodyTimeoutNanos() {
+                return client.abandonedBodyTimeoutNanos;
+            }
+
+            @Override
+            public void release(boolean reusable) {
+                if (poolEndpoint != null) {
+                    poolEndpoint.exchangeEnded();
+                }
+                if (!reusable) {
+                    ph.taint();
+                }
+                ph.release();
+            }
+        });
         ph.channel().writeAndFlush(nettyRequest, ph.channel().voidPromise());
 
         if (!expectContinue) {
-            sendBodyIfNecessary(ph.channel());
+            sendBodyIfNecessary(ph);
         }
 
         ph.channel().read();
     }
 
-    private void sendBodyIfNecessary(Channel ch) {
-        if (blockingBody != null) {
+    private void sendBodyIfNecessary(ConnectionManager.PoolHandle ph) {
+        Channel ch = ph.channel();
+        if (blockingBody instanceof PublisherInputStream reactive) {
+            ch.pipeline().addLast(new PublisherWritingHandler(reactive.claim(), new DefaultLastHttpContent()));
+        } else if (blockingBody != null) {
+            FileBody file = FileBody.of(blockingBody, blockingContentLength);
+            if (file != null) {
+                BodyFileCloser closer = bodyFileCloser;
+                if (closer != null && !closer.retain()) {
+                    // the response already completed and the file is closed. The head was sent
+                    // without its body, so the connection cannot be used for anything else
+                    ch.close();
+                    return;
+                }
+                // sendfile only works if nothing between the codec and the socket needs to see the bytes
+                ChannelFuture written = file.write(ch, !ph.http2() && ch.pipeline().get(SslHandler.class) == null);
+                if (closer != null) {
+                    written.addListener(f -> closer.release());
+                }
+                return;
+            }
             ch.pipeline()
                     .addLast(new StreamWritingHandler(
                             blockingBody, client.blockingIoExecutor, new DefaultLastHttpContent()));
@@ -458,4 +820,51 @@ final class NettyHttpRequest implements HttpRequest {
         T beforeRequestResult = filter.beforeRequest(this);
         return responseFuture.handle((response, error) -> filter.afterResponse(this, response, error, beforeRequestResult));
     }
+
+    /**
+     * Closes the files of a request body once neither the exchange nor a write of the file uses
+     * them anymore. The response can complete while a {@link FileBody} is still being written,
+     * e.g. when the server answers early, and the file must stay open until that write is done.
+     */
+    private static final class BodyFileCloser {
+        /**
+         * The exchange, plus the file write if one is in progress. {@code 0} once closed.
+         */
+        private final AtomicInteger users = new AtomicInteger(1);
+        @Nullable
+        private final SpooledBody spooled;
+        @Nullable
+        private final Closeable opened;
+
+        BodyFileCloser(@Nullable SpooledBody spooled, @Nullable Closeable opened) {
+            this.spooled = spooled;
+            this.opened = opened;
+        }
+
+        /**
+         * @return {@code false} if the files are already closed
+         */
+        boolean retain() {
+            while (true) {
+                int n = users.get();
+                if (n == 0) {
+                    return false;
+                }
+                if (users.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (users.decrementAndGet() == 0) {
+                if (spooled != null) {
+                    spooled.close();
+                }
+                if (opened != null) {
+                    closeQuietly(opened);
+                }
+            }
+        }
+    }
 }
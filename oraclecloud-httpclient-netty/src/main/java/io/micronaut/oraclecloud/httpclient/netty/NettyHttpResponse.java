@@ -15,14 +15,23 @@
  */
 package io.micronaut.oraclecloud.httpclient.netty;
 
-import com.oracle.bmc.http.client.HttpResponse;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.type.Argument;
 import io.micronaut.json.JsonMapper;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
@@ -32,19 +41,57 @@ import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
 
-final class NettyHttpResponse implements HttpResponse {
+final class NettyHttpResponse implements MeteredHttpResponse {
+    private final NettyHttpClient client;
     private final JsonMapper jsonMapper;
     private final io.netty.handler.codec.http.HttpResponse nettyResponse;
-    private final LimitedBufferingBodyHandler limitedBufferingBodyHandler;
-    private final UndecidedBodyHandler undecidedBodyHandler;
+    private final ResponseHandler.Body body;
     private final Executor offloadExecutor;
+    /**
+     * The body this response is served from, e.g. by the {@link ResponseCache}, or {@code null}
+     * if the body comes from the connection.
+     */
+    @Nullable
+    private final BufferedBody buffered;
+    /**
+     * The body stream, if the body was streamed as soon as the response head arrived (see
+     * {@link NettyClientProperties#OPERATION_BODY_MODE}) and the stream has not been handed out
+     * yet.
+     */
+    @Nullable
+    private InputStream unclaimedStream;
+    @Nullable
+    private final CompletableFuture<Transfer> transfer;
 
-    NettyHttpResponse(JsonMapper jsonMapper, io.netty.handler.codec.http.HttpResponse nettyResponse, LimitedBufferingBodyHandler limitedBufferingBodyHandler, UndecidedBodyHandler undecidedBodyHandler, Executor offloadExecutor) {
-        this.jsonMapper = jsonMapper;
+    NettyHttpResponse(NettyHttpClient client, io.netty.handler.codec.http.HttpResponse nettyResponse, ResponseHandler.Body body, @Nullable InputStream stream, @Nullable CompletableFuture<Transfer> transfer, Executor offloadExecutor) {
+        this.client = client;
+        this.jsonMapper = client.jsonMapper;
         this.nettyResponse = nettyResponse;
-        this.limitedBufferingBodyHandler = limitedBufferingBodyHandler;
-        this.undecidedBodyHandler = undecidedBodyHandler;
+        this.body = body;
         this.offloadExecutor = offloadExecutor;
+        this.buffered = null;
+        this.unclaimedStream = stream;
+        this.transfer = transfer;
+    }
+
+    NettyHttpResponse(NettyHttpClient client, HttpResponseStatus status, HttpHeaders headers, BufferedBody buffered, Executor offloadExecutor) {
+        this.client = client;
+        this.jsonMapper = client.jsonMapper;
+        this.nettyResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status, headers);
+        this.body = null;
+        this.offloadExecutor = offloadExecutor;
+        this.buffered = buffered;
+        this.transfer = null;
+    }
+
+    io.netty.handler.codec.http.HttpResponse nettyResponse() {
+        return nettyResponse;
+    }
+
+    @Override
+    @Nullable
+    public CompletionStage<Transfer> transfer() {
+        return transfer;
     }
 
     @Override
@@ -59,68 +106,161 @@ final class NettyHttpResponse implements HttpResponse {
 
     @Override
     public CompletionStage<InputStream> streamBody() {
-        return undecidedBodyHandler.asInputStream();
+        if (buffered != null) {
+            return CompletableFuture.completedFuture(new ByteArrayInputStream(buffered.bytes()));
+        }
+        InputStream stream = claimStream();
+        if (stream != null) {
+            return CompletableFuture.completedFuture(stream);
+        }
+        return body.asInputStream(client.readAheadLowWatermark, client.readAheadHighWatermark);
+    }
+
+    @Nullable
+    private InputStream claimStream() {
+        InputStream stream = unclaimedStream;
+        unclaimedStream = null;
+        return stream;
     }
 
     /**
-     * Get the body as a buffer, falling back to {@link LimitedBufferingBodyHandler} if the body has already been
-     * requested previously as another type.
+     * Get the body as a buffer, falling back to {@link ResponseHandler.Body#limitedBuffer()} if the body has already
+     * been requested previously as another type. If the body was streamed up front but the stream
+     * was not used, the stream is read to the end instead.
      */
     private CompletableFuture<ByteBuf> bodyAsBuffer() {
         CompletableFuture<ByteBuf> buffer;
-        if (undecidedBodyHandler.hasDecided()) {
-            buffer = limitedBufferingBodyHandler.getFuture().thenApply(ByteBuf::retain);
+        InputStream stream;
+        if (buffered != null) {
+            buffer = CompletableFuture.completedFuture(buffered.buffer());
+        } else if ((stream = claimStream()) != null) {
+            buffer = CompletableFuture.supplyAsync(() -> {
+                try (InputStream in = stream) {
+                    return Unpooled.wrappedBuffer(in.readAllBytes());
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, client.blockingIoExecutor);
+        } else if (body.hasDecided()) {
+            buffer = body.limitedBuffer().thenApply(ByteBuf::retain);
         } else {
-            buffer = undecidedBodyHandler.asBuffer();
+            buffer = body.asBuffer();
         }
         return buffer;
     }
 
-    @Override
-    public <T> CompletionStage<T> body(Class<T> type) {
-        return thenApply(bodyAsBuffer(), buf -> {
-            try {
-                if (!buf.isReadable()) {
-                    /* This is a bit weird. jax-rs Response.readEntity says:
-                     * "for a zero-length response entities returns a corresponding Java object
-                     * that represents zero-length data."
-                     * This appears to refer to types like byte[] and String, which return an empty
-                     * array or string when the body is empty.
-                     *
-                     * For complex types, this behavior comes from jackson, and is explicitly
-                     * against the jax-rs standard:
-                     * https://github.com/FasterXML/jackson-jaxrs-providers/issues/49
-                     * Basically, by default (which oci-sdk uses), jackson returns null when the
-                     * body is empty.
-                     *
-                     * We replicate the jackson behavior here. We don't replicate the behavior for
-                     * byte[] and String, those should usually go through textBody or other body
-                     * methods anyway.
-                     */
+    /**
+     * The full body as a buffer that must be released by the caller.
+     */
+    CompletableFuture<ByteBuf> fullBody() {
+        return bodyAsBuffer();
+    }
+
+    /**
+     * Whether the body should be decoded while it is still being received, instead of waiting
+     * for the full body to be buffered. This is the case for bodies of unknown length or that
+     * exceed {@link NettyClientProperties#STREAMING_DECODE_THRESHOLD}.
+     */
+    private boolean decodeWhileReceiving() {
+        if (client.streamingDecodeThreshold < 0 || buffered != null || body.hasDecided()) {
+            return false;
+        }
+        long contentLength = HttpUtil.getContentLength(nettyResponse, -1L);
+        return contentLength == -1 || contentLength > client.streamingDecodeThreshold;
+    }
+
+    /**
+     * Decode the body from the response stream as chunks arrive. The parser pulls from
+     * {@link StreamReadingHandler}, so only the chunks that have not been parsed yet are held in
+     * memory, in addition to the decoded value. Parsing blocks while waiting for data, so it runs
+     * on the offload executor of the request like the other decoding, or on the blocking IO
+     * executor if there is none, never on the event loop. The executor thread is held for the
+     * whole transfer, which is why this is opt-in, see
+     * {@link NettyClientProperties#STREAMING_DECODE_THRESHOLD}.
+     */
+    private <T> CompletionStage<T> decodeStreaming(Argument<T> type, boolean emptyAsNull) {
+        return body.asInputStream(client.readAheadLowWatermark, client.readAheadHighWatermark).thenApplyAsync(stream -> {
+            try (PushbackInputStream in = new PushbackInputStream(stream)) {
+                int first = in.read();
+                if (first == -1 && emptyAsNull) {
+                    // see body(Class) for the empty body behavior
                     return null;
                 }
-
-                return jsonMapper.readValue(new ByteBufInputStream(buf), type);
+                if (first != -1) {
+                    in.unread(first);
+                }
+                T value = jsonMapper.readValue(in, type);
+                // consume any trailing whitespace so the connection can be reused
+                in.transferTo(OutputStream.nullOutputStream());
+                return value;
             } catch (IOException e) {
                 throw new CompletionException(e);
-            } finally {
-                buf.release();
             }
-        });
+        }, offloadExecutor == null ? client.blockingIoExecutor : offloadExecutor);
+    }
+
+    @Override
+    public <T> CompletionStage<T> body(Class<T> type) {
+        Argument<T> argument = Argument.of(type);
+        if (buffered != null) {
+            return thenApply(CompletableFuture.completedFuture(buffered.buffer()), buf -> decode(buf, argument));
+        }
+        if (decodeWhileReceiving()) {
+            return decodeStreaming(argument, true);
+        }
+        return thenApply(bodyAsBuffer(), buf -> decode(buf, argument));
+    }
+
+    private <T> T decode(ByteBuf buf, Argument<T> type) {
+        try {
+            if (!buf.isReadable()) {
+                /* This is a bit weird. jax-rs Response.readEntity says:
+                 * "for a zero-length response entities returns a corresponding Java object
+                 * that represents zero-length data."
+                 * This appears to refer to types like byte[] and String, which return an empty
+                 * array or string when the body is empty.
+                 *
+                 * For complex types, this behavior comes from jackson, and is explicitly
+                 * against the jax-rs standard:
+                 * https://github.com/FasterXML/jackson-jaxrs-providers/issues/49
+                 * Basically, by default (which oci-sdk uses), jackson returns null when the
+                 * body is empty.
+                 *
+                 * We replicate the jackson behavior here. We don't replicate the behavior for
+                 * byte[] and String, those should usually go through textBody or other body
+                 * methods anyway.
+                 */
+                return null;
+            }
+
+            return jsonMapper.readValue(new ByteBufInputStream(buf), type);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        } finally {
+            buf.release();
+        }
     }
 
     @Override
     public <T> CompletionStage<List<T>> listBody(Class<T> type) {
         Argument<List<T>> listArgument = Argument.listOf(type);
-        return thenApply(bodyAsBuffer(), buf -> {
-            try {
-                return jsonMapper.readValue(new ByteBufInputStream(buf), listArgument);
-            } catch (IOException e) {
-                throw new CompletionException(e);
-            } finally {
-                buf.release();
-            }
-        });
+        if (buffered != null) {
+            return thenApply(CompletableFuture.completedFuture(buffered.buffer()), buf -> decodeList(buf, listArgument));
+        }
+        if (decodeWhileReceiving()) {
+            return decodeStreaming(listArgument, false);
+        }
+        return thenApply(bodyAsBuffer(), buf -> decodeList(buf, listArgument));
+    }
+
+    private <T> List<T> decodeList(ByteBuf buf, Argument<List<T>> type) {
+        try {
+            return jsonMapper.readValue(new ByteBufInputStream(buf), type);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        } finally {
+            buf.release();
+        }
     }
 
     @Override
@@ -144,8 +284,14 @@ final class NettyHttpResponse implements HttpResponse {
 
     @Override
     public void close() {
-        if (!undecidedBodyHandler.hasDecided()) {
-            undecidedBodyHandler.discard();
+        InputStream stream = claimStream();
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+            }
+        } else if (buffered == null && !body.hasDecided()) {
+            body.discard();
         }
     }
 }
@@ -34,7 +34,9 @@ import io.micronaut.core.order.Ordered;
 public interface OciNettyClientFilter<R> extends Ordered {
 
     /**
-    * The OCI SDK client will execute this method before sending request.
+    * The OCI SDK client will execute this method before sending request. It is called on the
+    * thread that executes the request, before the request body is buffered and the request is
+    * signed, so headers added here are not part of the signature.
     * @param request the http requests.
     * @return the data that will be passed to {@link OciNettyClientFilter#afterResponse(HttpRequest, HttpResponse, Throwable, Object)}
     */
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A request body that is produced by a {@link Publisher}. SDK request models only accept an
+ * {@link InputStream} body, so this class is one, but the netty client recognizes it and
+ * subscribes to the publisher directly: data is requested only while the connection is
+ * writable, and no thread blocks for the upload. Other consumers can still read it as a normal
+ * stream.
+ * <p>
+ * The publisher can only be consumed once, so requests with this body cannot be retried.
+ *
+ * @since 4.3.0
+ */
+public final class PublisherInputStream extends InputStream {
+    private static final Object COMPLETE = new Object();
+
+    private final Publisher<?> publisher;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private BlockingSubscriber blocking;
+    private ByteBuf current;
+    private boolean done;
+
+    PublisherInputStream(Publisher<?> publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * @param publisher The body data
+     * @return A stream over the data
+     */
+    public static PublisherInputStream ofByteBuffers(Publisher<? extends ByteBuffer> publisher) {
+        return new PublisherInputStream(publisher);
+    }
+
+    /**
+     * @param publisher The body data. The buffers are released once they have been written
+     * @return A stream over the data
+     */
+    public static PublisherInputStream ofByteBufs(Publisher<? extends ByteBuf> publisher) {
+        return new PublisherInputStream(publisher);
+    }
+
+    /**
+     * Take over the publisher to consume it directly. Elements must be converted with
+     * {@link #toByteBuf(Object)}.
+     *
+     * @return The publisher
+     */
+    Publisher<?> claim() {
+        if (!subscribed.compareAndSet(false, true)) {
+            throw new IllegalStateException("Body publisher has already been consumed");
+        }
+        return publisher;
+    }
+
+    /**
+     * Collect the whole body into a buffer, without blocking.
+     *
+     * @param alloc The allocator for the composite buffer
+     * @return The future body
+     */
+    CompletableFuture<ByteBuf> collect(ByteBufAllocator alloc) {
+        CompletableFuture<ByteBuf> future = new CompletableFuture<>();
+        claim().subscribe(new Subscriber<Object>() {
+            final CompositeByteBuf buffer = alloc.compositeBuffer();
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Object item) {
+                buffer.addComponent(true, toByteBuf(item));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                buffer.release();
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(buffer);
+            }
+        });
+        return future;
+    }
+
+    static ByteBuf toByteBuf(Object item) {
+        if (item instanceof ByteBuf buf) {
+            return buf;
+        } else if (item instanceof ByteBuffer buffer) {
+            return Unpooled.wrappedBuffer(buffer);
+        } else if (item instanceof byte[] bytes) {
+            return Unpooled.wrappedBuffer(bytes);
+        } else {
+            throw new IllegalArgumentException("Unsupported body element: " + item);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!awaitCurrent()) {
+            return -1;
+        }
+        int b = current.readUnsignedByte();
+        releaseIfEmpty();
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!awaitCurrent()) {
+            return -1;
+        }
+        int n = Math.min(len, current.readableBytes());
+        current.readBytes(b, off, n);
+        releaseIfEmpty();
+        return n;
+    }
+
+    /**
+     * Wait until {@link #current} has readable bytes.
+     *
+     * @return {@code false} if the body has ended instead
+     */
+    private boolean awaitCurrent() throws IOException {
+        if (blocking == null) {
+            blocking = new BlockingSubscriber();
+            claim().subscribe(blocking);
+        }
+        while (current == null) {
+            if (done) {
+                return false;
+            }
+            Object next;
+            try {
+                next = blocking.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (next == COMPLETE) {
+                done = true;
+            } else if (next instanceof Throwable t) {
+                done = true;
+                throw new IOException("Body publisher failed", t);
+            } else {
+                current = (ByteBuf) next;
+                releaseIfEmpty();
+            }
+        }
+        return true;
+    }
+
+    private void releaseIfEmpty() {
+        if (!current.isReadable()) {
+            current.release();
+            current = null;
+            blocking.subscription.request(1);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (blocking != null && !done) {
+            done = true;
+            blocking.cancel();
+        }
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+    }
+
+    /**
+     * Subscriber for the blocking {@link #read} fallback. One element is requested at a time.
+     */
+    private static final class BlockingSubscriber implements Subscriber<Object> {
+        final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        volatile Subscription subscription;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(Object item) {
+            queue.add(toByteBuf(item));
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            queue.add(t);
+        }
+
+        @Override
+        public void onComplete() {
+            queue.add(COMPLETE);
+        }
+
+        void cancel() {
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            for (Object item : queue) {
+                if (item instanceof ByteBuf buf) {
+                    buf.release();
+                }
+            }
+            queue.clear();
+        }
+    }
+}
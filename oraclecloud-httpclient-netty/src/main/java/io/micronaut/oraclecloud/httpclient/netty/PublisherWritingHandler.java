@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Channel handler that writes the data of a {@link Publisher} to the channel, the non-blocking
+ * counterpart of {@link StreamWritingHandler}. One element is requested at a time, and only
+ * while the channel is writable. All state is only touched on the event loop.
+ */
+final class PublisherWritingHandler extends ChannelInboundHandlerAdapter implements Subscriber<Object> {
+    private final Publisher<?> publisher;
+    private final Object terminationMessage;
+
+    private ChannelHandlerContext ctx;
+    private Subscription subscription;
+    private boolean requested = false;
+    private boolean done = false;
+
+    /**
+     * @param publisher          Input data, see {@link PublisherInputStream#toByteBuf}
+     * @param terminationMessage Message to send through the pipeline when all data has been written
+     */
+    PublisherWritingHandler(Publisher<?> publisher, Object terminationMessage) {
+        this.publisher = publisher;
+        this.terminationMessage = terminationMessage;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        publisher.subscribe(this);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        super.channelWritabilityChanged(ctx);
+        requestIfWritable();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (!done) {
+            done = true;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+
+    private void requestIfWritable() {
+        if (!done && subscription != null && !requested && ctx.channel().isWritable()) {
+            requested = true;
+            subscription.request(1);
+        }
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        ctx.executor().execute(() -> {
+            if (done) {
+                s.cancel();
+            } else {
+                subscription = s;
+                requestIfWritable();
+            }
+        });
+    }
+
+    @Override
+    public void onNext(Object item) {
+        ByteBuf buf = PublisherInputStream.toByteBuf(item);
+        ctx.executor().execute(() -> {
+            requested = false;
+            if (done) {
+                buf.release();
+                return;
+            }
+            ctx.writeAndFlush(new DefaultHttpContent(buf), ctx.voidPromise());
+            requestIfWritable();
+        });
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        ctx.executor().execute(() -> {
+            if (!done) {
+                done = true;
+                // from the head, so that the response handlers see it
+                ctx.pipeline().fireExceptionCaught(t);
+                ctx.pipeline().remove(this);
+            }
+        });
+    }
+
+    @Override
+    public void onComplete() {
+        ctx.executor().execute(() -> {
+            if (!done) {
+                done = true;
+                ctx.writeAndFlush(terminationMessage);
+                ctx.pipeline().remove(this);
+            }
+        });
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.model.Range;
+import com.oracle.bmc.objectstorage.ObjectStorageAsync;
+import com.oracle.bmc.objectstorage.requests.GetObjectRequest;
+import com.oracle.bmc.objectstorage.requests.HeadObjectRequest;
+import com.oracle.bmc.objectstorage.responses.GetObjectResponse;
+import com.oracle.bmc.objectstorage.responses.HeadObjectResponse;
+import com.oracle.bmc.retrier.RetryConfiguration;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads large objects from Object Storage as concurrent {@code Range} requests, through the
+ * asynchronous SDK client and so over the pooled connections of the netty client. The target
+ * file is sized up front, and each range is written to its place with positional
+ * {@link FileChannel} writes, so ranges do not wait for each other.
+ * <p>
+ * All ranges are requested with {@code If-Match} on the ETag seen at the start, so a concurrent
+ * change of the object fails the download instead of mixing versions. The length of every range
+ * and of the whole file are checked. A failed range is retried on its own, continuing after the
+ * bytes that were already written. If the download fails, the target file is deleted.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(classes = ObjectStorageAsync.class)
+@Requires(beans = ObjectStorageAsync.class)
+public final class RangedDownloader {
+    private static final long RETRY_DELAY_MILLIS = 100;
+    private static final int COPY_BUFFER_SIZE = 1024 * 64;
+
+    private final ObjectStorageAsync client;
+    private final long rangeSize;
+    private final int parallelism;
+    private final int maxRetries;
+    private final Executor blockingExecutor;
+
+    /**
+     * @param client           The client to download with
+     * @param rangeSize        The size of each range in bytes. Only the last range may be smaller
+     * @param parallelism      The maximum number of ranges that are downloaded concurrently
+     * @param maxRetries       How often the download of a single range is retried
+     * @param blockingExecutor Executor for reading the responses and writing the file
+     */
+    public RangedDownloader(ObjectStorageAsync client, long rangeSize, int parallelism, int maxRetries, Executor blockingExecutor) {
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("Range size must be positive: " + rangeSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.client = client;
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+        this.maxRetries = maxRetries;
+        this.blockingExecutor = blockingExecutor;
+    }
+
+    @Inject
+    RangedDownloader(ObjectStorageAsync client, NettyClientRangedDownloadConfiguration configuration, @Named(TaskExecutors.BLOCKING) Executor blockingExecutor) {
+        this(client, configuration.rangeSize(), configuration.parallelism(), configuration.maxRetries(), blockingExecutor);
+    }
+
+    /**
+     * Download an object to a file. An existing file is replaced.
+     *
+     * @param namespaceName The Object Storage namespace
+     * @param bucketName    The bucket
+     * @param objectName    The object to download
+     * @param target        The file to write to
+     * @return The metadata of the downloaded object version, or the failure of the download
+     */
+    public CompletableFuture<HeadObjectResponse> download(String namespaceName, String bucketName, String objectName, Path target) {
+        return AsyncCalls.call(client::headObject, HeadObjectRequest.builder()
+                .namespaceName(namespaceName)
+                .bucketName(bucketName)
+                .objectName(objectName)
+                .build())
+            .thenCompose(head -> CompletableFuture.supplyAsync(() -> {
+                try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+                    file.setLength(head.getContentLength());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                try {
+                    return FileChannel.open(target, StandardOpenOption.WRITE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, blockingExecutor).thenCompose(channel -> new Download(namespaceName, bucketName, objectName, head, channel).start()
+                .whenComplete((r, e) -> {
+                    try {
+                        channel.close();
+                        if (e != null) {
+                            Files.deleteIfExists(target);
+                        }
+                    } catch (IOException ignored) {
+                    }
+                })));
+    }
+
+    /**
+     * The state of a single download.
+     */
+    private final class Download {
+        private final String namespaceName;
+        private final String bucketName;
+        private final String objectName;
+        private final HeadObjectResponse head;
+        private final FileChannel channel;
+        private final long size;
+        private final long rangeCount;
+
+        private final CompletableFuture<HeadObjectResponse> result = new CompletableFuture<>();
+        private final AtomicLong nextRange = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicInteger activeWorkers;
+
+        Download(String namespaceName, String bucketName, String objectName, HeadObjectResponse head, FileChannel channel) {
+            this.namespaceName = namespaceName;
+            this.bucketName = bucketName;
+            this.objectName = objectName;
+            this.head = head;
+            this.channel = channel;
+            this.size = head.getContentLength();
+            this.rangeCount = (size + rangeSize - 1) / rangeSize;
+            this.activeWorkers = new AtomicInteger((int) Math.min(parallelism, rangeCount));
+        }
+
+        CompletableFuture<HeadObjectResponse> start() {
+            if (rangeCount == 0) {
+                result.complete(head);
+            }
+            int workers = activeWorkers.get();
+            for (int i = 0; i < workers; i++) {
+                nextRange();
+            }
+            return result;
+        }
+
+        /**
+         * Download the next range. Each call is one of {@code parallelism} workers.
+         */
+        private void nextRange() {
+            if (result.isDone()) {
+                // another range failed
+                return;
+            }
+            long index = nextRange.getAndIncrement();
+            if (index >= rangeCount) {
+                if (activeWorkers.decrementAndGet() == 0) {
+                    if (written.get() == size) {
+                        result.complete(head);
+                    } else {
+                        result.completeExceptionally(new IllegalStateException("Downloaded " + written.get() + " bytes of " + objectName + ", expected " + size));
+                    }
+                }
+                return;
+            }
+            long start = index * rangeSize;
+            fetch(start, Math.min(start + rangeSize, size) - 1, 0);
+        }
+
+        /**
+         * @param start   The first byte to fetch
+         * @param end     The last byte to fetch, inclusive
+         * @param attempt The number of previous attempts for this range
+         */
+        private void fetch(long start, long end, int attempt) {
+            AtomicLong progress = new AtomicLong();
+            AsyncCalls.call(client::getObject, GetObjectRequest.builder()
+                    .namespaceName(namespaceName)
+                    .bucketName(bucketName)
+                    .objectName(objectName)
+                    .range(new Range(start, end))
+                    .ifMatch(head.getETag())
+                    // retries are done here, per range, continuing where the last attempt stopped
+                    .retryConfiguration(RetryConfiguration.NO_RETRY_CONFIGURATION)
+                    .build())
+                .thenAcceptAsync(response -> {
+                    try {
+                        copy(response, start, end, progress);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, blockingExecutor)
+                .whenComplete((v, error) -> {
+                    written.addAndGet(progress.get());
+                    if (error == null) {
+                        nextRange();
+                        return;
+                    }
+                    Throwable cause = AsyncCalls.unwrap(error);
+                    if (cause instanceof UncheckedIOException uio) {
+                        cause = uio.getCause();
+                    }
+                    if (attempt < maxRetries && AsyncCalls.isRetryable(cause) && !result.isDone()) {
+                        CompletableFuture.runAsync(
+                            () -> fetch(start + progress.get(), end, attempt + 1),
+                            CompletableFuture.delayedExecutor(RETRY_DELAY_MILLIS << attempt, TimeUnit.MILLISECONDS, blockingExecutor));
+                    } else {
+                        result.completeExceptionally(cause);
+                    }
+                });
+        }
+
+        private void copy(GetObjectResponse response, long start, long end, AtomicLong progress) throws IOException {
+            try (InputStream in = response.getInputStream()) {
+                long expected = end - start + 1;
+                if (head.getETag() != null && response.getETag() != null && !head.getETag().equals(response.getETag())) {
+                    // a different version of the object, retrying won't help
+                    IllegalStateException changed = new IllegalStateException("ETag of " + objectName + " changed from " + head.getETag() + " to " + response.getETag());
+                    result.completeExceptionally(changed);
+                    throw changed;
+                }
+                if (response.getContentLength() != null && response.getContentLength() != expected) {
+                    throw new IOException("Expected " + expected + " bytes at offset " + start + ", got " + response.getContentLength());
+                }
+                byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, expected)];
+                ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+                while (progress.get() < expected) {
+                    int n = in.read(buffer, 0, (int) Math.min(buffer.length, expected - progress.get()));
+                    if (n == -1) {
+                        throw new EOFException("Range of " + objectName + " at offset " + start + " ended after " + progress.get() + " of " + expected + " bytes");
+                    }
+                    wrapped.clear().limit(n);
+                    while (wrapped.hasRemaining()) {
+                        channel.write(wrapped, start + progress.get() + wrapped.position());
+                    }
+                    progress.addAndGet(n);
+                }
+            }
+        }
+    }
+}
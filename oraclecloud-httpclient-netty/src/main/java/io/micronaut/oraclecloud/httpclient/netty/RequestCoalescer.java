@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.http.client.HttpResponse;
+import io.micronaut.core.annotation.Nullable;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Coalesces identical concurrent {@code GET} requests of a client into a single exchange. The
+ * first request is sent, and identical requests that arrive while it is in flight wait for its
+ * response instead of being signed and sent themselves. If the response body is small enough, it
+ * is buffered and shared by all waiting requests. Otherwise, the waiting requests are sent
+ * separately.
+ */
+final class RequestCoalescer {
+    /**
+     * Headers that differ between otherwise identical requests and do not influence the response.
+     */
+    private static final Set<String> IGNORED_HEADERS = Set.of(
+        "opc-request-id",
+        "opc-client-request-id",
+        "opc-retry-token",
+        "date",
+        "x-date",
+        "authorization"
+    );
+
+    private final long maxBodySize;
+    private final Map<String, CompletableFuture<Shared>> flights = new ConcurrentHashMap<>();
+
+    RequestCoalescer(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    String key(String uri, HttpHeaders headers) {
+        StringBuilder key = new StringBuilder(uri);
+        for (Map.Entry<String, String> header : headers) {
+            if (!IGNORED_HEADERS.contains(header.getKey().toLowerCase())) {
+                key.append('\n').append(header.getKey()).append(':').append(header.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Join the exchange in flight for the given key, or start a new one.
+     *
+     * @param key    The request key
+     * @param flight The future of the new exchange
+     * @return The future of the exchange already in flight, or {@code null} if the caller leads
+     * the new exchange and must complete it using {@link #share} or {@link #fail}
+     */
+    @Nullable
+    CompletableFuture<Shared> join(String key, CompletableFuture<Shared> flight) {
+        return flights.putIfAbsent(key, flight);
+    }
+
+    /**
+     * Share the response of an exchange with the waiting requests.
+     *
+     * @param key             The request key
+     * @param flight          The future of the exchange
+     * @param response        The response
+     * @param client          The client
+     * @param offloadExecutor The offload executor of the leading request
+     * @return The response for the leading request
+     */
+    CompletableFuture<HttpResponse> share(String key, CompletableFuture<Shared> flight, NettyHttpResponse response, NettyHttpClient client, @Nullable Executor offloadExecutor) {
+        long contentLength = HttpUtil.getContentLength(response.nettyResponse(), -1L);
+        if (contentLength < 0 || contentLength > maxBodySize) {
+            // never buffer large or streamed bodies, the waiting requests are sent on their own
+            flights.remove(key, flight);
+            flight.complete(null);
+            return CompletableFuture.completedFuture(response);
+        }
+        return response.fullBody().handle((buf, error) -> {
+            if (error != null) {
+                fail(key, flight, error);
+                throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            }
+            Shared shared;
+            try {
+                shared = new Shared(response.nettyResponse().status(), response.nettyResponse().headers().copy(), new BufferedBody(ByteBufUtil.getBytes(buf)));
+            } finally {
+                buf.release();
+            }
+            flights.remove(key, flight);
+            flight.complete(shared);
+            return shared.toResponse(client, offloadExecutor);
+        });
+    }
+
+    void fail(String key, CompletableFuture<Shared> flight, Throwable error) {
+        flights.remove(key, flight);
+        flight.completeExceptionally(error);
+    }
+
+    /**
+     * A response shared by coalesced requests.
+     *
+     * @param status  The response status
+     * @param headers The response headers
+     * @param body    The response body
+     */
+    record Shared(HttpResponseStatus status, HttpHeaders headers, BufferedBody body) {
+        NettyHttpResponse toResponse(NettyHttpClient client, @Nullable Executor offloadExecutor) {
+            return new NettyHttpResponse(client, status, headers, body, offloadExecutor);
+        }
+    }
+}
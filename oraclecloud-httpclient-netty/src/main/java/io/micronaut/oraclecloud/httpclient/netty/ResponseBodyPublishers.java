@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts response body streams, such as {@code GetObjectResponse.getInputStream()}, to
+ * {@link Publisher}s. Streams of the netty client that have not been read from yet are consumed
+ * without blocking: data is read from the connection only when there is downstream demand. Any
+ * other stream is read on the bounded elastic scheduler.
+ *
+ * @since 4.3.0
+ */
+public final class ResponseBodyPublishers {
+    private static final int FALLBACK_CHUNK_SIZE = 8192;
+
+    private ResponseBodyPublishers() {
+    }
+
+    /**
+     * Publish a response body as netty buffers. Subscribers must release the buffers.
+     *
+     * @param body The response body stream
+     * @return A publisher of the body that can be subscribed to once
+     */
+    public static Publisher<ByteBuf> ofByteBufs(InputStream body) {
+        if (body instanceof StreamReadingHandler.Stream stream) {
+            return stream.toPublisher();
+        }
+        return Flux.<ByteBuf>generate(sink -> {
+                byte[] chunk = new byte[FALLBACK_CHUNK_SIZE];
+                try {
+                    int n = body.read(chunk);
+                    if (n == -1) {
+                        sink.complete();
+                    } else {
+                        sink.next(Unpooled.wrappedBuffer(chunk, 0, n));
+                    }
+                } catch (IOException e) {
+                    sink.error(e);
+                }
+            })
+            .doFinally(signal -> {
+                try {
+                    body.close();
+                } catch (IOException ignored) {
+                }
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Publish a response body as NIO buffers. The data is copied out of the network buffers, so
+     * subscribers may hold on to the buffers.
+     *
+     * @param body The response body stream
+     * @return A publisher of the body that can be subscribed to once
+     */
+    public static Publisher<ByteBuffer> ofByteBuffers(InputStream body) {
+        return Flux.from(ofByteBufs(body)).map(buf -> {
+            try {
+                return ByteBuffer.wrap(ByteBufUtil.getBytes(buf));
+            } finally {
+                buf.release();
+            }
+        });
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.http.client.HttpResponse;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded in-memory cache of {@code GET} responses that carry an {@code ETag}. Cached
+ * responses are always revalidated with {@code If-None-Match}. When the server responds with
+ * {@code 304 Not Modified}, the cached body is returned instead. Only the bytes of the body are
+ * shared, every caller decodes its own model, so callers cannot see each other's changes to it.
+ * <p>
+ * Entries are keyed by the request URI only, so requests with headers that select a different
+ * representation or a part of it, such as {@code Range}, conditional headers, SSE-C keys or
+ * {@code opc-obo-token}, bypass the cache.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(property = NettyClientCacheConfiguration.PREFIX + ".enabled", value = StringUtils.TRUE)
+public final class ResponseCache {
+    private static final String HEADER_PREFIX_SSE_CUSTOMER = "opc-sse-customer-";
+    private static final String HEADER_OBO_TOKEN = "opc-obo-token";
+
+    private final Set<String> operations;
+    private final long maxSize;
+    private final long maxEntrySize;
+
+    /**
+     * LRU map of the cached entries by request URI. Guarded by {@code this}.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> misses = new ConcurrentHashMap<>();
+
+    /**
+     * @param operations   The operations whose responses are cached, in the form of
+     *                     {@link NettyClientProperties#CLASS_AND_METHOD_KEY_NAME}
+     * @param maxSize      The maximum total size of the cached bodies in bytes
+     * @param maxEntrySize The maximum size of a single cached body in bytes
+     */
+    public ResponseCache(Set<String> operations, long maxSize, long maxEntrySize) {
+        this.operations = Set.copyOf(operations);
+        this.maxSize = maxSize;
+        this.maxEntrySize = Math.min(maxEntrySize, maxSize);
+    }
+
+    @Inject
+    ResponseCache(NettyClientCacheConfiguration configuration) {
+        this(configuration.operations(), configuration.maxSize(), configuration.maxEntrySize());
+    }
+
+    /**
+     * @return The cached operations
+     */
+    public Set<String> getOperations() {
+        return operations;
+    }
+
+    /**
+     * @param operation The operation
+     * @return The number of responses of the operation that were served from the cache
+     */
+    public long getHits(String operation) {
+        LongAdder adder = hits.get(operation);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * @param operation The operation
+     * @return The number of responses of the operation that were not served from the cache
+     */
+    public long getMisses(String operation) {
+        LongAdder adder = misses.get(operation);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * @return The total size of the cached bodies in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    boolean isCached(@Nullable String operation) {
+        return operation != null && operations.contains(operation);
+    }
+
+    /**
+     * Whether the response to a request with these headers can be looked up in and stored to the
+     * cache. The URI key does not distinguish requests whose response depends on their headers.
+     *
+     * @param headers The request headers
+     * @return {@code true} if the request can use the cache
+     */
+    static boolean isCacheable(HttpHeaders headers) {
+        for (Map.Entry<String, String> header : headers) {
+            String name = header.getKey();
+            if (HttpHeaderNames.RANGE.contentEqualsIgnoreCase(name) ||
+                HttpHeaderNames.IF_RANGE.contentEqualsIgnoreCase(name) ||
+                HttpHeaderNames.IF_MATCH.contentEqualsIgnoreCase(name) ||
+                HttpHeaderNames.IF_NONE_MATCH.contentEqualsIgnoreCase(name) ||
+                HttpHeaderNames.IF_MODIFIED_SINCE.contentEqualsIgnoreCase(name) ||
+                HttpHeaderNames.IF_UNMODIFIED_SINCE.contentEqualsIgnoreCase(name) ||
+                name.regionMatches(true, 0, HEADER_PREFIX_SSE_CUSTOMER, 0, HEADER_PREFIX_SSE_CUSTOMER.length()) ||
+                name.equalsIgnoreCase(HEADER_OBO_TOKEN)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            size -= previous.body.bytes().length;
+        }
+        size += entry.body.bytes().length;
+        Iterator<Entry> itr = entries.values().iterator();
+        while (size > maxSize && itr.hasNext()) {
+            size -= itr.next().body.bytes().length;
+            itr.remove();
+        }
+    }
+
+    private synchronized void invalidate(String key) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            size -= previous.body.bytes().length;
+        }
+    }
+
+    /**
+     * Handle the response to a request that may have been revalidated against a cached entry.
+     *
+     * @param client          The client
+     * @param operation       The operation
+     * @param key             The cache key
+     * @param revalidated     The entry that was sent for revalidation, or {@code null}
+     * @param response        The response from the server
+     * @param offloadExecutor The offload executor of the request
+     * @return The response to return to the caller
+     */
+    CompletableFuture<HttpResponse> onResponse(NettyHttpClient client, String operation, String key, @Nullable Entry revalidated, NettyHttpResponse response, @Nullable Executor offloadExecutor) {
+        int status = response.status();
+        if (revalidated != null && status == HttpResponseStatus.NOT_MODIFIED.code()) {
+            counter(hits, operation).increment();
+            HttpHeaders headers = revalidated.headers.copy();
+            // the 304 carries fresh values for e.g. opc-request-id
+            for (Map.Entry<String, String> header : response.nettyResponse().headers()) {
+                if (!HttpHeaderNames.CONTENT_LENGTH.contentEqualsIgnoreCase(header.getKey()) &&
+                    !HttpHeaderNames.TRANSFER_ENCODING.contentEqualsIgnoreCase(header.getKey())) {
+                    headers.set(header.getKey(), header.getValue());
+                }
+            }
+            response.close();
+            return CompletableFuture.completedFuture(new NettyHttpResponse(client, HttpResponseStatus.OK, headers, revalidated.body, offloadExecutor));
+        }
+
+        counter(misses, operation).increment();
+        if (status != HttpResponseStatus.OK.code()) {
+            if (revalidated != null) {
+                invalidate(key);
+            }
+            return CompletableFuture.completedFuture(response);
+        }
+        HttpHeaders headers = response.nettyResponse().headers();
+        String etag = headers.get(HttpHeaderNames.ETAG);
+        long contentLength = HttpUtil.getContentLength(response.nettyResponse(), -1L);
+        if (etag == null || contentLength < 0 || contentLength > maxEntrySize) {
+            if (revalidated != null) {
+                invalidate(key);
+            }
+            return CompletableFuture.completedFuture(response);
+        }
+        return response.fullBody().thenApply(buf -> {
+            Entry entry;
+            try {
+                entry = new Entry(etag, headers.copy(), new BufferedBody(ByteBufUtil.getBytes(buf)));
+            } finally {
+                buf.release();
+            }
+            put(key, entry);
+            return new NettyHttpResponse(client, HttpResponseStatus.OK, entry.headers, entry.body, offloadExecutor);
+        });
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counters, String operation) {
+        LongAdder adder = counters.get(operation);
+        if (adder == null) {
+            adder = counters.computeIfAbsent(operation, op -> new LongAdder());
+        }
+        return adder;
+    }
+
+    /**
+     * A cached response.
+     */
+    static final class Entry {
+        final String etag;
+        final HttpHeaders headers;
+        final BufferedBody body;
+
+        Entry(String etag, HttpHeaders headers, BufferedBody body) {
+            this.etag = etag;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
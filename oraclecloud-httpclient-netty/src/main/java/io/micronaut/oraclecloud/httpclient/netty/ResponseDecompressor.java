@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaderValues;
+
+/**
+ * Decodes {@code gzip} and {@code deflate} response bodies in front of the
+ * {@link ResponseHandler}, so that buffered and streamed bodies are both consumed decoded. Like
+ * the response handler, it is added to a connection once, by the first exchange that needs it,
+ * and stays in the pipeline while the connection is in the pool. It only decodes the responses
+ * of exchanges that negotiated a compressed response, other responses, e.g. objects stored with a
+ * {@code Content-Encoding}, pass through unchanged.
+ * <p>
+ * All state is only touched on the event loop.
+ */
+final class ResponseDecompressor extends HttpContentDecompressor {
+    static final String NAME = "oci-response-decompressor";
+
+    private boolean enabled;
+
+    private ResponseDecompressor() {
+    }
+
+    /**
+     * Enable or disable decoding for the next response of a connection.
+     *
+     * @param responseHandler The context of the {@link ResponseHandler} of the connection
+     * @param enabled         Whether the next response is decoded
+     */
+    static void configure(ChannelHandlerContext responseHandler, boolean enabled) {
+        ResponseDecompressor decompressor = (ResponseDecompressor) responseHandler.pipeline().get(NAME);
+        if (decompressor == null) {
+            if (!enabled) {
+                return;
+            }
+            decompressor = new ResponseDecompressor();
+            responseHandler.pipeline().addBefore(responseHandler.name(), NAME, decompressor);
+        }
+        decompressor.enabled = enabled;
+    }
+
+    @Override
+    protected EmbeddedChannel newContentDecoder(String contentEncoding) throws Exception {
+        if (!enabled) {
+            return null;
+        }
+        // only decode what the client advertises, anything else is passed on as received
+        if (HttpHeaderValues.GZIP.contentEqualsIgnoreCase(contentEncoding) ||
+            HttpHeaderValues.X_GZIP.contentEqualsIgnoreCase(contentEncoding) ||
+            HttpHeaderValues.DEFLATE.contentEqualsIgnoreCase(contentEncoding) ||
+            HttpHeaderValues.X_DEFLATE.contentEqualsIgnoreCase(contentEncoding)) {
+            return super.newContentDecoder(contentEncoding);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,641 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.PrematureChannelClosureException;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Channel handler that processes the responses of a connection. It is added once per connection
+ * and stays in the pipeline while the connection is in the pool, so that an exchange does not
+ * have to modify the pipeline. It is a state machine:
+ *
+ * <ol>
+ *     <li>{@link State#IDLE}: No exchange is active, messages are passed on.</li>
+ *     <li>{@link State#PREFACE}: A request was sent, waiting for the response head. {@code 100
+ *     Continue} responses are handled here.</li>
+ *     <li>{@link State#BUFFERING}: The response head was received, the body is buffered until the
+ *     user decides whether they want it buffered, as a stream, or discarded.</li>
+ *     <li>{@link State#DECIDED}: The body is forwarded to a {@link DecidedBodyHandler}.</li>
+ * </ol>
+ *
+ * When the body is complete, or the exchange fails, the handler goes back to {@link State#IDLE}
+ * and the connection is released. The {@link Body} of the response stays valid, e.g. a fully
+ * buffered body can still be consumed after the connection has been reused. A body whose consumer
+ * paused reading and then does not ask for more data within
+ * {@link Exchange#abandonedBodyTimeoutNanos()} is considered abandoned, and is cancelled like a
+ * closed stream, so that a forgotten response does not hold the connection forever.
+ * <p>
+ * The body bytes of the request and the response are counted as they pass this handler, and
+ * reported to {@link Exchange#onEnd}. Decompressed response bodies are counted after decoding.
+ * <p>
+ * All state is only touched on the event loop.
+ */
+final class ResponseHandler extends ChannelDuplexHandler {
+    static final String NAME = "oci-response";
+    static final Duration DEFAULT_ABANDONED_BODY_TIMEOUT = Duration.ofMinutes(1);
+
+    /**
+     * This many bytes of the body are always kept, so that a short error message can still be
+     * read when normal body reading fails.
+     */
+    private static final int LIMITED_BUFFER_SIZE = 4096;
+
+    private final Channel channel;
+    private ChannelHandlerContext ctx;
+
+    private State state = State.IDLE;
+    private Exchange exchange;
+    private Body body;
+    private boolean skipLast;
+    private long sentBytes;
+
+    private ResponseHandler(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Get the response handler of a channel, adding it if this is the first exchange on the
+     * channel.
+     *
+     * @param channel The channel
+     * @return The handler
+     */
+    static ResponseHandler forChannel(Channel channel) {
+        ResponseHandler handler = (ResponseHandler) channel.pipeline().get(NAME);
+        if (handler == null) {
+            handler = new ResponseHandler(channel);
+            channel.pipeline().addLast(NAME, handler);
+        }
+        return handler;
+    }
+
+    /**
+     * Start an exchange. Must be called before the request is written.
+     *
+     * @param exchange The exchange
+     */
+    void start(Exchange exchange) {
+        start(false, exchange);
+    }
+
+    /**
+     * Start an exchange. Must be called before the request is written.
+     *
+     * @param decompress Whether {@code gzip} and {@code deflate} response bodies are decoded
+     *                   before they reach this handler, see {@link ResponseDecompressor}
+     * @param exchange   The exchange
+     */
+    void start(boolean decompress, Exchange exchange) {
+        if (channel.eventLoop().inEventLoop()) {
+            start0(decompress, exchange);
+        } else {
+            channel.eventLoop().execute(() -> start0(decompress, exchange));
+        }
+    }
+
+    private void start0(boolean decompress, Exchange exchange) {
+        assert state == State.IDLE : "Connection is still in use by another exchange";
+        ResponseDecompressor.configure(ctx, decompress);
+        this.exchange = exchange;
+        this.skipLast = false;
+        this.sentBytes = 0;
+        this.state = State.PREFACE;
+    }
+
+    /**
+     * End the current exchange, go back to {@link State#IDLE} and release the connection.
+     *
+     * @param reusable Whether the connection can be reused
+     */
+    private void finish(boolean reusable) {
+        Exchange e = exchange;
+        Body b = body;
+        state = State.IDLE;
+        exchange = null;
+        body = null;
+        if (b != null) {
+            b.detach();
+        }
+        // release first: work that onEnd wakes up, e.g. a request waiting for a limiter permit,
+        // should find the connection back in the pool
+        e.release(reusable);
+        e.onEnd(sentBytes, b == null ? 0 : b.receivedBytes, b != null && b.complete);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        switch (state) {
+            case IDLE -> ctx.fireChannelRead(msg);
+            case PREFACE -> readPreface(msg);
+            case BUFFERING, DECIDED -> {
+                if (msg instanceof HttpContent content) {
+                    body.onContent(content);
+                } else {
+                    ctx.fireChannelRead(msg);
+                }
+            }
+        }
+    }
+
+    private void readPreface(Object msg) {
+        if (msg instanceof HttpResponse response) {
+            if (response.status().equals(HttpResponseStatus.CONTINUE)) {
+                exchange.onContinue();
+                if (msg instanceof LastHttpContent) {
+                    ReferenceCountUtil.release(msg);
+                } else {
+                    // skip the LastHttpContent associated with the continue response
+                    skipLast = true;
+                }
+                return;
+            }
+            Body b = new Body(exchange.abandonedBodyTimeoutNanos());
+            body = b;
+            state = State.BUFFERING;
+            exchange.onResponse(response, b);
+            if (msg instanceof HttpContent content) {
+                if (b.attached) {
+                    b.onContent(content);
+                } else {
+                    // cancelled by the user
+                    content.release();
+                }
+            }
+        } else if (skipLast && msg instanceof LastHttpContent) {
+            skipLast = false;
+            ReferenceCountUtil.release(msg);
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (state != State.IDLE) {
+            if (msg instanceof HttpContent content) {
+                sentBytes += content.content().readableBytes();
+            } else if (msg instanceof ByteBuf buf) {
+                // streamed bodies, e.g. from StreamWritingHandler, are written as plain buffers
+                sentBytes += buf.readableBytes();
+            } else if (msg instanceof FileRegion region) {
+                sentBytes += region.count();
+            }
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        switch (state) {
+            case IDLE -> ctx.fireExceptionCaught(cause);
+            case PREFACE -> {
+                exchange.onFailure(cause);
+                finish(false);
+            }
+            case BUFFERING -> {
+                body.failure = cause;
+                finish(false);
+            }
+            case DECIDED -> {
+                if (!body.decided.onError(cause)) {
+                    ctx.fireExceptionCaught(cause);
+                }
+                finish(false);
+            }
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        closed();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        closed();
+    }
+
+    private void closed() {
+        switch (state) {
+            case IDLE -> {
+            }
+            case PREFACE -> {
+                exchange.onFailure(new PrematureChannelClosureException());
+                finish(false);
+            }
+            case BUFFERING -> finish(false);
+            case DECIDED -> {
+                body.decided.onCancel();
+                finish(false);
+            }
+        }
+    }
+
+    private enum State {
+        IDLE,
+        PREFACE,
+        BUFFERING,
+        DECIDED,
+    }
+
+    /**
+     * Callbacks for a single request-response exchange. All methods are called on the event loop.
+     */
+    interface Exchange {
+        /**
+         * A {@code 100 Continue} response was received.
+         */
+        void onContinue();
+
+        /**
+         * The response head was received.
+         *
+         * @param response The response head
+         * @param body     The body of the response
+         */
+        void onResponse(HttpResponse response, Body body);
+
+        /**
+         * The exchange failed before the response head was received.
+         *
+         * @param cause The failure
+         */
+        void onFailure(Throwable cause);
+
+        /**
+         * The exchange has ended. Called exactly once, right after {@link #release(boolean)}.
+         *
+         * @param sentBytes     The request body bytes written while the exchange was active
+         * @param receivedBytes The response body bytes received
+         * @param complete      Whether the response body was received completely
+         */
+        void onEnd(long sentBytes, long receivedBytes, boolean complete);
+
+        /**
+         * The exchange no longer uses the connection. Called exactly once.
+         *
+         * @param reusable Whether the connection can be reused for another exchange
+         */
+        void release(boolean reusable);
+
+        /**
+         * @return How long the body may stay unread once its consumer has stopped reading from
+         * the connection, before it is considered abandoned and the exchange ends. A
+         * non-positive value waits forever
+         */
+        default long abandonedBodyTimeoutNanos() {
+            return 0;
+        }
+    }
+
+    /**
+     * The body of a single response. Content is buffered until the user decides how to consume
+     * it, then forwarded to the chosen {@link DecidedBodyHandler}.
+     */
+    final class Body {
+        private List<HttpContent> buffer = new ArrayList<>();
+        private boolean decidedCalled = false;
+        private DecidedBodyHandler decided;
+        /**
+         * Whether this body still receives content from the connection.
+         */
+        private boolean attached = true;
+        private boolean complete = false;
+        private Throwable failure;
+        private long receivedBytes;
+
+        private CompositeByteBuf limitedBuffer;
+        private boolean limitedOverflowed = false;
+        private final CompletableFuture<ByteBuf> limitedFuture = new CompletableFuture<>();
+
+        private final long abandonedTimeoutNanos;
+        /**
+         * Cancels the body if the consumer does not read again, see {@link #pauseReading()}.
+         */
+        private ScheduledFuture<?> abandonedTimer;
+
+        private Body(long abandonedTimeoutNanos) {
+            this.abandonedTimeoutNanos = abandonedTimeoutNanos;
+        }
+
+        private void onContent(HttpContent content) {
+            receivedBytes += content.content().readableBytes();
+            bufferLimited(content);
+            boolean last = content instanceof LastHttpContent;
+            if (decided == null) {
+                buffer.add(content);
+                if (last) {
+                    complete = true;
+                    finish(true);
+                }
+            } else {
+                decided.onContent(content);
+                if (last) {
+                    complete = true;
+                    finish(true);
+                } else if (decided.wantsMoreData()) {
+                    ctx.read();
+                } else {
+                    pauseReading();
+                }
+            }
+        }
+
+        /**
+         * The {@link DecidedBodyHandler} does not want more data for now. It requests more with
+         * {@link #read()}, or the body is abandoned once the consumer has taken no data for the
+         * timeout.
+         */
+        private void pauseReading() {
+            if (abandonedTimeoutNanos > 0 && abandonedTimer == null) {
+                decided.takeActivity();
+                scheduleAbandonedTimer();
+            }
+        }
+
+        private void scheduleAbandonedTimer() {
+            abandonedTimer = ctx.executor().schedule(() -> {
+                abandonedTimer = null;
+                if (!attached) {
+                    return;
+                }
+                if (decided.takeActivity()) {
+                    // still consuming the buffered data, just slowly
+                    scheduleAbandonedTimer();
+                } else {
+                    cancel0();
+                }
+            }, abandonedTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void resumeReading() {
+            if (abandonedTimer != null) {
+                abandonedTimer.cancel(false);
+                abandonedTimer = null;
+            }
+        }
+
+        private void bufferLimited(HttpContent content) {
+            if (limitedOverflowed || limitedFuture.isDone()) {
+                return;
+            }
+            ByteBuf data = content.content();
+            if (data.isReadable()) {
+                if (limitedBuffer == null) {
+                    limitedBuffer = ctx.alloc().compositeBuffer();
+                }
+                int toAdd = Math.min(LIMITED_BUFFER_SIZE - limitedBuffer.readableBytes(), data.readableBytes());
+                limitedOverflowed = toAdd < data.readableBytes();
+                if (toAdd > 0) {
+                    limitedBuffer.addComponent(true, data.retainedSlice(data.readerIndex(), toAdd));
+                }
+            }
+            if (content instanceof LastHttpContent || limitedOverflowed) {
+                limitedFuture.complete(limitedBuffer == null ? Unpooled.EMPTY_BUFFER : limitedBuffer);
+            }
+        }
+
+        /**
+         * Called when the exchange ends, i.e. the connection may be used for other exchanges from
+         * now on.
+         */
+        private void detach() {
+            attached = false;
+            resumeReading();
+            if (!limitedFuture.isDone()) {
+                limitedFuture.completeExceptionally(failure == null ? new PrematureChannelClosureException() : failure);
+            }
+            if (limitedBuffer != null) {
+                limitedBuffer.release();
+                limitedBuffer = null;
+            }
+        }
+
+        /**
+         * Request more data for the {@link DecidedBodyHandler}.
+         */
+        void read() {
+            if (channel.eventLoop().inEventLoop()) {
+                read0();
+            } else {
+                channel.eventLoop().execute(this::read0);
+            }
+        }
+
+        private void read0() {
+            if (attached && decided != null) {
+                resumeReading();
+                ctx.read();
+            }
+        }
+
+        /**
+         * Stop receiving the body early. The connection is closed.
+         */
+        void cancel() {
+            if (channel.eventLoop().inEventLoop()) {
+                cancel0();
+            } else {
+                channel.eventLoop().execute(this::cancel0);
+            }
+        }
+
+        private void cancel0() {
+            if (attached && decided != null) {
+                decided.onCancel();
+                finish(false);
+            }
+        }
+
+        /**
+         * Best-effort check whether this is called on the event loop.
+         */
+        boolean inEventLoop() {
+            // embedded channel always returns true for inEventLoop
+            return channel.eventLoop().inEventLoop() && !(channel instanceof EmbeddedChannel);
+        }
+
+        boolean hasDecided() {
+            return decidedCalled;
+        }
+
+        /**
+         * The first bytes of the body. This is available even if the body is consumed in another
+         * way, but only until the exchange ends. Note: The buffer is <i>not</i> retained for the
+         * receiver of this future, it must be retained immediately on completion.
+         *
+         * @return Future that contains the buffered data
+         */
+        CompletableFuture<ByteBuf> limitedBuffer() {
+            return limitedFuture;
+        }
+
+        void discard() {
+            decide(new DiscardingHandler());
+        }
+
+        CompletableFuture<ByteBuf> asBuffer() {
+            BufferFutureHandler futureHandler = new BufferFutureHandler(channel.alloc());
+            decide(futureHandler);
+            return futureHandler.future;
+        }
+
+        CompletableFuture<InputStream> asInputStream() {
+            return asInputStream(StreamReadingHandler.DEFAULT_LOW_WATERMARK, StreamReadingHandler.DEFAULT_HIGH_WATERMARK);
+        }
+
+        /**
+         * Consume the body as a stream.
+         *
+         * @param lowWatermark  Reading resumes when at most this many bytes are buffered
+         * @param highWatermark Reading pauses when at least this many bytes are buffered
+         * @return The stream
+         */
+        CompletableFuture<InputStream> asInputStream(int lowWatermark, int highWatermark) {
+            StreamReadingHandler streamReadingHandler = new StreamReadingHandler(channel.alloc(), lowWatermark, highWatermark);
+            if (channel.eventLoop().inEventLoop()) {
+                decide(streamReadingHandler);
+                try {
+                    return CompletableFuture.completedFuture(streamReadingHandler.getInputStream());
+                } catch (Throwable e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            } else {
+                markDecided();
+                Future<?> decideFuture = channel.eventLoop().submit(() -> decide0(streamReadingHandler));
+                CompletableFuture<InputStream> streamFuture = new CompletableFuture<>();
+                decideFuture.addListener(future -> {
+                    if (future.isSuccess()) {
+                        InputStream stream;
+                        try {
+                            stream = streamReadingHandler.getInputStream();
+                        } catch (Throwable e) {
+                            streamFuture.completeExceptionally(e);
+                            return;
+                        }
+                        streamFuture.complete(stream);
+                    } else {
+                        streamFuture.completeExceptionally(future.cause());
+                    }
+                });
+                return streamFuture;
+            }
+        }
+
+        /**
+         * Consume the body as a stream from the start, when it is known from the operation that
+         * the body will be streamed. Must be called from {@link Exchange#onResponse}: no content
+         * has been buffered yet, and unlike the other modes, the first bytes are not kept for
+         * {@link #limitedBuffer()}.
+         *
+         * @param lowWatermark  Reading resumes when at most this many bytes are buffered
+         * @param highWatermark Reading pauses when at least this many bytes are buffered
+         * @return The body stream
+         */
+        InputStream streamImmediately(int lowWatermark, int highWatermark) {
+            assert channel.eventLoop().inEventLoop() && buffer.isEmpty();
+            limitedFuture.completeExceptionally(new IllegalStateException("The body is consumed as a stream"));
+            StreamReadingHandler streamReadingHandler = new StreamReadingHandler(channel.alloc(), lowWatermark, highWatermark);
+            decide(streamReadingHandler);
+            try {
+                return streamReadingHandler.getInputStream();
+            } catch (Throwable e) {
+                // the handler was just attached to a live body, it cannot have failed yet
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void markDecided() {
+            if (decidedCalled) {
+                throw new IllegalStateException("Body has already been consumed");
+            }
+            decidedCalled = true;
+        }
+
+        private void decide(DecidedBodyHandler handler) {
+            markDecided();
+            if (channel.eventLoop().inEventLoop()) {
+                decide0(handler);
+            } else {
+                channel.eventLoop().execute(() -> decide0(handler));
+            }
+        }
+
+        private void decide0(DecidedBodyHandler handler) {
+            List<HttpContent> buffered = buffer;
+            buffer = null;
+            decided = handler;
+            if (failure != null) {
+                for (HttpContent content : buffered) {
+                    content.release();
+                }
+                handler.attach(this);
+                handler.onError(failure);
+                return;
+            }
+            for (HttpContent content : buffered) {
+                handler.onContent(content);
+            }
+            if (attached) {
+                state = State.DECIDED;
+                // runs actions the user requested before the decision was processed, e.g. cancel
+                handler.attach(this);
+                if (attached) {
+                    if (handler.wantsMoreData()) {
+                        ctx.read();
+                    } else {
+                        pauseReading();
+                    }
+                }
+            } else {
+                handler.attach(this);
+                if (!complete) {
+                    // connection closed before the body was complete
+                    handler.onCancel();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the SDK client class and operation ({@code MonitoringClient.getAlarm}) that issued a
+ * request. The stack walk stops at the first SDK frame instead of materializing the whole stack,
+ * and the formatted name is cached per call site so that repeated calls do not allocate. Along
+ * with the name, the call site records whether the response of the operation has a stream body,
+ * so that the body mode of the response is known before it arrives.
+ * <p>
+ * Callers that already know the operation can skip the stack walk by setting the
+ * {@link NettyClientProperties#CLASS_AND_METHOD_KEY_NAME} request attribute, see
+ * {@link #operation(String)}.
+ */
+final class SdkCallSite {
+    static final String UNKNOWN = "N/A";
+    static final Operation UNKNOWN_OPERATION = new Operation(UNKNOWN, false);
+
+    private static final String SDK_PACKAGE = "com.oracle.bmc";
+    private static final String SDK_INTERNAL_PACKAGE = "com.oracle.bmc.http.internal";
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    /**
+     * Cache of {@code class -> method name -> operation}. Method names returned by the stack
+     * walker are interned, so the inner lookup is cheap.
+     */
+    private static final ClassValue<Map<String, Operation>> OPERATIONS = new ClassValue<>() {
+        @Override
+        protected Map<String, Operation> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Cache of {@code name -> operation}, filled as operations are resolved, for requests that
+     * carry the operation name as an attribute.
+     */
+    private static final Map<String, Operation> BY_NAME = new ConcurrentHashMap<>();
+
+    private SdkCallSite() {
+    }
+
+    /**
+     * Find the name of the SDK operation on the current thread's stack.
+     *
+     * @return The name in the form {@code SimpleClassName.method}, or {@link #UNKNOWN}
+     */
+    static String resolve() {
+        return resolveOperation().name();
+    }
+
+    /**
+     * Find the SDK operation on the current thread's stack.
+     *
+     * @return The operation, or {@link #UNKNOWN_OPERATION}
+     */
+    static Operation resolveOperation() {
+        return WALKER.walk(SdkCallSite::firstSdkFrame)
+            .map(frame -> operation(frame.getDeclaringClass(), frame.getMethodName()))
+            .orElse(UNKNOWN_OPERATION);
+    }
+
+    private static Optional<StackWalker.StackFrame> firstSdkFrame(Stream<StackWalker.StackFrame> frames) {
+        return frames
+            .filter(frame -> {
+                String className = frame.getClassName();
+                return className.contains(SDK_PACKAGE) && !className.contains(SDK_INTERNAL_PACKAGE);
+            })
+            .findFirst();
+    }
+
+    static String name(Class<?> declaringClass, String methodName) {
+        return operation(declaringClass, methodName).name();
+    }
+
+    static Operation operation(Class<?> declaringClass, String methodName) {
+        return OPERATIONS.get(declaringClass).computeIfAbsent(methodName, m -> {
+            String className = declaringClass.getName();
+            Operation operation = new Operation(
+                className.substring(className.lastIndexOf('.') + 1) + "." + m,
+                streamsResponse(declaringClass, m)
+            );
+            BY_NAME.putIfAbsent(operation.name(), operation);
+            return operation;
+        });
+    }
+
+    /**
+     * Look up an operation by the name a caller gave it, without walking the stack. Only
+     * operations that were resolved before know whether they stream their response, an unknown
+     * name is treated as a buffered operation.
+     *
+     * @param name The name in the form {@code SimpleClassName.method}
+     * @return The operation
+     */
+    static Operation operation(String name) {
+        Operation operation = BY_NAME.get(name);
+        return operation == null ? new Operation(name, false) : operation;
+    }
+
+    /**
+     * Whether a public method of the given name returns a response model with an
+     * {@link InputStream} property, such as {@code GetObjectResponse.getInputStream()}. The
+     * {@code Future} returned by the async clients is unwrapped.
+     */
+    private static boolean streamsResponse(Class<?> declaringClass, String methodName) {
+        for (Method method : declaringClass.getMethods()) {
+            if (!method.getName().equals(methodName)) {
+                continue;
+            }
+            Type responseType = method.getGenericReturnType();
+            if (Future.class.isAssignableFrom(method.getReturnType()) && responseType instanceof ParameterizedType parameterized) {
+                responseType = parameterized.getActualTypeArguments()[0];
+            }
+            if (responseType instanceof Class<?> responseClass && hasStreamGetter(responseClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasStreamGetter(Class<?> responseClass) {
+        for (Method getter : responseClass.getMethods()) {
+            if (getter.getName().startsWith("get") &&
+                getter.getParameterCount() == 0 &&
+                !Modifier.isStatic(getter.getModifiers()) &&
+                InputStream.class.isAssignableFrom(getter.getReturnType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An SDK operation.
+     *
+     * @param name            The name in the form {@code SimpleClassName.method}
+     * @param streamsResponse Whether successful responses of this operation are consumed as a
+     *                        stream
+     */
+    record Operation(String name, boolean streamsResponse) {
+    }
+}
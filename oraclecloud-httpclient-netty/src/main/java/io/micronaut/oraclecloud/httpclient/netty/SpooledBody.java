@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * A request body that has been copied to a temporary file, with its SHA-256 computed on the way.
+ * This allows the {@code x-content-sha256} and {@code content-length} headers to be set before
+ * signing, without holding the body in memory. The file is deleted once the body has been read
+ * completely or {@link #close() closed}.
+ */
+final class SpooledBody implements Closeable {
+    /**
+     * Operations whose body is excluded from the request signature, so it does not need to be
+     * hashed up front.
+     */
+    static final Set<String> SIGNING_EXEMPT_OPERATIONS = Set.of(
+        "ObjectStorageClient.putObject",
+        "ObjectStorageClient.uploadPart",
+        "ObjectStorageAsyncClient.putObject",
+        "ObjectStorageAsyncClient.uploadPart"
+    );
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final FileChannel channel;
+    private final long length;
+    private final String sha256;
+
+    private SpooledBody(FileChannel channel, long length, String sha256) {
+        this.channel = channel;
+        this.length = length;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * Copy the given stream to a temporary file.
+     *
+     * @param in The stream. It is not closed
+     * @return The spooled body
+     * @throws IOException If reading the stream or writing the file fails
+     */
+    static SpooledBody spool(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        Path file = Files.createTempFile("oci-netty-body", ".tmp");
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        try {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            ByteBuffer wrapped = ByteBuffer.wrap(chunk);
+            long length = 0;
+            while (true) {
+                int n = in.read(chunk);
+                if (n == -1) {
+                    break;
+                }
+                digest.update(chunk, 0, n);
+                wrapped.clear().limit(n);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+                length += n;
+            }
+            channel.position(0);
+            return new SpooledBody(channel, length, Base64.getEncoder().encodeToString(digest.digest()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long length() {
+        return length;
+    }
+
+    /**
+     * @return The Base64 encoded SHA-256 of the body
+     */
+    String sha256() {
+        return sha256;
+    }
+
+    /**
+     * @return A stream over the spooled body. The file is deleted once the end is reached
+     */
+    InputStream stream() {
+        return new Stream();
+    }
+
+    /**
+     * Stream over the spooled file. {@link FileBody} recognizes it, so the file can be sent
+     * without going through this stream at all.
+     */
+    final class Stream extends InputStream {
+        /**
+         * Reused by {@link #read()}, so that reading byte by byte does not allocate.
+         */
+        private final ByteBuffer single = ByteBuffer.allocate(1);
+
+        private Stream() {
+        }
+
+        FileChannel channel() {
+            return channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!channel.isOpen()) {
+                return -1;
+            }
+            single.clear();
+            if (channel.read(single) == -1) {
+                channel.close();
+                return -1;
+            }
+            return single.get(0) & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (!channel.isOpen()) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, len));
+            if (n == -1) {
+                channel.close();
+            }
+            return n;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -18,28 +18,74 @@ package io.micronaut.oraclecloud.httpclient.netty;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.CompositeByteBuf;
+import org.reactivestreams.Publisher;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Channel handler that exposes inbound data as an {@link InputStream}.
+ * Channel handler that exposes inbound data as an {@link InputStream}. Blocked readers wait on a
+ * {@link Condition} rather than an object monitor, so that virtual threads reading the stream
+ * do not pin their carrier thread.
+ * <p>
+ * The handler reads ahead of the consumer: it keeps reading from the channel until
+ * {@code highWatermark} bytes are buffered, and resumes once the consumer has drained the buffer
+ * to {@code lowWatermark} bytes. This keeps reads in flight while the consumer works through
+ * the buffered data, while bounding the memory used by a slow consumer.
+ * <p>
+ * As long as nothing has been read, the stream can be switched to a {@link BodyPublisher}
+ * instead, which reads from the channel only on downstream demand.
  */
 class StreamReadingHandler extends DecidedBodyHandler {
-    private final Object monitor = new Object();
+    static final int DEFAULT_HIGH_WATERMARK = 1024 * 1024;
+    static final int DEFAULT_LOW_WATERMARK = DEFAULT_HIGH_WATERMARK / 4;
+
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final Lock lock = new ReentrantLock();
+    private final Condition dataAvailable = lock.newCondition();
     private CompositeByteBuf buffer;
     private boolean done = false;
     private Throwable failure;
+    private boolean streamRead = false;
+    /**
+     * Whether reading from the channel stopped because the buffer reached the high watermark.
+     */
+    private boolean readPaused = false;
+    /**
+     * Whether a read from the channel has been requested and no data arrived for it yet.
+     */
+    private boolean readPending = false;
+    private volatile BodyPublisher publisher;
 
     StreamReadingHandler(ByteBufAllocator alloc) {
-        synchronized (monitor) {
+        this(alloc, DEFAULT_LOW_WATERMARK, DEFAULT_HIGH_WATERMARK);
+    }
+
+    /**
+     * @param alloc         Allocator for the buffer
+     * @param lowWatermark  Reading resumes when at most this many bytes are buffered
+     * @param highWatermark Reading pauses when at least this many bytes are buffered
+     */
+    StreamReadingHandler(ByteBufAllocator alloc, int lowWatermark, int highWatermark) {
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        lock.lock();
+        try {
             buffer = alloc.compositeBuffer();
+        } finally {
+            lock.unlock();
         }
     }
 
     public InputStream getInputStream() throws Throwable {
-        synchronized (monitor) {
+        lock.lock();
+        try {
             if (buffer == null) {
                 if (failure != null) {
                     throw failure;
@@ -47,94 +93,244 @@ class StreamReadingHandler extends DecidedBodyHandler {
                 throw new IllegalStateException("Must be added to pipeline first");
             }
             return new Stream();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Switch from stream to publisher mode. Data that has already been received is emitted first.
+     *
+     * @return The publisher of the remaining body
+     */
+    private Publisher<ByteBuf> toPublisher() {
+        lock.lock();
+        try {
+            if (streamRead || publisher != null) {
+                throw new IllegalStateException("Response body has already been consumed");
+            }
+            BodyPublisher p = new BodyPublisher(this::triggerUpstreamRead, this::removeEarly);
+            if (buffer != null) {
+                if (buffer.isReadable()) {
+                    p.onData(buffer);
+                } else {
+                    buffer.release();
+                }
+                buffer = null;
+            }
+            if (failure != null) {
+                p.fail(failure);
+            } else if (done) {
+                p.complete();
+            }
+            publisher = p;
+            return p;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    boolean wantsMoreData() {
+        BodyPublisher p = publisher;
+        if (p != null) {
+            return p.wantsMore();
+        }
+        lock.lock();
+        try {
+            if (buffer == null || buffer.readableBytes() < highWatermark) {
+                // the caller reads from the channel
+                readPending = true;
+                return true;
+            }
+            readPaused = true;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until data can be read from {@link #buffer}. Must hold the lock.
+     *
+     * @return {@code false} if the end of the body was reached
+     */
+    private boolean awaitData() throws IOException {
+        if (publisher != null) {
+            throw new IOException("Response body is consumed as a publisher");
         }
+        streamRead = true;
+        while (true) {
+            if (failure != null) {
+                throw new IOException("Failure in netty event loop", failure);
+            } else if (buffer == null) {
+                return false;
+            } else if (buffer.isReadable()) {
+                return true;
+            } else if (done) {
+                buffer.release();
+                buffer = null;
+            } else {
+                if (readPaused || !readPending) {
+                    // an empty buffer must never stall
+                    requestRead();
+                }
+                checkNotOnEventLoop();
+                try {
+                    dataAvailable.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Called after data was taken from {@link #buffer}. Must hold the lock.
+     */
+    private void consumed() {
+        markActive();
+        buffer.discardSomeReadBytes();
+        if (readPaused && buffer.readableBytes() <= lowWatermark) {
+            requestRead();
+        }
+    }
+
+    /**
+     * Resume reading from the channel. Must hold the lock.
+     */
+    private void requestRead() {
+        readPaused = false;
+        readPending = true;
+        triggerUpstreamRead();
     }
 
     @Override
     void onData(ByteBuf data) {
-        synchronized (monitor) {
-            buffer.addComponent(true, data);
-            monitor.notifyAll();
+        BodyPublisher p;
+        lock.lock();
+        try {
+            p = publisher;
+            if (p == null) {
+                readPending = false;
+                buffer.addComponent(true, data);
+                dataAvailable.signalAll();
+                return;
+            }
+        } finally {
+            lock.unlock();
         }
+        p.onData(data);
     }
 
     @Override
     void onComplete() {
-        synchronized (monitor) {
+        BodyPublisher p;
+        lock.lock();
+        try {
+            p = publisher;
             done = true;
-            monitor.notifyAll();
+            dataAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (p != null) {
+            p.complete();
         }
     }
 
     @Override
     boolean onError(Throwable cause) {
-        synchronized (monitor) {
-            if (buffer != null) {
+        BodyPublisher p;
+        lock.lock();
+        try {
+            p = publisher;
+            if (p != null) {
+                // forwarded below, outside the lock
+                assert buffer == null;
+            } else if (buffer != null) {
                 // the stream hasn't finished yet, it can handle the failure.
                 failure = cause;
                 buffer.release();
                 buffer = null;
-                monitor.notifyAll();
+                dataAvailable.signalAll();
                 return true;
             } else {
                 return false;
             }
+        } finally {
+            lock.unlock();
         }
+        p.fail(cause);
+        return true;
     }
 
-    private class Stream extends InputStream {
+    /**
+     * The body stream. {@link ResponseBodyPublishers} recognizes it and turns it into a
+     * demand-driven publisher.
+     */
+    final class Stream extends InputStream {
+        /**
+         * @return The publisher of the body, if nothing has been read from this stream
+         */
+        Publisher<ByteBuf> toPublisher() {
+            return StreamReadingHandler.this.toPublisher();
+        }
+
         @Override
         public int read() throws IOException {
-            byte[] bytes = new byte[1];
-            int n = read(bytes, 0, 1);
-            if (n == -1) {
-                return -1;
+            lock.lock();
+            try {
+                if (!awaitData()) {
+                    return -1;
+                }
+                int b = buffer.readUnsignedByte();
+                consumed();
+                return b;
+            } finally {
+                lock.unlock();
             }
-            assert n == 1;
-            return bytes[0] & 0xff;
         }
 
         @Override
         public int read(byte[] b, int off, int len) throws IOException {
-            synchronized (monitor) {
-                while (true) {
-                    if (failure != null) {
-                        throw new IOException("Failure in netty event loop", failure);
-                    } else if (buffer == null) {
-                        return -1;
-                    } else if (buffer.isReadable()) {
-                        int read = Math.min(len, buffer.readableBytes());
-                        buffer.readBytes(b, off, read);
-                        buffer.discardSomeReadBytes();
-                        return read;
-                    } else if (done) {
-                        buffer.release();
-                        buffer = null;
-                    } else {
-                        triggerUpstreamRead();
-                        checkNotOnEventLoop();
-                        try {
-                            monitor.wait();
-                        } catch (InterruptedException e) {
-                            throw new InterruptedIOException();
-                        }
-                    }
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            lock.lock();
+            try {
+                if (!awaitData()) {
+                    return -1;
                 }
+                int read = Math.min(len, buffer.readableBytes());
+                buffer.readBytes(b, off, read);
+                consumed();
+                return read;
+            } finally {
+                lock.unlock();
             }
         }
 
         @Override
         public int available() throws IOException {
-            synchronized (monitor) {
+            lock.lock();
+            try {
                 if (buffer == null) {
                     return 0;
                 }
                 return buffer.readableBytes();
+            } finally {
+                lock.unlock();
             }
         }
 
         @Override
         public void close() throws IOException {
+            if (publisher != null) {
+                // the publisher owns the body now
+                return;
+            }
             removeEarly();
         }
     }
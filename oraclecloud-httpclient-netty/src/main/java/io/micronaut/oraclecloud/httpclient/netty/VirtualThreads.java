@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.core.annotation.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads. This module is compiled for Java 17, so the Java 21 API is looked
+ * up reflectively.
+ */
+final class VirtualThreads {
+    @Nullable
+    private static final MethodHandle NEW_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+    }
+
+    @Nullable
+    private static MethodHandle lookup() {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            // fails on Java 19 and 20 unless preview features are enabled
+            ((ExecutorService) handle.invokeExact()).shutdown();
+            return handle;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * @return An executor that starts a new virtual thread for each task
+     * @throws UnsupportedOperationException If virtual threads are not supported by this JVM
+     */
+    static ExecutorService newExecutor() {
+        if (NEW_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM", e);
+        }
+    }
+}
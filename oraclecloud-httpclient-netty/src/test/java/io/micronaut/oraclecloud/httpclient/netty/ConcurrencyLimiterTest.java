@@ -0,0 +1,110 @@
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+public class ConcurrencyLimiterTest {
+    private static final long RTT = 1_000_000;
+
+    @Test
+    public void queueAndReject() {
+        ConcurrencyLimiter.Limit limit = new ConcurrencyLimiter(2, 1, 10, 0.5, 2, 1).limit("host", "op");
+        Assertions.assertTrue(limit.acquire().isDone());
+        Assertions.assertTrue(limit.acquire().isDone());
+        CompletableFuture<Void> queued = limit.acquire();
+        Assertions.assertFalse(queued.isDone());
+        Assertions.assertEquals(1, limit.getQueued());
+        Assertions.assertThrows(RejectedExecutionException.class, limit::acquire);
+
+        limit.release(RTT, 200, null);
+        Assertions.assertTrue(queued.isDone());
+        Assertions.assertEquals(0, limit.getQueued());
+        Assertions.assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    public void failFastWithoutQueue() {
+        ConcurrencyLimiter.Limit limit = new ConcurrencyLimiter(1, 1, 10, 0.5, 2, 0).limit("host", "op");
+        limit.acquire();
+        Assertions.assertThrows(RejectedExecutionException.class, limit::acquire);
+    }
+
+    @Test
+    public void tryAcquireNeverQueues() {
+        ConcurrencyLimiter.Limit limit = new ConcurrencyLimiter(1, 1, 10, 0.5, 2, 1).limit("host", "op");
+        Assertions.assertTrue(limit.tryAcquire());
+        Assertions.assertFalse(limit.tryAcquire());
+        Assertions.assertEquals(0, limit.getQueued());
+
+        limit.release(RTT, 200, null);
+        Assertions.assertTrue(limit.tryAcquire());
+        Assertions.assertEquals(1, limit.getInFlight());
+    }
+
+    @Test
+    public void growsWhileBusy() {
+        ConcurrencyLimiter.Limit limit = new ConcurrencyLimiter(4, 1, 6, 0.5, 2, 0).limit("host", "op");
+        for (int i = 0; i < 10; i++) {
+            List<CompletableFuture<Void>> permits = new ArrayList<>();
+            for (int j = 0; j < limit.getLimit(); j++) {
+                permits.add(limit.acquire());
+            }
+            for (int j = 0; j < permits.size(); j++) {
+                limit.release(RTT, 200, null);
+            }
+        }
+        Assertions.assertEquals(6, limit.getLimit());
+    }
+
+    @Test
+    public void shrinksOnThrottling() {
+        ConcurrencyLimiter.Limit limit = new ConcurrencyLimiter(8, 1, 10, 0.5, 2, 0).limit("host", "op");
+        for (int i = 0; i < 8; i++) {
+            limit.acquire();
+        }
+        // a burst of 429s only halves the limit once
+        for (int i = 0; i < 8; i++) {
+            limit.release(RTT, 429, null);
+        }
+        Assertions.assertEquals(4, limit.getLimit());
+
+        limit.acquire();
+        limit.release(RTT, -1, ReadTimeoutException.INSTANCE);
+        Assertions.assertEquals(2, limit.getLimit());
+        limit.acquire();
+        limit.release(RTT, 503, null);
+        Assertions.assertEquals(1, limit.getLimit());
+    }
+
+    @Test
+    public void shrinksOnRisingLatency() {
+        ConcurrencyLimiter.Limit limit = new ConcurrencyLimiter(4, 1, 4, 0.5, 2, 0).limit("host", "op");
+        for (int i = 0; i < 100; i++) {
+            limit.acquire();
+            limit.release(RTT, 200, null);
+        }
+        Assertions.assertEquals(4, limit.getLimit());
+        for (int i = 0; i < 20; i++) {
+            limit.acquire();
+            limit.release(RTT * 10, 200, null);
+        }
+        Assertions.assertTrue(limit.getLimit() < 4);
+    }
+
+    @Test
+    public void separateLimitsPerOperation() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10, 0.5, 2, 0);
+        List<String> created = new ArrayList<>();
+        limiter.onLimitCreated(l -> created.add(l.getOperation()));
+        limiter.limit("host", "a").acquire();
+        Assertions.assertTrue(limiter.limit("host", "b").acquire().isDone());
+        Assertions.assertSame(limiter.limit("host", "a"), limiter.limit("host", "a"));
+        Assertions.assertEquals(List.of("a", "b"), created);
+    }
+}
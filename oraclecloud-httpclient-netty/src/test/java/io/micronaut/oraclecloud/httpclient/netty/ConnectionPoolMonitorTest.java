@@ -0,0 +1,85 @@
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ConnectionPoolMonitorTest {
+    @Test
+    public void countsConnections() {
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(Duration.ofSeconds(1));
+        List<ConnectionPoolMonitor.Endpoint> created = new ArrayList<>();
+        monitor.onEndpointCreated(created::add);
+        ConnectionPoolMonitor.Endpoint endpoint = monitor.endpoint("host");
+        Assertions.assertSame(endpoint, monitor.endpoint("host"));
+        Assertions.assertEquals(List.of(endpoint), created);
+
+        List<Boolean> acquisitions = new ArrayList<>();
+        endpoint.addListener(new ConnectionPoolMonitor.EndpointListener() {
+            @Override
+            public void onAcquire(long waitNanos, boolean newConnection) {
+                Assertions.assertTrue(waitNanos >= 0);
+                acquisitions.add(newConnection);
+            }
+
+            @Override
+            public void onConnect(long connectNanos, long handshakeNanos) {
+                Assertions.fail("No timing without the customizer");
+            }
+        });
+
+        EmbeddedChannel channel = new EmbeddedChannel();
+        long start = endpoint.acquireStarted();
+        Assertions.assertEquals(1, endpoint.getPending());
+        endpoint.acquired(channel, start);
+        endpoint.acquireEnded();
+        endpoint.exchangeStarted();
+        Assertions.assertEquals(0, endpoint.getPending());
+        Assertions.assertEquals(1, endpoint.getActive());
+        Assertions.assertEquals(1, endpoint.getOpen());
+        Assertions.assertEquals(0, endpoint.getIdle());
+
+        endpoint.exchangeEnded();
+        Assertions.assertEquals(1, endpoint.getIdle());
+        endpoint.acquired(channel, endpoint.acquireStarted());
+        endpoint.acquireEnded();
+        Assertions.assertEquals(List.of(true, false), acquisitions);
+        Assertions.assertEquals(2, endpoint.getAcquired());
+        Assertions.assertEquals(1, endpoint.getCreated());
+
+        channel.close();
+        Assertions.assertEquals(0, endpoint.getOpen());
+        Assertions.assertEquals(1, monitor.getEventLoops().size());
+    }
+
+    @Test
+    public void probesEventLoop() throws Exception {
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(Duration.ofMillis(10));
+        DefaultEventLoop loop = new DefaultEventLoop();
+        try {
+            LocalChannel channel = new LocalChannel();
+            loop.register(channel).sync();
+
+            CountDownLatch samples = new CountDownLatch(3);
+            monitor.onEventLoopCreated(probe -> probe.addListener(latency -> samples.countDown()));
+            ConnectionPoolMonitor.Endpoint endpoint = monitor.endpoint("host");
+            endpoint.acquired(channel, endpoint.acquireStarted());
+            Assertions.assertTrue(samples.await(10, TimeUnit.SECONDS));
+
+            ConnectionPoolMonitor.EventLoopProbe probe = monitor.getEventLoops().iterator().next();
+            Assertions.assertEquals(0, probe.getIndex());
+            Assertions.assertTrue(probe.getPendingTasks() >= 0);
+        } finally {
+            monitor.close();
+            loop.shutdownGracefully();
+        }
+    }
+}
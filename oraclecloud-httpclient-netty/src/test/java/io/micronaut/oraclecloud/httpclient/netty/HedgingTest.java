@@ -0,0 +1,194 @@
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.http.client.HttpClient;
+import com.oracle.bmc.http.client.HttpResponse;
+import com.oracle.bmc.http.client.Method;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgingTest {
+    private static final String OPERATION = "ObjectStorageClient.getObject";
+
+    private final AtomicInteger slowRequests = new AtomicInteger();
+    private final AtomicInteger delayedRequests = new AtomicInteger();
+    private final Set<Channel> stalled = ConcurrentHashMap.newKeySet();
+
+    private NioEventLoopGroup group;
+    private Channel serverChannel;
+    private URI endpoint;
+
+    @BeforeEach
+    public void setUp() {
+        group = new NioEventLoopGroup(1);
+        serverChannel = new ServerBootstrap()
+            .channel(NioServerSocketChannel.class)
+            .group(group)
+            .localAddress("127.0.0.1", 0)
+            .childHandler(new ChannelInitializer<>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline()
+                        .addLast(new HttpServerCodec())
+                        .addLast(new HttpObjectAggregator(4096))
+                        .addLast(new RequestHandler());
+                }
+            })
+            .bind().syncUninterruptibly().channel();
+        InetSocketAddress addr = (InetSocketAddress) serverChannel.localAddress();
+        endpoint = URI.create("http://" + addr.getHostString() + ":" + addr.getPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        serverChannel.close();
+        group.shutdownGracefully();
+    }
+
+    private static String get(HttpClient client, String path, String operation) throws Exception {
+        try (HttpResponse response = client.createRequest(Method.GET)
+            .appendPathPart(path)
+            .attribute(NettyClientProperties.CLASS_AND_METHOD_KEY_NAME, operation)
+            .execute().toCompletableFuture().get(10, TimeUnit.SECONDS)) {
+            return response.textBody().toCompletableFuture().get();
+        }
+    }
+
+    @Test
+    public void slowRequestIsHedged() throws Exception {
+        HedgingPolicy policy = new HedgingPolicy(Set.of(OPERATION), 0.5, Duration.ofMillis(1), 1);
+        try (HttpClient client = new NettyHttpProvider().newBuilder()
+            .baseUri(endpoint)
+            .property(NettyClientProperties.HEDGING_POLICY, policy)
+            .build()) {
+            // collect enough latency samples for the policy to compute a delay
+            for (int i = 0; i < 16; i++) {
+                Assertions.assertEquals("fast", get(client, "fast", OPERATION));
+            }
+            Assertions.assertEquals(0, policy.getHedgesFired(OPERATION));
+
+            // the server never answers the first request to /slow, only the hedge
+            Assertions.assertEquals("second", get(client, "slow", OPERATION));
+            Assertions.assertEquals(2, slowRequests.get());
+            Assertions.assertEquals(1, policy.getHedgesFired(OPERATION));
+            Assertions.assertEquals(1, policy.getHedgesWon(OPERATION));
+
+            // the connection of the losing request is closed
+            for (int i = 0; i < 50 && stalled.stream().anyMatch(Channel::isActive); i++) {
+                Thread.sleep(100);
+            }
+            Assertions.assertTrue(stalled.stream().noneMatch(Channel::isActive));
+        }
+    }
+
+    @Test
+    public void otherOperationsAreNotHedged() throws Exception {
+        HedgingPolicy policy = new HedgingPolicy(Set.of(OPERATION), 0.5, Duration.ofMillis(1), 1);
+        try (HttpClient client = new NettyHttpProvider().newBuilder()
+            .baseUri(endpoint)
+            .property(NettyClientProperties.HEDGING_POLICY, policy)
+            .build()) {
+            for (int i = 0; i < 16; i++) {
+                Assertions.assertEquals("fast", get(client, "fast", "ObjectStorageClient.listObjects"));
+            }
+            Assertions.assertEquals("delayed", get(client, "delayed", "ObjectStorageClient.listObjects"));
+            Assertions.assertEquals(1, delayedRequests.get());
+        }
+    }
+
+    @Test
+    public void saturatedLimiterSkipsHedge() throws Exception {
+        HedgingPolicy policy = new HedgingPolicy(Set.of(OPERATION), 0.5, Duration.ofMillis(1), 1);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, 0.5, 1000, 10);
+        try (HttpClient client = new NettyHttpProvider().newBuilder()
+            .baseUri(endpoint)
+            .property(NettyClientProperties.HEDGING_POLICY, policy)
+            .property(NettyClientProperties.CONCURRENCY_LIMITER, limiter)
+            .build()) {
+            for (int i = 0; i < 16; i++) {
+                Assertions.assertEquals("fast", get(client, "fast", OPERATION));
+            }
+            // the original request holds the only permit, so there is none for a hedge
+            Assertions.assertEquals("delayed", get(client, "delayed", OPERATION));
+            Assertions.assertEquals(1, delayedRequests.get());
+            Assertions.assertEquals(0, policy.getHedgesFired(OPERATION));
+        }
+    }
+
+    @Test
+    public void budgetIsReservedAtomically() throws Exception {
+        HedgingPolicy.OperationStats stats = new HedgingPolicy(Set.of(OPERATION), 0.5, Duration.ofMillis(1), 0.5).stats(OPERATION);
+        stats.requests.add(100);
+        AtomicInteger granted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 20; j++) {
+                    if (stats.tryHedge()) {
+                        granted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(50, granted.get());
+        Assertions.assertEquals(50, stats.hedges.get());
+    }
+
+    private class RequestHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            switch (request.uri()) {
+                case "/fast" -> respond(ctx, "fast");
+                case "/slow" -> {
+                    if (slowRequests.incrementAndGet() == 1) {
+                        stalled.add(ctx.channel());
+                    } else {
+                        respond(ctx, "second");
+                    }
+                }
+                case "/delayed" -> {
+                    delayedRequests.incrementAndGet();
+                    ctx.executor().schedule(() -> respond(ctx, "delayed"), 200, TimeUnit.MILLISECONDS);
+                }
+                default -> throw new AssertionError("Unexpected request: " + request.uri());
+            }
+        }
+
+        private static void respond(ChannelHandlerContext ctx, String body) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(body.getBytes(StandardCharsets.UTF_8)));
+            NettyTest.computeContentLength(response);
+            ctx.writeAndFlush(response);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.http.client.HttpClient;
+import com.oracle.bmc.http.client.HttpProvider;
+import com.oracle.bmc.http.client.HttpResponse;
+import com.oracle.bmc.http.client.Method;
+import io.micronaut.context.ApplicationContext;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class Http2Test {
+    private static final int CONCURRENT_REQUESTS = 16;
+    private static final int LARGE_BODY_SIZE = 4 * 1024 * 1024;
+
+    private final Set<Channel> connections = ConcurrentHashMap.newKeySet();
+    private final List<ChannelHandlerContext> pendingConcurrent = new ArrayList<>();
+    private final Set<String> negotiatedProtocols = ConcurrentHashMap.newKeySet();
+
+    private ApplicationContext ctx;
+    private NioEventLoopGroup group;
+    private Channel serverChannel;
+    private URI endpoint;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ctx = ApplicationContext.run(Map.of(
+            "micronaut.http.services.oci.ssl.insecure-trust-all-certificates", true
+        ));
+
+        SelfSignedCertificate ssc = new SelfSignedCertificate();
+        SslContext sslContext = SslContextBuilder.forServer(ssc.certificate(), ssc.privateKey())
+            .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+            .applicationProtocolConfig(new ApplicationProtocolConfig(
+                ApplicationProtocolConfig.Protocol.ALPN,
+                ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1))
+            .build();
+
+        group = new NioEventLoopGroup(1);
+        serverChannel = new ServerBootstrap()
+            .channel(NioServerSocketChannel.class)
+            .group(group)
+            .localAddress("127.0.0.1", 0)
+            .childHandler(new ChannelInitializer<>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    connections.add(ch);
+                    ch.pipeline()
+                        .addLast(sslContext.newHandler(ch.alloc()))
+                        .addLast(new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                            @Override
+                            protected void configurePipeline(ChannelHandlerContext ctx, String protocol) {
+                                negotiatedProtocols.add(protocol);
+                                if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                                    ctx.pipeline()
+                                        .addLast(Http2FrameCodecBuilder.forServer().build())
+                                        .addLast(new Http2MultiplexHandler(new ChannelInitializer<>() {
+                                            @Override
+                                            protected void initChannel(Channel stream) {
+                                                stream.pipeline()
+                                                    .addLast(new Http2StreamFrameToHttpObjectCodec(true))
+                                                    .addLast(new HttpObjectAggregator(LARGE_BODY_SIZE * 2))
+                                                    .addLast(new RequestHandler());
+                                            }
+                                        }));
+                                } else {
+                                    ctx.pipeline()
+                                        .addLast(new HttpServerCodec())
+                                        .addLast(new HttpObjectAggregator(LARGE_BODY_SIZE * 2))
+                                        .addLast(new RequestHandler());
+                                }
+                            }
+                        });
+                }
+            })
+            .bind().syncUninterruptibly().channel();
+        InetSocketAddress addr = (InetSocketAddress) serverChannel.localAddress();
+        endpoint = URI.create("https://localhost:" + addr.getPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        serverChannel.close();
+        group.shutdownGracefully();
+        ctx.close();
+    }
+
+    private HttpClient client(boolean http2) {
+        return ctx.getBean(HttpProvider.class).newBuilder()
+            .baseUri(endpoint)
+            .property(NettyClientProperties.HTTP2, http2)
+            .build();
+    }
+
+    @Test
+    public void multiplexedRequests() throws Exception {
+        try (HttpClient client = client(true)) {
+            // establish the connection first
+            try (HttpResponse response = client.createRequest(Method.GET).appendPathPart("small").execute().toCompletableFuture().get()) {
+                Assertions.assertEquals("ok", response.textBody().toCompletableFuture().get());
+            }
+
+            // the server only responds once all requests have arrived, so they must be in flight concurrently
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                futures.add(client.createRequest(Method.GET).appendPathPart("concurrent").execute().toCompletableFuture()
+                    .thenCompose(r -> r.textBody().whenComplete((s, t) -> r.close())));
+            }
+            for (CompletableFuture<String> future : futures) {
+                Assertions.assertEquals("ok", future.get(10, TimeUnit.SECONDS));
+            }
+        }
+        Assertions.assertEquals(Set.of(ApplicationProtocolNames.HTTP_2), negotiatedProtocols);
+        Assertions.assertEquals(1, connections.size());
+    }
+
+    @Test
+    public void largeDownload() throws Exception {
+        try (HttpClient client = client(true);
+             HttpResponse response = client.createRequest(Method.GET).appendPathPart("download").execute().toCompletableFuture().get();
+             InputStream stream = response.streamBody().toCompletableFuture().get()) {
+            // larger than the default flow control window, so this needs WINDOW_UPDATEs
+            byte[] body = stream.readAllBytes();
+            Assertions.assertEquals(LARGE_BODY_SIZE, body.length);
+            for (int i = 0; i < body.length; i++) {
+                Assertions.assertEquals((byte) i, body[i]);
+            }
+        }
+        Assertions.assertEquals(Set.of(ApplicationProtocolNames.HTTP_2), negotiatedProtocols);
+    }
+
+    @Test
+    public void largeStreamedUpload() throws Exception {
+        byte[] data = new byte[LARGE_BODY_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        try (HttpClient client = client(true);
+             HttpResponse response = client.createRequest(Method.PUT)
+                 .appendPathPart("upload")
+                 .body(new ByteArrayInputStream(data), data.length)
+                 .execute().toCompletableFuture().get()) {
+            Assertions.assertEquals(String.valueOf(LARGE_BODY_SIZE), response.textBody().toCompletableFuture().get());
+        }
+        Assertions.assertEquals(Set.of(ApplicationProtocolNames.HTTP_2), negotiatedProtocols);
+    }
+
+    @Test
+    public void http1WhenDisabled() throws Exception {
+        try (HttpClient client = client(false);
+             HttpResponse response = client.createRequest(Method.GET).appendPathPart("small").execute().toCompletableFuture().get()) {
+            Assertions.assertEquals("ok", response.textBody().toCompletableFuture().get());
+        }
+        Assertions.assertEquals(Set.of(ApplicationProtocolNames.HTTP_1_1), negotiatedProtocols);
+    }
+
+    private class RequestHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            switch (request.uri()) {
+                case "/small" -> respond(ctx, "ok".getBytes(StandardCharsets.UTF_8));
+                case "/concurrent" -> {
+                    List<ChannelHandlerContext> ready = null;
+                    synchronized (pendingConcurrent) {
+                        pendingConcurrent.add(ctx);
+                        if (pendingConcurrent.size() == CONCURRENT_REQUESTS) {
+                            ready = new ArrayList<>(pendingConcurrent);
+                            pendingConcurrent.clear();
+                        }
+                    }
+                    if (ready != null) {
+                        for (ChannelHandlerContext c : ready) {
+                            respond(c, "ok".getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                }
+                case "/download" -> {
+                    byte[] body = new byte[LARGE_BODY_SIZE];
+                    for (int i = 0; i < body.length; i++) {
+                        body[i] = (byte) i;
+                    }
+                    respond(ctx, body);
+                }
+                case "/upload" -> respond(ctx, String.valueOf(request.content().readableBytes()).getBytes(StandardCharsets.UTF_8));
+                default -> throw new AssertionError("Unexpected request: " + request.uri());
+            }
+        }
+
+        private static void respond(ChannelHandlerContext ctx, byte[] body) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(body));
+            NettyTest.computeContentLength(response);
+            ctx.writeAndFlush(response);
+        }
+    }
+}
@@ -18,6 +18,9 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -54,6 +57,45 @@ public class LargeTransferTest {
         }
     }
 
+    @Test
+    public void fileUpload() throws Exception {
+        long count = 1_000_000;
+        Path file = Files.createTempFile("large-transfer", ".bin");
+        try (ApplicationContext ctx = ApplicationContext.run(Map.of(
+            "spec.name", "LargeTransferTest",
+            "micronaut.server.ssl.enabled", true,
+            "micronaut.server.ssl.port", -1,
+            "micronaut.server.ssl.build-self-signed", true,
+            "micronaut.server.max-request-size", count * 2,
+            "micronaut.http.client.ssl.insecure-trust-all-certificates", true
+        ));
+             EmbeddedServer server = ctx.getBean(EmbeddedServer.class)) {
+            try (InputStream in = new LongInputStream(count)) {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            server.start();
+
+            // over TLS, the file can't be handed to the socket directly and goes through ChunkedNioFile
+            try (HttpClient client = ctx.getBean(HttpProvider.class).newBuilder()
+                .property(StandardClientProperties.BUFFER_REQUEST, false)
+                .baseUri(server.getURI())
+                .build()) {
+
+                long responded = client.createRequest(Method.POST)
+                    .appendPathPart("/count")
+                    .body(file)
+                    .header("Accept", "application/json")
+                    .execute().toCompletableFuture()
+                    .get(1, TimeUnit.MINUTES)
+                    .body(Long.class).toCompletableFuture()
+                    .get(1, TimeUnit.MINUTES);
+                Assertions.assertEquals(count, responded);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
     private static class LongInputStream extends InputStream {
         private long remaining;
 
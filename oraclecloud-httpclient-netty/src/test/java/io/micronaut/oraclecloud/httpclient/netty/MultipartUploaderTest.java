@@ -0,0 +1,223 @@
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.Region;
+import com.oracle.bmc.auth.SimpleAuthenticationDetailsProvider;
+import com.oracle.bmc.http.client.HttpProvider;
+import com.oracle.bmc.model.BmcException;
+import com.oracle.bmc.objectstorage.ObjectStorageAsyncClient;
+import com.oracle.bmc.objectstorage.responses.CommitMultipartUploadResponse;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Delete;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.Put;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultipartUploaderTest {
+    private static final int PART_SIZE = 100_000;
+
+    private ApplicationContext ctx;
+    private EmbeddedServer server;
+    private ObjectStorageStub stub;
+    private ObjectStorageAsyncClient client;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ctx = ApplicationContext.run(Map.of("spec.name", "MultipartUploaderTest"));
+        server = ctx.getBean(EmbeddedServer.class);
+        server.start();
+        stub = ctx.getBean(ObjectStorageStub.class);
+        executor = Executors.newCachedThreadPool();
+
+        SelfSignedCertificate ssc = new SelfSignedCertificate();
+        client = ObjectStorageAsyncClient.builder()
+            .httpProvider(ctx.getBean(HttpProvider.class))
+            .endpoint(server.getURI().toString())
+            .build(SimpleAuthenticationDetailsProvider.builder()
+                .tenantId("tenantId")
+                .userId("userId")
+                .fingerprint("fingerprint")
+                .passPhrase("")
+                .region(Region.US_PHOENIX_1)
+                .privateKeySupplier(() -> {
+                    try {
+                        return new FileInputStream(ssc.privateKey());
+                    } catch (FileNotFoundException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        executor.shutdown();
+        ctx.close();
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    @Test
+    public void fileUpload() throws Exception {
+        byte[] data = data(PART_SIZE * 5 / 2);
+        Path file = Files.createTempFile("multipart", ".bin");
+        try {
+            Files.write(file, data);
+            // the first attempt of the second part fails, and is retried on its own
+            stub.failPart(2, 1);
+
+            CommitMultipartUploadResponse response = new MultipartUploader(client, PART_SIZE, 2, 3, executor)
+                .upload("ns", "bucket", "obj", file)
+                .get(1, TimeUnit.MINUTES);
+
+            Assertions.assertEquals("committed-etag", response.getETag());
+            Assertions.assertArrayEquals(data, stub.committed.get("obj"));
+            Assertions.assertEquals(List.of(1, 2, 3), stub.committedParts.get("obj"));
+            Assertions.assertEquals(4, stub.partAttempts.get());
+            Assertions.assertTrue(stub.maxConcurrentParts.get() <= 2);
+            Assertions.assertTrue(stub.aborted.isEmpty());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void streamUpload() throws Exception {
+        byte[] data = data(PART_SIZE * 3);
+
+        new MultipartUploader(client, PART_SIZE, 4, 3, executor)
+            .upload("ns", "bucket", "obj", new ByteArrayInputStream(data))
+            .get(1, TimeUnit.MINUTES);
+
+        Assertions.assertArrayEquals(data, stub.committed.get("obj"));
+        Assertions.assertEquals(List.of(1, 2, 3), stub.committedParts.get("obj"));
+    }
+
+    @Test
+    public void abortAfterRetries() {
+        stub.failPart(2, Integer.MAX_VALUE);
+
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> new MultipartUploader(client, PART_SIZE, 2, 2, executor)
+            .upload("ns", "bucket", "obj", new ByteArrayInputStream(data(PART_SIZE * 3)))
+            .get(1, TimeUnit.MINUTES));
+
+        Assertions.assertInstanceOf(BmcException.class, e.getCause());
+        Assertions.assertEquals(503, ((BmcException) e.getCause()).getStatusCode());
+        Assertions.assertEquals(Set.of("obj"), stub.aborted);
+        Assertions.assertFalse(stub.committed.containsKey("obj"));
+    }
+
+    @Controller("/n/{namespaceName}/b/{bucketName}/u")
+    @Requires(property = "spec.name", value = "MultipartUploaderTest")
+    public static class ObjectStorageStub {
+        final Map<String, Map<Integer, byte[]>> parts = new ConcurrentHashMap<>();
+        final Map<String, byte[]> committed = new ConcurrentHashMap<>();
+        final Map<String, List<Integer>> committedParts = new ConcurrentHashMap<>();
+        final Set<String> aborted = ConcurrentHashMap.newKeySet();
+
+        final AtomicInteger partAttempts = new AtomicInteger();
+        final AtomicInteger concurrentParts = new AtomicInteger();
+        final AtomicInteger maxConcurrentParts = new AtomicInteger();
+        private final Map<Integer, AtomicInteger> failures = new ConcurrentHashMap<>();
+
+        void failPart(int partNum, int times) {
+            failures.put(partNum, new AtomicInteger(times));
+        }
+
+        @Post
+        Map<String, Object> create(String namespaceName, String bucketName, @Body Map<String, Object> details) {
+            String object = (String) details.get("object");
+            parts.put(object, new ConcurrentHashMap<>());
+            return Map.of(
+                "namespace", namespaceName,
+                "bucket", bucketName,
+                "object", object,
+                "uploadId", object
+            );
+        }
+
+        @Put("/{objectName}")
+        HttpResponse<?> uploadPart(String objectName, @QueryValue String uploadId, @QueryValue int uploadPartNum, @Header("Content-MD5") String md5, @Body byte[] body) throws Exception {
+            partAttempts.incrementAndGet();
+            maxConcurrentParts.accumulateAndGet(concurrentParts.incrementAndGet(), Math::max);
+            try {
+                AtomicInteger remainingFailures = failures.get(uploadPartNum);
+                if (remainingFailures != null && remainingFailures.getAndDecrement() > 0) {
+                    return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+                }
+                String actual = Base64.getEncoder().encodeToString(MessageDigest.getInstance("MD5").digest(body));
+                if (!actual.equals(md5)) {
+                    return HttpResponse.badRequest();
+                }
+                parts.get(uploadId).put(uploadPartNum, body);
+                return HttpResponse.ok()
+                    .header("ETag", "etag-" + uploadPartNum)
+                    .header("opc-content-md5", actual);
+            } finally {
+                concurrentParts.decrementAndGet();
+            }
+        }
+
+        @Post("/{objectName}")
+        HttpResponse<?> commit(String objectName, @QueryValue String uploadId, @Body Map<String, Object> details) {
+            Map<Integer, byte[]> uploaded = parts.get(uploadId);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            List<Integer> numbers = new ArrayList<>();
+            for (Object part : (List<?>) details.get("partsToCommit")) {
+                Map<?, ?> p = (Map<?, ?>) part;
+                int number = ((Number) p.get("partNum")).intValue();
+                Assertions.assertEquals("etag-" + number, p.get("etag"));
+                numbers.add(number);
+                out.writeBytes(uploaded.get(number));
+            }
+            committed.put(objectName, out.toByteArray());
+            committedParts.put(objectName, numbers);
+            return HttpResponse.ok().header("ETag", "committed-etag");
+        }
+
+        @Delete("/{objectName}")
+        HttpResponse<?> abort(String objectName, @QueryValue String uploadId) {
+            aborted.add(objectName);
+            return HttpResponse.noContent();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.micronaut.context.ApplicationContext;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NettyClientWarmupTest {
+    private final AtomicInteger handshakes = new AtomicInteger();
+
+    private NioEventLoopGroup group;
+    private Channel serverChannel;
+    private URI endpoint;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        SelfSignedCertificate ssc = new SelfSignedCertificate();
+        SslContext sslContext = SslContextBuilder.forServer(ssc.certificate(), ssc.privateKey()).build();
+
+        group = new NioEventLoopGroup(1);
+        serverChannel = new ServerBootstrap()
+            .channel(NioServerSocketChannel.class)
+            .group(group)
+            .localAddress("127.0.0.1", 0)
+            .childHandler(new ChannelInitializer<>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    SslHandler sslHandler = sslContext.newHandler(ch.alloc());
+                    sslHandler.handshakeFuture().addListener(f -> {
+                        if (f.isSuccess()) {
+                            handshakes.incrementAndGet();
+                        }
+                    });
+                    ch.pipeline().addLast(sslHandler).addLast(new HttpServerCodec());
+                }
+            })
+            .bind().syncUninterruptibly().channel();
+        InetSocketAddress addr = (InetSocketAddress) serverChannel.localAddress();
+        endpoint = URI.create("https://localhost:" + addr.getPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        serverChannel.close();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void connectionsOpenedOnStartup() throws InterruptedException {
+        try (ApplicationContext ctx = ApplicationContext.run(Map.of(
+            "micronaut.http.services.oci.ssl.insecure-trust-all-certificates", true,
+            "oci.netty.warmup.enabled", true,
+            "oci.netty.warmup.endpoints", endpoint.toString(),
+            "oci.netty.warmup.connections", 3
+        ))) {
+            // startup waits for the warmup. The server side of the handshake may finish slightly later
+            for (int i = 0; i < 50 && handshakes.get() < 3; i++) {
+                Thread.sleep(100);
+            }
+            Assertions.assertEquals(3, handshakes.get());
+            Assertions.assertNotNull(ctx.getBean(NettyClientWarmup.class).getDuration(endpoint));
+        }
+    }
+
+    @Test
+    public void disabledByDefault() {
+        try (ApplicationContext ctx = ApplicationContext.run(Map.of(
+            "oci.netty.warmup.endpoints", endpoint.toString()
+        ))) {
+            Assertions.assertFalse(ctx.containsBean(NettyClientWarmup.class));
+            Assertions.assertEquals(0, handshakes.get());
+        }
+    }
+}
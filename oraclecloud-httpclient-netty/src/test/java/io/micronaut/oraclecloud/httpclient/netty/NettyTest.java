@@ -3,30 +3,46 @@ package io.micronaut.oraclecloud.httpclient.netty;
 import com.oracle.bmc.Region;
 import com.oracle.bmc.auth.SimpleAuthenticationDetailsProvider;
 import com.oracle.bmc.http.client.HttpClient;
+import com.oracle.bmc.http.client.HttpClientBuilder;
 import com.oracle.bmc.http.client.HttpProvider;
+import com.oracle.bmc.http.client.HttpRequest;
 import com.oracle.bmc.http.client.HttpResponse;
 import com.oracle.bmc.http.client.Method;
+import com.oracle.bmc.http.client.Serializer;
 import com.oracle.bmc.http.client.StandardClientProperties;
 import com.oracle.bmc.http.client.io.DuplicatableInputStream;
 import com.oracle.bmc.monitoring.MonitoringClient;
 import com.oracle.bmc.monitoring.requests.DeleteAlarmRequest;
+import com.oracle.bmc.objectstorage.ObjectStorageClient;
+import com.oracle.bmc.objectstorage.requests.GetObjectRequest;
+import com.oracle.bmc.objectstorage.responses.GetObjectResponse;
 import com.oracle.bmc.streaming.model.PutMessagesDetails;
 import com.oracle.bmc.streaming.model.PutMessagesDetailsEntry;
 import com.oracle.bmc.streaming.model.PutMessagesResult;
 import io.micronaut.serde.annotation.Serdeable;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.ssl.util.SelfSignedCertificate;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import reactor.core.publisher.Flux;
 
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
@@ -34,12 +50,25 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static io.micronaut.oraclecloud.httpclient.netty.NettyClientProperties.OCI_NETTY_CLIENT_FILTERS_KEY;
 
@@ -183,6 +212,44 @@ public class NettyTest {
         }
     }
 
+    @Test
+    public void streamingWithVirtualThreads() throws Exception {
+        Assumptions.assumeTrue(VirtualThreads.isSupported());
+
+        netty.aggregate = false;
+        netty.handleOneRequest((ctx, request) -> {
+            Assertions.assertEquals("3", request.headers().get("content-length"));
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer("bar".getBytes(StandardCharsets.UTF_8)));
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+
+        Set<String> readerThreads = new HashSet<>();
+        InputStream body = new ByteArrayInputStream("xyz".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                readerThreads.add(Thread.currentThread().getClass().getName());
+                return super.read(b, off, len);
+            }
+        };
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(StandardClientProperties.BUFFER_REQUEST, false)
+            .property(NettyClientProperties.VIRTUAL_THREADS, true)
+            .build()) {
+            try (HttpResponse response = client.createRequest(Method.POST)
+                .appendPathPart("foo")
+                .body(body, 3)
+                .execute().toCompletableFuture()
+                .get();
+                 InputStream stream = response.streamBody().toCompletableFuture().get()) {
+                Assertions.assertEquals("bar", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        Assertions.assertEquals(Set.of("java.lang.VirtualThread"), readerThreads);
+    }
+
     @Test
     public void streamingRequestBufferedKnownSize() throws Exception {
         netty.handleOneRequest((ctx, request) -> {
@@ -313,6 +380,57 @@ public class NettyTest {
         }
     }
 
+    @Test
+    public void bufferedFileSliceEndsWithSlice() throws Exception {
+        Path file = Files.createTempFile("slice", ".txt");
+        try {
+            Files.writeString(file, "a".repeat(500) + "b".repeat(1000) + "c".repeat(500));
+            Set<Channel> channels = new HashSet<>();
+            netty.channelCustomizer = channels::add;
+            netty.handleOneRequest((ctx, request) -> {
+                Assertions.assertEquals(HttpMethod.PUT, request.method());
+                Assertions.assertEquals(1000, request.headers().getInt("content-length"));
+                Assertions.assertEquals("b".repeat(1000), ((FullHttpRequest) request).content().toString(StandardCharsets.UTF_8));
+
+                DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+                computeContentLength(response);
+                ctx.writeAndFlush(response);
+            });
+            // any bytes after the slice would be parsed as the head of this request
+            netty.handleOneRequest((ctx, request) -> {
+                Assertions.assertEquals(HttpMethod.GET, request.method());
+                Assertions.assertEquals("/bar", request.uri());
+
+                DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+                computeContentLength(response);
+                ctx.writeAndFlush(response);
+            });
+
+            try (HttpClient client = provider().newBuilder()
+                .baseUri(netty.getEndpoint())
+                .property(StandardClientProperties.BUFFER_REQUEST, true)
+                .build()) {
+                try (InputStream body = FileBody.Slice.open(file, 500, 1000);
+                     HttpResponse response = client.createRequest(Method.PUT)
+                         .appendPathPart("foo")
+                         .body(body, 1000)
+                         .execute().toCompletableFuture()
+                         .get()) {
+                    Assertions.assertEquals(200, response.status());
+                }
+                try (HttpResponse response = client.createRequest(Method.GET)
+                    .appendPathPart("bar")
+                    .execute().toCompletableFuture()
+                    .get()) {
+                    Assertions.assertEquals(200, response.status());
+                }
+            }
+            Assertions.assertEquals(1, channels.size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
     @Test
     public void continueStream() throws Exception {
         netty.handleContinue = true;
@@ -454,6 +572,83 @@ public class NettyTest {
         }
     }
 
+    @Test
+    public void sdkClientResolvesOperation() throws Exception {
+        SelfSignedCertificate ssc = new SelfSignedCertificate();
+
+        netty.handleOneRequest((ctx, request) -> {
+            Assertions.assertEquals(HttpMethod.GET, request.method());
+            Assertions.assertEquals("/n/ns/b/bucket/o/obj", request.uri());
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8)
+            );
+            response.headers().add("Content-Type", "application/octet-stream");
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+
+        List<Object> operations = new CopyOnWriteArrayList<>();
+        HttpProvider provider = new HttpProvider() {
+            @Override
+            public HttpClientBuilder newBuilder() {
+                HttpClientBuilder builder = PROVIDER.newBuilder();
+                builder.property(NettyClientProperties.OPERATION_BODY_MODE, true);
+                builder.property(OCI_NETTY_CLIENT_FILTERS_KEY, List.of(new OciNettyClientFilter<>() {
+                    @Override
+                    public Object beforeRequest(HttpRequest request) {
+                        operations.add(request.attribute(NettyClientProperties.CLASS_AND_METHOD_KEY_NAME));
+                        return new Object();
+                    }
+
+                    @Override
+                    public HttpResponse afterResponse(HttpRequest request, HttpResponse response, Throwable throwable, Object context) {
+                        return response;
+                    }
+                }));
+                return builder;
+            }
+
+            @Override
+            public Serializer getSerializer() {
+                return PROVIDER.getSerializer();
+            }
+        };
+
+        try (ObjectStorageClient objectStorageClient = ObjectStorageClient.builder()
+            .httpProvider(provider)
+            .endpoint(netty.getEndpoint().toString())
+            .build(SimpleAuthenticationDetailsProvider.builder()
+                .tenantId("tenantId")
+                .userId("userId")
+                .fingerprint("fingerprint")
+                .passPhrase("")
+                .region(Region.US_PHOENIX_1)
+                .privateKeySupplier(() -> {
+                    try {
+                        return new FileInputStream(ssc.privateKey());
+                    } catch (FileNotFoundException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .build())) {
+
+            GetObjectResponse response = objectStorageClient.getObject(GetObjectRequest.builder()
+                .namespaceName("ns")
+                .bucketName("bucket")
+                .objectName("obj")
+                .build());
+            try (InputStream stream = response.getInputStream()) {
+                Assertions.assertEquals("foo", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        Assertions.assertEquals(List.of("ObjectStorageClient.getObject"), operations);
+        // the stack walk cached the operation, so callers that name it get the same body mode
+        Assertions.assertTrue(SdkCallSite.operation("ObjectStorageClient.getObject").streamsResponse());
+    }
+
     @Test
     public void streamModelTest() throws Exception {
         netty.handleOneRequest((ctx, request) -> {
@@ -488,6 +683,488 @@ public class NettyTest {
         }
     }
 
+    @Test
+    public void directJsonBody() throws Exception {
+        String expectedJson = "{\"messages\":[{\"key\":\"Zm9v\",\"value\":\"YmFy\"}]}";
+        netty.handleOneRequest((ctx, request) -> {
+            Assertions.assertEquals(HttpMethod.POST, request.method());
+            Assertions.assertEquals(expectedJson, ((FullHttpRequest) request).content().toString(StandardCharsets.UTF_8));
+            Assertions.assertEquals(expectedJson.length(), request.headers().getInt("content-length"));
+            Assertions.assertEquals(
+                Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(expectedJson.getBytes(StandardCharsets.UTF_8))),
+                request.headers().get("x-content-sha256"));
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(NettyClientProperties.DIRECT_JSON_BODY, true)
+            .build()) {
+            HttpRequest request = client.createRequest(Method.POST)
+                .body(PutMessagesDetails.builder()
+                    .messages(List.of(PutMessagesDetailsEntry.builder()
+                        .key("foo".getBytes(StandardCharsets.UTF_8))
+                        .value("bar".getBytes(StandardCharsets.UTF_8))
+                        .build()))
+                    .build());
+            // string form is still available for legacy interceptors
+            Assertions.assertEquals(expectedJson, request.body());
+            try (HttpResponse response = request.execute().toCompletableFuture().get()) {
+                Assertions.assertEquals(200, response.status());
+            }
+        }
+    }
+
+    @Test
+    public void streamingSigningSpoolsBody() throws Exception {
+        byte[] data = new byte[100_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        netty.aggregate = false;
+        netty.handleOneRequest((ctx, request) -> {
+            Assertions.assertEquals(data.length, request.headers().getInt("content-length"));
+            Assertions.assertEquals(
+                Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(data)),
+                request.headers().get("x-content-sha256"));
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+
+        Set<Object> signedBodies = new HashSet<>();
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(NettyClientProperties.STREAMING_SIGNING, true)
+            .registerRequestInterceptor(0, request -> {
+                // the signer finds the precomputed headers before it would read the body
+                Assertions.assertNotNull(request.headers().get("x-content-sha256"));
+                signedBodies.add(request.body());
+            })
+            .build()) {
+            try (HttpResponse response = client.createRequest(Method.PUT)
+                .body(new ByteArrayInputStream(data))
+                .execute().toCompletableFuture()
+                .get()) {
+                Assertions.assertEquals(200, response.status());
+            }
+        }
+        Assertions.assertEquals(1, signedBodies.size());
+    }
+
+    @Test
+    public void streamingSigningExemptOperation() throws Exception {
+        netty.aggregate = false;
+        netty.handleOneRequest((ctx, request) -> {
+            Assertions.assertEquals(3, request.headers().getInt("content-length"));
+            Assertions.assertNull(request.headers().get("x-content-sha256"));
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(NettyClientProperties.STREAMING_SIGNING, true)
+            .build()) {
+            try (HttpResponse response = client.createRequest(Method.PUT)
+                .attribute(NettyClientProperties.CLASS_AND_METHOD_KEY_NAME, "ObjectStorageClient.putObject")
+                .body(new ByteArrayInputStream("xyz".getBytes(StandardCharsets.UTF_8)), 3)
+                .execute().toCompletableFuture()
+                .get()) {
+                Assertions.assertEquals(200, response.status());
+            }
+        }
+    }
+
+    @Test
+    public void fileUpload() throws Exception {
+        byte[] data = new byte[4000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Path file = Files.createTempFile("netty-test", ".bin");
+        try {
+            Files.write(file, data);
+            netty.handleOneRequest((ctx, request) -> {
+                Assertions.assertEquals(data.length - 10, request.headers().getInt("content-length"));
+                Assertions.assertArrayEquals(Arrays.copyOfRange(data, 10, data.length), ByteBufUtil.getBytes(((FullHttpRequest) request).content()));
+
+                DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+                computeContentLength(response);
+                ctx.writeAndFlush(response);
+            });
+            netty.handleOneRequest((ctx, request) -> {
+                Assertions.assertArrayEquals(data, ByteBufUtil.getBytes(((FullHttpRequest) request).content()));
+
+                DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+                computeContentLength(response);
+                ctx.writeAndFlush(response);
+            });
+
+            try (HttpClient client = provider().newBuilder()
+                .baseUri(netty.getEndpoint())
+                .property(StandardClientProperties.BUFFER_REQUEST, false)
+                .build()) {
+                // the file is sent from the current position, and the stream is left open
+                try (FileInputStream stream = new FileInputStream(file.toFile())) {
+                    Assertions.assertEquals(10, stream.skip(10));
+                    try (HttpResponse response = client.createRequest(Method.PUT)
+                        .body(stream, data.length - 10)
+                        .execute().toCompletableFuture()
+                        .get()) {
+                        Assertions.assertEquals(200, response.status());
+                    }
+                    Assertions.assertEquals(data[10] & 0xff, stream.read());
+                }
+                try (HttpResponse response = client.createRequest(Method.PUT)
+                    .body(file)
+                    .execute().toCompletableFuture()
+                    .get()) {
+                    Assertions.assertEquals(200, response.status());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void fileRegionDoesNotCloseFile() throws Exception {
+        Path file = Files.createTempFile("netty-test", ".bin");
+        try {
+            Files.write(file, new byte[100]);
+            try (FileInputStream stream = new FileInputStream(file.toFile())) {
+                EmbeddedChannel channel = new EmbeddedChannel();
+                ChannelFuture written = FileBody.of(stream, 100).write(channel, true);
+                FileRegion region = channel.readOutbound();
+                Assertions.assertEquals(100, region.count());
+                region.release();
+                // the file still belongs to the stream, the request closes it once the write is done
+                Assertions.assertTrue(stream.getChannel().isOpen());
+                Assertions.assertTrue(written.isSuccess());
+                channel.finishAndReleaseAll();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void publisherBody() throws Exception {
+        netty.handleOneRequest((ctx, request) -> {
+            Assertions.assertEquals(6, request.headers().getInt("content-length"));
+            Assertions.assertEquals("foobar", ((FullHttpRequest) request).content().toString(StandardCharsets.UTF_8));
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+        netty.handleOneRequest((ctx, request) -> {
+            Assertions.assertEquals(6, request.headers().getInt("content-length"));
+            Assertions.assertEquals("foobar", ((FullHttpRequest) request).content().toString(StandardCharsets.UTF_8));
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        Flux<ByteBuffer> body = Flux.just("foo", "bar")
+            .map(s -> ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8)))
+            .doOnRequest(requests::add);
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(StandardClientProperties.BUFFER_REQUEST, false)
+            .build()) {
+            // streamed, with demand from the channel
+            try (HttpResponse response = client.createRequest(Method.PUT)
+                .body(PublisherInputStream.ofByteBuffers(body), 6)
+                .execute().toCompletableFuture()
+                .get()) {
+                Assertions.assertEquals(200, response.status());
+            }
+            Assertions.assertTrue(requests.stream().allMatch(n -> n == 1), requests::toString);
+
+            // unknown length, collected without blocking first
+            try (HttpResponse response = client.createRequest(Method.PUT)
+                .body(body)
+                .execute().toCompletableFuture()
+                .get()) {
+                Assertions.assertEquals(200, response.status());
+            }
+        }
+    }
+
+    @Test
+    public void publisherStreamSingleBytes() throws Exception {
+        Flux<ByteBuffer> body = Flux.just("a", "", "bc")
+            .map(s -> ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8)));
+        try (PublisherInputStream stream = PublisherInputStream.ofByteBuffers(body)) {
+            Assertions.assertEquals('a', stream.read());
+            Assertions.assertEquals('b', stream.read());
+            byte[] rest = new byte[4];
+            Assertions.assertEquals(1, stream.read(rest, 0, 4));
+            Assertions.assertEquals('c', rest[0]);
+            Assertions.assertEquals(-1, stream.read());
+            Assertions.assertEquals(-1, stream.read(rest, 0, 4));
+        }
+    }
+
+    @Test
+    public void publisherResponseBody() throws Exception {
+        netty.handleOneRequest((ctx, request) -> {
+            DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            response.headers().add(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+            ctx.write(response);
+            ctx.write(new DefaultHttpContent(Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8)));
+            ctx.write(new DefaultHttpContent(Unpooled.copiedBuffer("bar", StandardCharsets.UTF_8)));
+            ctx.writeAndFlush(new DefaultLastHttpContent(Unpooled.copiedBuffer("baz", StandardCharsets.UTF_8)));
+        });
+
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .build()) {
+            try (HttpResponse response = client.createRequest(Method.GET)
+                .execute().toCompletableFuture()
+                .get();
+                 InputStream stream = response.streamBody().toCompletableFuture().get()) {
+                String body = Flux.from(ResponseBodyPublishers.ofByteBuffers(stream))
+                    .limitRate(1)
+                    .map(b -> StandardCharsets.UTF_8.decode(b).toString())
+                    .collect(Collectors.joining())
+                    .block(Duration.ofSeconds(10));
+                Assertions.assertEquals("foobarbaz", body);
+                // the stream was handed over to the publisher
+                Assertions.assertThrows(IOException.class, stream::read);
+            }
+        }
+    }
+
+    @Test
+    public void streamingDecodeList() throws Exception {
+        netty.handleOneRequest((ctx, request) -> {
+            DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            response.headers().add("Content-Type", "application/json");
+            response.headers().add(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+            ctx.write(response);
+            ctx.write(new DefaultHttpContent(Unpooled.copiedBuffer("[{\"s\":\"a\"},", StandardCharsets.UTF_8)));
+            ctx.writeAndFlush(new DefaultLastHttpContent(Unpooled.copiedBuffer("{\"s\":\"b\"}]", StandardCharsets.UTF_8)));
+        });
+
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(NettyClientProperties.STREAMING_DECODE_THRESHOLD, 0L)
+            .build()) {
+            try (HttpResponse response = client.createRequest(Method.GET)
+                .execute().toCompletableFuture()
+                .get()) {
+                List<MyBean> beans = response.listBody(MyBean.class).toCompletableFuture().get();
+                Assertions.assertEquals(2, beans.size());
+                Assertions.assertEquals("a", beans.get(0).getS());
+                Assertions.assertEquals("b", beans.get(1).getS());
+            }
+        }
+    }
+
+    @Test
+    public void limiterHoldsPermitUntilBodyEnds() throws Exception {
+        CompletableFuture<Void> sendRest = new CompletableFuture<>();
+        netty.handleOneRequest((ctx, request) -> {
+            DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            response.headers().add(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+            ctx.write(response);
+            ctx.writeAndFlush(new DefaultHttpContent(Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8)));
+            sendRest.thenRun(() -> ctx.writeAndFlush(new DefaultLastHttpContent(Unpooled.copiedBuffer("bar", StandardCharsets.UTF_8))));
+        });
+
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 10, 0.5, 2, 0);
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(NettyClientProperties.CONCURRENCY_LIMITER, limiter)
+            .build()) {
+            try (HttpResponse response = client.createRequest(Method.GET)
+                .attribute(NettyClientProperties.CLASS_AND_METHOD_KEY_NAME, "ObjectStorageClient.getObject")
+                .execute().toCompletableFuture()
+                .get();
+                 InputStream stream = response.streamBody().toCompletableFuture().get()) {
+                ConcurrencyLimiter.Limit limit = limiter.getLimits().iterator().next();
+                // the response head has arrived, but the body is still being received
+                Assertions.assertEquals(1, limit.getInFlight());
+
+                sendRest.complete(null);
+                Assertions.assertEquals("foobar", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+                for (int i = 0; i < 100 && limit.getInFlight() != 0; i++) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+                Assertions.assertEquals(0, limit.getInFlight());
+            }
+        }
+    }
+
+    @Test
+    public void responseCacheRevalidation() throws Exception {
+        String operation = "ObjectStorageClient.getObject";
+        netty.handleOneRequest((ctx, request) -> {
+            Assertions.assertNull(request.headers().get(HttpHeaderNames.IF_NONE_MATCH));
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer("[\"a\",\"b\"]".getBytes(StandardCharsets.UTF_8)));
+            response.headers().add(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+            response.headers().add(HttpHeaderNames.ETAG, "\"v1\"");
+            response.headers().add("opc-request-id", "1");
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+        netty.handleOneRequest((ctx, request) -> {
+            Assertions.assertEquals("\"v1\"", request.headers().get(HttpHeaderNames.IF_NONE_MATCH));
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_MODIFIED);
+            response.headers().add(HttpHeaderNames.ETAG, "\"v1\"");
+            response.headers().add("opc-request-id", "2");
+            ctx.writeAndFlush(response);
+        });
+
+        ResponseCache cache = new ResponseCache(Set.of(operation), 1024, 1024);
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(NettyClientProperties.RESPONSE_CACHE, cache)
+            .build()) {
+            List<String> first;
+            try (HttpResponse response = client.createRequest(Method.GET)
+                .appendPathPart("o")
+                .attribute(NettyClientProperties.CLASS_AND_METHOD_KEY_NAME, operation)
+                .execute().toCompletableFuture().get()) {
+                Assertions.assertEquals(200, response.status());
+                first = response.listBody(String.class).toCompletableFuture().get();
+                Assertions.assertEquals(List.of("a", "b"), first);
+                // changes of one caller to its model must not be visible to other callers
+                first.clear();
+            }
+            try (HttpResponse response = client.createRequest(Method.GET)
+                .appendPathPart("o")
+                .attribute(NettyClientProperties.CLASS_AND_METHOD_KEY_NAME, operation)
+                .execute().toCompletableFuture().get()) {
+                Assertions.assertEquals(200, response.status());
+                Assertions.assertEquals(List.of("2"), response.headers().get("opc-request-id"));
+                // served from the cache, decoded for this caller
+                List<String> second = response.listBody(String.class).toCompletableFuture().get();
+                Assertions.assertNotSame(first, second);
+                Assertions.assertEquals(List.of("a", "b"), second);
+                Assertions.assertEquals("[\"a\",\"b\"]", response.textBody().toCompletableFuture().get());
+            }
+        }
+        Assertions.assertEquals(1, cache.getHits(operation));
+        Assertions.assertEquals(1, cache.getMisses(operation));
+        Assertions.assertEquals(9, cache.getSize());
+    }
+
+    @Test
+    public void responseCacheBypassedForRangeRequests() throws Exception {
+        String operation = "ObjectStorageClient.getObject";
+        netty.handleOneRequest((ctx, request) -> {
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer("foobar".getBytes(StandardCharsets.UTF_8)));
+            response.headers().add(HttpHeaderNames.ETAG, "\"v1\"");
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+        netty.handleOneRequest((ctx, request) -> {
+            // the full object is cached, but must not be used to answer a ranged request
+            Assertions.assertNull(request.headers().get(HttpHeaderNames.IF_NONE_MATCH));
+            Assertions.assertEquals("bytes=0-2", request.headers().get(HttpHeaderNames.RANGE));
+
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.PARTIAL_CONTENT, Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8)));
+            response.headers().add(HttpHeaderNames.ETAG, "\"v1\"");
+            response.headers().add(HttpHeaderNames.CONTENT_RANGE, "bytes 0-2/6");
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+
+        ResponseCache cache = new ResponseCache(Set.of(operation), 1024, 1024);
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(NettyClientProperties.RESPONSE_CACHE, cache)
+            .build()) {
+            try (HttpResponse response = client.createRequest(Method.GET)
+                .appendPathPart("o")
+                .attribute(NettyClientProperties.CLASS_AND_METHOD_KEY_NAME, operation)
+                .execute().toCompletableFuture().get()) {
+                Assertions.assertEquals("foobar", response.textBody().toCompletableFuture().get());
+            }
+            try (HttpResponse response = client.createRequest(Method.GET)
+                .appendPathPart("o")
+                .header(HttpHeaderNames.RANGE.toString(), "bytes=0-2")
+                .attribute(NettyClientProperties.CLASS_AND_METHOD_KEY_NAME, operation)
+                .execute().toCompletableFuture().get()) {
+                Assertions.assertEquals(206, response.status());
+                Assertions.assertEquals("foo", response.textBody().toCompletableFuture().get());
+            }
+        }
+        Assertions.assertEquals(0, cache.getHits(operation));
+        Assertions.assertEquals(1, cache.getMisses(operation));
+        Assertions.assertEquals(6, cache.getSize());
+    }
+
+    @Test
+    public void coalescedRequests() throws Exception {
+        netty.handleOneRequest((ctx, request) -> {
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer("bar".getBytes(StandardCharsets.UTF_8)));
+            computeContentLength(response);
+            // respond late so that all requests are in flight at the same time
+            ctx.executor().schedule(() -> ctx.writeAndFlush(response), 500, TimeUnit.MILLISECONDS);
+        });
+
+        AtomicInteger signed = new AtomicInteger();
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(NettyClientProperties.COALESCING_MAX_BODY_SIZE, 1024L)
+            .registerRequestInterceptor(0, request -> signed.incrementAndGet())
+            .build()) {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                futures.add(client.createRequest(Method.GET).appendPathPart("foo").execute().toCompletableFuture()
+                    .thenCompose(r -> r.textBody().whenComplete((b, t) -> r.close())));
+            }
+            for (CompletableFuture<String> future : futures) {
+                Assertions.assertEquals("bar", future.get());
+            }
+        }
+        Assertions.assertEquals(1, signed.get());
+    }
+
+    @Test
+    public void largeResponsesAreNotCoalesced() throws Exception {
+        netty.handleOneRequest((ctx, request) -> {
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer("bar".getBytes(StandardCharsets.UTF_8)));
+            computeContentLength(response);
+            ctx.executor().schedule(() -> ctx.writeAndFlush(response), 500, TimeUnit.MILLISECONDS);
+        });
+        netty.handleOneRequest((ctx, request) -> {
+            DefaultFullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer("baz".getBytes(StandardCharsets.UTF_8)));
+            computeContentLength(response);
+            ctx.writeAndFlush(response);
+        });
+
+        AtomicInteger signed = new AtomicInteger();
+        try (HttpClient client = provider().newBuilder()
+            .baseUri(netty.getEndpoint())
+            .property(NettyClientProperties.COALESCING_MAX_BODY_SIZE, 2L)
+            .registerRequestInterceptor(0, request -> signed.incrementAndGet())
+            .build()) {
+            CompletableFuture<String> first = client.createRequest(Method.GET).appendPathPart("foo").execute().toCompletableFuture()
+                .thenCompose(r -> r.textBody().whenComplete((b, t) -> r.close()));
+            CompletableFuture<String> second = client.createRequest(Method.GET).appendPathPart("foo").execute().toCompletableFuture()
+                .thenCompose(r -> r.textBody().whenComplete((b, t) -> r.close()));
+            Assertions.assertEquals("bar", first.get());
+            Assertions.assertEquals("baz", second.get());
+        }
+        Assertions.assertEquals(2, signed.get());
+    }
+
     @Test
     public void inclusionTest() throws Exception {
 
@@ -0,0 +1,200 @@
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.Region;
+import com.oracle.bmc.auth.SimpleAuthenticationDetailsProvider;
+import com.oracle.bmc.http.client.HttpProvider;
+import com.oracle.bmc.model.BmcException;
+import com.oracle.bmc.objectstorage.ObjectStorageAsyncClient;
+import com.oracle.bmc.objectstorage.responses.HeadObjectResponse;
+import io.micronaut.context.ApplicationContext;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class RangedDownloaderTest {
+    private static final int RANGE_SIZE = 100_000;
+    private static final String PATH = "/n/ns/b/bucket/o/obj";
+
+    private final byte[] data = new byte[RANGE_SIZE * 5 / 2];
+    private final List<Long> requestedStarts = new CopyOnWriteArrayList<>();
+    private final Set<Long> truncateOnce = ConcurrentHashMap.newKeySet();
+    private volatile String etag = "etag-1";
+    private volatile String etagAfterHead;
+
+    private ApplicationContext ctx;
+    private NioEventLoopGroup group;
+    private Channel serverChannel;
+    private ObjectStorageAsyncClient client;
+    private ExecutorService executor;
+    private Path target;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        ctx = ApplicationContext.run();
+        group = new NioEventLoopGroup(1);
+        serverChannel = new ServerBootstrap()
+            .channel(NioServerSocketChannel.class)
+            .group(group)
+            .localAddress("127.0.0.1", 0)
+            .childHandler(new ChannelInitializer<>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline()
+                        .addLast(new HttpServerCodec())
+                        .addLast(new HttpObjectAggregator(1024))
+                        .addLast(new ObjectHandler());
+                }
+            })
+            .bind().syncUninterruptibly().channel();
+        InetSocketAddress addr = (InetSocketAddress) serverChannel.localAddress();
+
+        SelfSignedCertificate ssc = new SelfSignedCertificate();
+        client = ObjectStorageAsyncClient.builder()
+            .httpProvider(ctx.getBean(HttpProvider.class))
+            .endpoint("http://127.0.0.1:" + addr.getPort())
+            .build(SimpleAuthenticationDetailsProvider.builder()
+                .tenantId("tenantId")
+                .userId("userId")
+                .fingerprint("fingerprint")
+                .passPhrase("")
+                .region(Region.US_PHOENIX_1)
+                .privateKeySupplier(() -> {
+                    try {
+                        return new FileInputStream(ssc.privateKey());
+                    } catch (FileNotFoundException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .build());
+        executor = Executors.newCachedThreadPool();
+        target = Files.createTempFile("ranged", ".bin");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        client.close();
+        executor.shutdown();
+        serverChannel.close();
+        group.shutdownGracefully();
+        ctx.close();
+        Files.deleteIfExists(target);
+    }
+
+    @Test
+    public void download() throws Exception {
+        // the connection of the second range breaks half way, the retry continues from there
+        truncateOnce.add((long) RANGE_SIZE);
+
+        HeadObjectResponse head = new RangedDownloader(client, RANGE_SIZE, 2, 3, executor)
+            .download("ns", "bucket", "obj", target)
+            .get(1, TimeUnit.MINUTES);
+
+        Assertions.assertEquals("etag-1", head.getETag());
+        Assertions.assertArrayEquals(data, Files.readAllBytes(target));
+        Assertions.assertEquals(4, requestedStarts.size());
+        Assertions.assertTrue(requestedStarts.containsAll(List.of(0L, (long) RANGE_SIZE, 2L * RANGE_SIZE)));
+        // the retry starts after whatever was received of the broken range
+        Assertions.assertEquals(2, requestedStarts.stream().filter(s -> s >= RANGE_SIZE && s < 2L * RANGE_SIZE).count());
+    }
+
+    @Test
+    public void changedObjectFailsDownload() {
+        etagAfterHead = "etag-2";
+
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> new RangedDownloader(client, RANGE_SIZE, 2, 3, executor)
+            .download("ns", "bucket", "obj", target)
+            .get(1, TimeUnit.MINUTES));
+
+        Assertions.assertInstanceOf(BmcException.class, e.getCause());
+        Assertions.assertEquals(412, ((BmcException) e.getCause()).getStatusCode());
+        Assertions.assertFalse(Files.exists(target));
+    }
+
+    private class ObjectHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            Assertions.assertEquals(PATH, request.uri());
+            if (request.method().equals(HttpMethod.HEAD)) {
+                FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+                response.headers().set(HttpHeaderNames.ETAG, etag);
+                HttpUtil.setContentLength(response, data.length);
+                ctx.writeAndFlush(response);
+                if (etagAfterHead != null) {
+                    etag = etagAfterHead;
+                }
+                return;
+            }
+
+            if (!etag.equals(request.headers().get(HttpHeaderNames.IF_MATCH))) {
+                FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.PRECONDITION_FAILED,
+                    Unpooled.copiedBuffer("{\"code\":\"IfMatchFailed\",\"message\":\"changed\"}", StandardCharsets.UTF_8));
+                response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+                NettyTest.computeContentLength(response);
+                ctx.writeAndFlush(response);
+                return;
+            }
+
+            String range = request.headers().get(HttpHeaderNames.RANGE);
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Integer.parseInt(bounds[1]);
+            requestedStarts.add((long) start);
+
+            DefaultHttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.PARTIAL_CONTENT);
+            response.headers().set(HttpHeaderNames.ETAG, etag);
+            response.headers().set(HttpHeaderNames.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + data.length);
+            HttpUtil.setContentLength(response, end - start + 1);
+            ctx.write(response);
+            if (truncateOnce.remove((long) start)) {
+                int half = (end - start + 1) / 2;
+                ctx.writeAndFlush(new DefaultHttpContent(Unpooled.wrappedBuffer(data, start, half)))
+                    .addListener(ChannelFutureListener.CLOSE);
+            } else {
+                ctx.writeAndFlush(new DefaultLastHttpContent(Unpooled.wrappedBuffer(data, start, end - start + 1)));
+            }
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.PrematureChannelClosureException;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+class ResponseHandlerTest {
+    /**
+     * Start an exchange on the channel and deliver the response head.
+     */
+    static TestExchange start(EmbeddedChannel channel) {
+        TestExchange exchange = new TestExchange();
+        ResponseHandler.forChannel(channel).start(exchange);
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        Assertions.assertNotNull(exchange.body);
+        return exchange;
+    }
+
+    @Test
+    public void fullyBufferedStream() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange exchange = start(channel);
+
+        Assertions.assertFalse(exchange.released.get());
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8))));
+
+        CompletableFuture<InputStream> stream = exchange.body.asInputStream();
+        channel.runPendingTasks();
+        Assertions.assertTrue(exchange.released.get());
+        Assertions.assertTrue(exchange.reusable);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream.get(), StandardCharsets.UTF_8))) {
+            Assertions.assertEquals("foo", reader.readLine());
+        }
+    }
+
+    @Test
+    public void fullyBufferedFuture() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange exchange = start(channel);
+
+        Assertions.assertFalse(exchange.released.get());
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8))));
+
+        CompletableFuture<ByteBuf> future = exchange.body.asBuffer();
+        channel.runPendingTasks();
+        Assertions.assertTrue(future.isDone());
+        Assertions.assertTrue(exchange.released.get());
+        Assertions.assertEquals(Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8)), future.get());
+    }
+
+    @Test
+    public void closeImmediatelyAsBuffer() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange exchange = start(channel);
+        Assertions.assertFalse(exchange.released.get());
+        channel.writeInbound(new DefaultLastHttpContent());
+
+        CompletableFuture<?> future = exchange.body.asBuffer();
+        channel.pipeline().remove(ResponseHandler.NAME);
+        channel.runPendingTasks();
+        Assertions.assertTrue(future.isDone());
+        Assertions.assertTrue(exchange.released.get());
+    }
+
+    @Test
+    public void closeImmediatelyAsStream() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange exchange = start(channel);
+        Assertions.assertFalse(exchange.released.get());
+        channel.writeInbound(new DefaultLastHttpContent());
+
+        CompletableFuture<?> future = exchange.body.asInputStream();
+        channel.pipeline().remove(ResponseHandler.NAME);
+        channel.runPendingTasks();
+        Assertions.assertTrue(future.isDone());
+        Assertions.assertTrue(exchange.released.get());
+    }
+
+    @Test
+    public void reusedBetweenExchanges() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange first = start(channel);
+        ResponseHandler handler = channel.pipeline().get(ResponseHandler.class);
+        int handlers = channel.pipeline().names().size();
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertTrue(first.released.get());
+
+        TestExchange second = start(channel);
+        Assertions.assertSame(handler, channel.pipeline().get(ResponseHandler.class));
+        Assertions.assertEquals(handlers, channel.pipeline().names().size());
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer("bar".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertTrue(second.released.get());
+
+        // the first body is still available after the connection was reused
+        Assertions.assertEquals("foo", first.body.asBuffer().get().toString(StandardCharsets.UTF_8));
+        Assertions.assertEquals("bar", second.body.asBuffer().get().toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void skipsContinue() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange exchange = new TestExchange();
+        ResponseHandler.forChannel(channel).start(exchange);
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        Assertions.assertEquals(1, exchange.continues.get());
+        Assertions.assertNull(exchange.body);
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertEquals("foo", exchange.body.asBuffer().get().toString(StandardCharsets.UTF_8));
+        Assertions.assertTrue(exchange.released.get());
+    }
+
+    @Test
+    public void closedBeforeResponse() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange exchange = new TestExchange();
+        ResponseHandler.forChannel(channel).start(exchange);
+
+        channel.close();
+        Assertions.assertInstanceOf(PrematureChannelClosureException.class, exchange.failure);
+        Assertions.assertTrue(exchange.released.get());
+        Assertions.assertFalse(exchange.reusable);
+    }
+
+    @Test
+    public void countsBodyBytes() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange exchange = new TestExchange();
+        ResponseHandler.forChannel(channel).start(exchange);
+        channel.writeOutbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "/", Unpooled.wrappedBuffer(new byte[5])));
+        channel.writeOutbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[3])));
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertEquals(-1, exchange.receivedBytes);
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer("bar".getBytes(StandardCharsets.UTF_8))));
+
+        Assertions.assertTrue(exchange.released.get());
+        Assertions.assertEquals(8, exchange.sentBytes);
+        Assertions.assertEquals(6, exchange.receivedBytes);
+        Assertions.assertTrue(exchange.complete);
+        Assertions.assertEquals("foobar", exchange.body.asBuffer().get().toString(StandardCharsets.UTF_8));
+        channel.finishAndReleaseAll();
+
+        // the counts start over with the next exchange on the connection
+        EmbeddedChannel reused = new EmbeddedChannel();
+        TestExchange first = start(reused);
+        reused.writeInbound(new DefaultLastHttpContent(Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8))));
+        TestExchange second = start(reused);
+        reused.close();
+        Assertions.assertEquals(0, second.sentBytes);
+        Assertions.assertEquals(0, second.receivedBytes);
+        Assertions.assertFalse(second.complete);
+        Assertions.assertEquals(3, first.receivedBytes);
+    }
+
+    @Test
+    public void countsStreamedBodyBytes() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange exchange = new TestExchange();
+        ResponseHandler.forChannel(channel).start(exchange);
+        DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "/");
+        request.headers().set(HttpHeaderNames.CONTENT_LENGTH, 40000);
+        channel.writeOutbound(request);
+        // larger than StreamWritingHandler.MAX_WRITE_TARGET, so the body is written in several buffers
+        channel.pipeline().addLast(new StreamWritingHandler(new ByteArrayInputStream(new byte[40000]), channel.eventLoop(), new DefaultLastHttpContent()));
+        channel.runPendingTasks();
+        channel.checkException();
+
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        Assertions.assertTrue(exchange.released.get());
+        Assertions.assertEquals(40000, exchange.sentBytes);
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void abandonedStreamEndsExchange() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setAutoRead(false);
+        TestExchange exchange = new TestExchange();
+        exchange.abandonedBodyTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        ResponseHandler.forChannel(channel).start(exchange);
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        InputStream stream = exchange.body.asInputStream(4, 8).get();
+
+        // fills the read-ahead window, reading pauses until the consumer asks for more
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer("abcdefgh".getBytes(StandardCharsets.UTF_8))));
+        // a slow consumer that still takes data keeps the body alive
+        Assertions.assertEquals('a', stream.read());
+        Thread.sleep(10);
+        channel.runScheduledPendingTasks();
+        Assertions.assertFalse(exchange.released.get());
+
+        // the consumer never reads again
+        Thread.sleep(10);
+        channel.runScheduledPendingTasks();
+        Assertions.assertTrue(exchange.released.get());
+        Assertions.assertFalse(exchange.reusable);
+        Assertions.assertFalse(exchange.complete);
+        Assertions.assertEquals(8, exchange.receivedBytes);
+        Assertions.assertThrows(IOException.class, stream::read);
+    }
+
+    @Test
+    public void decompressesNegotiatedResponses() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange buffered = new TestExchange();
+        ResponseHandler.forChannel(channel).start(true, buffered);
+        channel.writeInbound(gzipResponse("foo"));
+        Assertions.assertFalse(buffered.response.headers().contains(HttpHeaderNames.CONTENT_ENCODING));
+        Assertions.assertEquals("foo", buffered.body.asBuffer().get().toString(StandardCharsets.UTF_8));
+        Assertions.assertTrue(buffered.released.get());
+        Assertions.assertEquals(3, buffered.receivedBytes);
+
+        TestExchange streamed = new TestExchange();
+        ResponseHandler.forChannel(channel).start(true, streamed);
+        channel.writeInbound(gzipResponse("bar"));
+        CompletableFuture<InputStream> future = streamed.body.asInputStream();
+        channel.runPendingTasks();
+        try (InputStream stream = future.get()) {
+            Assertions.assertEquals("bar", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void passesThroughResponsesThatWereNotNegotiated() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        TestExchange first = new TestExchange();
+        ResponseHandler.forChannel(channel).start(first);
+        channel.writeInbound(gzipResponse("foo"));
+        Assertions.assertNull(channel.pipeline().get(ResponseDecompressor.NAME));
+        Assertions.assertArrayEquals(gzip("foo"), ByteBufUtil.getBytes(first.body.asBuffer().get()));
+
+        // the decompressor stays on the connection, but only decodes when asked to
+        TestExchange second = new TestExchange();
+        ResponseHandler.forChannel(channel).start(true, second);
+        channel.writeInbound(gzipResponse("bar"));
+        Assertions.assertEquals("bar", second.body.asBuffer().get().toString(StandardCharsets.UTF_8));
+
+        TestExchange third = new TestExchange();
+        ResponseHandler.forChannel(channel).start(third);
+        channel.writeInbound(gzipResponse("baz"));
+        Assertions.assertNotNull(channel.pipeline().get(ResponseDecompressor.NAME));
+        Assertions.assertEquals("gzip", third.response.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        Assertions.assertArrayEquals(gzip("baz"), ByteBufUtil.getBytes(third.body.asBuffer().get()));
+        channel.finishAndReleaseAll();
+    }
+
+    private static FullHttpResponse gzipResponse(String body) throws IOException {
+        byte[] compressed = gzip(body);
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(compressed));
+        response.headers()
+            .set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.GZIP)
+            .set(HttpHeaderNames.CONTENT_LENGTH, compressed.length);
+        return response;
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    static final class TestExchange implements ResponseHandler.Exchange {
+        final AtomicBoolean released = new AtomicBoolean();
+        final AtomicInteger continues = new AtomicInteger();
+        HttpResponse response;
+        ResponseHandler.Body body;
+        Throwable failure;
+        boolean reusable;
+        long sentBytes = -1;
+        long receivedBytes = -1;
+        boolean complete;
+        long abandonedBodyTimeoutNanos;
+
+        @Override
+        public void onContinue() {
+            continues.incrementAndGet();
+        }
+
+        @Override
+        public void onResponse(HttpResponse response, ResponseHandler.Body body) {
+            this.response = response;
+            this.body = body;
+        }
+
+        @Override
+        public void onFailure(Throwable cause) {
+            failure = cause;
+        }
+
+        @Override
+        public void onEnd(long sentBytes, long receivedBytes, boolean complete) {
+            Assertions.assertTrue(released.get(), "Ended before release");
+            this.sentBytes = sentBytes;
+            this.receivedBytes = receivedBytes;
+            this.complete = complete;
+        }
+
+        @Override
+        public void release(boolean reusable) {
+            Assertions.assertFalse(released.getAndSet(true), "Released twice");
+            this.reusable = reusable;
+        }
+
+        @Override
+        public long abandonedBodyTimeoutNanos() {
+            return abandonedBodyTimeoutNanos;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.micronaut.oraclecloud.httpclient.netty;
+
+import com.oracle.bmc.monitoring.MonitoringClient;
+import com.oracle.bmc.objectstorage.ObjectStorageAsyncClient;
+import com.oracle.bmc.objectstorage.ObjectStorageClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SdkCallSiteTest {
+    @Test
+    public void name() {
+        Assertions.assertEquals("MonitoringClient.getAlarm", SdkCallSite.name(MonitoringClient.class, "getAlarm"));
+        // cached instance is returned for the same call site
+        Assertions.assertSame(SdkCallSite.name(MonitoringClient.class, "getAlarm"), SdkCallSite.name(MonitoringClient.class, "getAlarm"));
+    }
+
+    @Test
+    public void streamsResponse() {
+        Assertions.assertTrue(SdkCallSite.operation(ObjectStorageClient.class, "getObject").streamsResponse());
+        // the async client returns a Future of the response
+        Assertions.assertTrue(SdkCallSite.operation(ObjectStorageAsyncClient.class, "getObject").streamsResponse());
+        Assertions.assertFalse(SdkCallSite.operation(ObjectStorageClient.class, "headObject").streamsResponse());
+        Assertions.assertFalse(SdkCallSite.operation(MonitoringClient.class, "getAlarm").streamsResponse());
+    }
+
+    @Test
+    public void noSdkFrame() {
+        Assertions.assertEquals(SdkCallSite.UNKNOWN, SdkCallSite.resolve());
+    }
+}
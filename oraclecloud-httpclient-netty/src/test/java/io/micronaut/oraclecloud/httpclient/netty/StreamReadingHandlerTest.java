@@ -1,6 +1,8 @@
 package io.micronaut.oraclecloud.httpclient.netty;
 
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
@@ -19,6 +21,8 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 class StreamReadingHandlerTest {
     private ExecutorService executor;
@@ -38,11 +42,9 @@ class StreamReadingHandlerTest {
     @Test
     public void simple() throws Throwable {
         EmbeddedChannel channel = new EmbeddedChannel();
-        StreamReadingHandler handler = new StreamReadingHandler(channel.alloc());
-        AtomicBoolean released = new AtomicBoolean();
-        DecidedBodyHandler.HandlerImpl handlerImpl = handler.new HandlerImpl(() -> released.set(true));
-        channel.pipeline().addLast(handlerImpl);
-        InputStream stream = handler.getInputStream();
+        ResponseHandlerTest.TestExchange exchange = ResponseHandlerTest.start(channel);
+        AtomicBoolean released = exchange.released;
+        InputStream stream = exchange.body.asInputStream().get();
         byte[] buffer = new byte[1024];
 
         channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8))));
@@ -64,11 +66,9 @@ class StreamReadingHandlerTest {
     @Test
     public void blocking() throws Throwable {
         EmbeddedChannel channel = new EmbeddedChannel();
-        StreamReadingHandler handler = new StreamReadingHandler(channel.alloc());
-        AtomicBoolean released = new AtomicBoolean();
-        DecidedBodyHandler.HandlerImpl handlerImpl = handler.new HandlerImpl(() -> released.set(true));
-        channel.pipeline().addLast(handlerImpl);
-        InputStream stream = handler.getInputStream();
+        ResponseHandlerTest.TestExchange exchange = ResponseHandlerTest.start(channel);
+        AtomicBoolean released = exchange.released;
+        InputStream stream = exchange.body.asInputStream().get();
 
         LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<>();
 
@@ -102,11 +102,9 @@ class StreamReadingHandlerTest {
     @Test
     public void fullyBuffered() throws Throwable {
         EmbeddedChannel channel = new EmbeddedChannel();
-        StreamReadingHandler handler = new StreamReadingHandler(channel.alloc());
-        AtomicBoolean released = new AtomicBoolean();
-        DecidedBodyHandler.HandlerImpl handlerImpl = handler.new HandlerImpl(() -> released.set(true));
-        channel.pipeline().addLast(handlerImpl);
-        InputStream stream = handler.getInputStream();
+        ResponseHandlerTest.TestExchange exchange = ResponseHandlerTest.start(channel);
+        AtomicBoolean released = exchange.released;
+        InputStream stream = exchange.body.asInputStream().get();
         byte[] buffer = new byte[1024];
 
         channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer("foo".getBytes(StandardCharsets.UTF_8))));
@@ -122,11 +120,9 @@ class StreamReadingHandlerTest {
     @Test
     public void failure() throws Throwable {
         EmbeddedChannel channel = new EmbeddedChannel();
-        StreamReadingHandler handler = new StreamReadingHandler(channel.alloc());
-        AtomicBoolean released = new AtomicBoolean();
-        DecidedBodyHandler.HandlerImpl handlerImpl = handler.new HandlerImpl(() -> released.set(true));
-        channel.pipeline().addLast(handlerImpl);
-        InputStream stream = handler.getInputStream();
+        ResponseHandlerTest.TestExchange exchange = ResponseHandlerTest.start(channel);
+        AtomicBoolean released = exchange.released;
+        InputStream stream = exchange.body.asInputStream().get();
 
         Assertions.assertFalse(released.get());
         channel.pipeline().fireExceptionCaught(new RuntimeException("foo"));
@@ -146,4 +142,56 @@ class StreamReadingHandlerTest {
             Assertions.assertEquals("bar", e.getMessage());
         }
     }
+
+    @Test
+    public void readAheadWatermarks() throws Throwable {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        // only count the reads of the handler, like in the real client
+        channel.config().setAutoRead(false);
+        AtomicInteger reads = new AtomicInteger();
+        channel.pipeline().addFirst(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void read(ChannelHandlerContext ctx) throws Exception {
+                reads.incrementAndGet();
+                super.read(ctx);
+            }
+        });
+        ResponseHandlerTest.TestExchange exchange = ResponseHandlerTest.start(channel);
+        InputStream stream = exchange.body.asInputStream(4, 8).get();
+        byte[] buffer = new byte[2];
+        reads.set(0);
+
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer("abcd".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertEquals(1, reads.get());
+        // high watermark reached, reading pauses
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer("efgh".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertEquals(1, reads.get());
+
+        Assertions.assertEquals(2, stream.read(buffer));
+        Assertions.assertEquals("ab", new String(buffer, StandardCharsets.UTF_8));
+        Assertions.assertEquals(1, reads.get());
+        // low watermark reached, reading resumes
+        Assertions.assertEquals(2, stream.read(buffer));
+        Assertions.assertEquals("cd", new String(buffer, StandardCharsets.UTF_8));
+        Assertions.assertEquals(2, reads.get());
+
+        Assertions.assertEquals('e', stream.read());
+        Assertions.assertEquals(3, stream.read(new byte[8]));
+        // drained without a pause, the read requested on resume is still pending
+        AtomicReference<Thread> reader = new AtomicReference<>();
+        Future<Integer> next = executor.submit(() -> {
+            reader.set(Thread.currentThread());
+            return stream.read();
+        });
+        while (reader.get() == null || reader.get().getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        Assertions.assertEquals(2, reads.get());
+
+        channel.writeInbound(new DefaultHttpContent(Unpooled.wrappedBuffer("i".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertEquals('i', next.get());
+        channel.writeInbound(new DefaultLastHttpContent());
+        Assertions.assertEquals(-1, stream.read());
+        Assertions.assertTrue(exchange.released.get());
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.monitoring.sdk;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.configuration.metrics.micrometer.MeterRegistryFactory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.oraclecloud.httpclient.netty.ResponseCache;
+import jakarta.inject.Singleton;
+
+/**
+ * Exposes the hits and misses of the OCI SDK client response cache per operation, and the size
+ * of the cache.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(beans = ResponseCache.class)
+@Requires(property = MeterRegistryFactory.MICRONAUT_METRICS_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+@Requires(property = SdkMetricsNettyClientFilter.MICRONAUT_METRICS_OCI_SDK_CLIENT_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+public class SdkClientCacheMetricsBinder implements MeterBinder {
+
+    private static final String HITS_METRICS_NAME = "oci.sdk.client.cache.hits";
+    private static final String MISSES_METRICS_NAME = "oci.sdk.client.cache.misses";
+    private static final String SIZE_METRICS_NAME = "oci.sdk.client.cache.size";
+    private static final String CLASS_AND_METHOD = "class_and_method";
+
+    private final ResponseCache cache;
+
+    public SdkClientCacheMetricsBinder(ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (String operation : cache.getOperations()) {
+            FunctionCounter.builder(HITS_METRICS_NAME, cache, c -> c.getHits(operation))
+                .description("responses served from the cache after revalidation")
+                .tag(CLASS_AND_METHOD, operation)
+                .register(registry);
+            FunctionCounter.builder(MISSES_METRICS_NAME, cache, c -> c.getMisses(operation))
+                .description("responses of cached operations that were downloaded")
+                .tag(CLASS_AND_METHOD, operation)
+                .register(registry);
+        }
+        Gauge.builder(SIZE_METRICS_NAME, cache, ResponseCache::getSize)
+            .description("total size of the cached response bodies")
+            .baseUnit(BaseUnits.BYTES)
+            .register(registry);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.monitoring.sdk;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.configuration.metrics.micrometer.MeterRegistryFactory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.oraclecloud.httpclient.netty.HedgingPolicy;
+import jakarta.inject.Singleton;
+
+/**
+ * Exposes the number of hedged requests sent and won per hedged OCI SDK operation.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(beans = HedgingPolicy.class)
+@Requires(property = MeterRegistryFactory.MICRONAUT_METRICS_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+@Requires(property = SdkMetricsNettyClientFilter.MICRONAUT_METRICS_OCI_SDK_CLIENT_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+public class SdkClientHedgingMetricsBinder implements MeterBinder {
+
+    private static final String FIRED_METRICS_NAME = "oci.sdk.client.hedge.fired";
+    private static final String WON_METRICS_NAME = "oci.sdk.client.hedge.won";
+    private static final String CLASS_AND_METHOD = "class_and_method";
+
+    private final HedgingPolicy hedgingPolicy;
+
+    public SdkClientHedgingMetricsBinder(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (String operation : hedgingPolicy.getOperations()) {
+            FunctionCounter.builder(FIRED_METRICS_NAME, hedgingPolicy, p -> p.getHedgesFired(operation))
+                .description("hedge requests sent because the original request was slow")
+                .tag(CLASS_AND_METHOD, operation)
+                .register(registry);
+            FunctionCounter.builder(WON_METRICS_NAME, hedgingPolicy, p -> p.getHedgesWon(operation))
+                .description("hedge requests that completed before the original request")
+                .tag(CLASS_AND_METHOD, operation)
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.monitoring.sdk;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.configuration.metrics.micrometer.MeterRegistryFactory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.oraclecloud.httpclient.netty.ConcurrencyLimiter;
+import jakarta.inject.Singleton;
+
+/**
+ * Exposes the state of the adaptive OCI SDK client concurrency limiter per endpoint and
+ * operation. Gauges are registered as soon as an operation is first called.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(beans = ConcurrencyLimiter.class)
+@Requires(property = MeterRegistryFactory.MICRONAUT_METRICS_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+@Requires(property = SdkMetricsNettyClientFilter.MICRONAUT_METRICS_OCI_SDK_CLIENT_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+public class SdkClientLimiterMetricsBinder implements MeterBinder {
+
+    private static final String LIMIT_METRICS_NAME = "oci.sdk.client.limiter.limit";
+    private static final String IN_FLIGHT_METRICS_NAME = "oci.sdk.client.limiter.in_flight";
+    private static final String QUEUED_METRICS_NAME = "oci.sdk.client.limiter.queued";
+    private static final String HOST = "host";
+    private static final String CLASS_AND_METHOD = "class_and_method";
+
+    private final ConcurrencyLimiter limiter;
+
+    public SdkClientLimiterMetricsBinder(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        limiter.onLimitCreated(limit -> {
+            Tags tags = Tags.of(HOST, limit.getHost(), CLASS_AND_METHOD, limit.getOperation());
+            Gauge.builder(LIMIT_METRICS_NAME, limit, ConcurrencyLimiter.Limit::getLimit)
+                .description("number of concurrent requests currently allowed")
+                .tags(tags)
+                .register(registry);
+            Gauge.builder(IN_FLIGHT_METRICS_NAME, limit, ConcurrencyLimiter.Limit::getInFlight)
+                .description("number of requests currently in flight")
+                .tags(tags)
+                .register(registry);
+            Gauge.builder(QUEUED_METRICS_NAME, limit, ConcurrencyLimiter.Limit::getQueued)
+                .description("number of requests waiting for the concurrency limit")
+                .tags(tags)
+                .register(registry);
+        });
+    }
+}
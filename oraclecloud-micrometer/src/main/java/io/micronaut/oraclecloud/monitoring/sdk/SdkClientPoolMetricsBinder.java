@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.monitoring.sdk;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.configuration.metrics.micrometer.MeterRegistryFactory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.oraclecloud.httpclient.netty.ConnectionPoolMonitor;
+import jakarta.inject.Singleton;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the state of the OCI SDK client connection pool per endpoint, and the task queue and
+ * scheduling latency of the event loops. Meters are registered as soon as an endpoint or event
+ * loop is first used.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(beans = ConnectionPoolMonitor.class)
+@Requires(property = MeterRegistryFactory.MICRONAUT_METRICS_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+@Requires(property = SdkMetricsNettyClientFilter.MICRONAUT_METRICS_OCI_SDK_CLIENT_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+public class SdkClientPoolMetricsBinder implements MeterBinder {
+
+    private static final String PENDING_METRICS_NAME = "oci.sdk.client.pool.pending";
+    private static final String ACTIVE_METRICS_NAME = "oci.sdk.client.pool.active";
+    private static final String IDLE_METRICS_NAME = "oci.sdk.client.pool.idle";
+    private static final String ACQUIRED_METRICS_NAME = "oci.sdk.client.pool.acquired";
+    private static final String ACQUIRE_METRICS_NAME = "oci.sdk.client.pool.acquire";
+    private static final String CONNECT_METRICS_NAME = "oci.sdk.client.pool.connect";
+    private static final String HANDSHAKE_METRICS_NAME = "oci.sdk.client.pool.tls.handshake";
+    private static final String PENDING_TASKS_METRICS_NAME = "oci.sdk.client.event_loop.pending_tasks";
+    private static final String LATENCY_METRICS_NAME = "oci.sdk.client.event_loop.latency";
+    private static final String HOST = "host";
+    private static final String CONNECTION = "connection";
+    private static final String EVENT_LOOP = "event_loop";
+
+    private final ConnectionPoolMonitor monitor;
+
+    public SdkClientPoolMetricsBinder(ConnectionPoolMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        monitor.onEndpointCreated(endpoint -> bindEndpoint(registry, endpoint));
+        monitor.onEventLoopCreated(eventLoop -> {
+            Tags tags = Tags.of(EVENT_LOOP, String.valueOf(eventLoop.getIndex()));
+            Gauge.builder(PENDING_TASKS_METRICS_NAME, eventLoop, ConnectionPoolMonitor.EventLoopProbe::getPendingTasks)
+                .description("number of tasks waiting to run on the event loop")
+                .tags(tags)
+                .register(registry);
+            Timer latency = Timer.builder(LATENCY_METRICS_NAME)
+                .description("delay of a scheduled task on the event loop")
+                .tags(tags)
+                .register(registry);
+            eventLoop.addListener(nanos -> latency.record(nanos, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static void bindEndpoint(MeterRegistry registry, ConnectionPoolMonitor.Endpoint endpoint) {
+        Tags tags = Tags.of(HOST, endpoint.getHost());
+        Gauge.builder(PENDING_METRICS_NAME, endpoint, ConnectionPoolMonitor.Endpoint::getPending)
+            .description("number of requests waiting for a connection")
+            .tags(tags)
+            .register(registry);
+        Gauge.builder(ACTIVE_METRICS_NAME, endpoint, ConnectionPoolMonitor.Endpoint::getActive)
+            .description("number of exchanges using a connection")
+            .tags(tags)
+            .register(registry);
+        Gauge.builder(IDLE_METRICS_NAME, endpoint, ConnectionPoolMonitor.Endpoint::getIdle)
+            .description("number of open connections not used by an exchange")
+            .tags(tags)
+            .register(registry);
+        FunctionCounter.builder(ACQUIRED_METRICS_NAME, endpoint, ConnectionPoolMonitor.Endpoint::getCreated)
+            .description("connections acquired from the pool")
+            .tags(tags.and(CONNECTION, "new"))
+            .register(registry);
+        FunctionCounter.builder(ACQUIRED_METRICS_NAME, endpoint, e -> e.getAcquired() - e.getCreated())
+            .description("connections acquired from the pool")
+            .tags(tags.and(CONNECTION, "reused"))
+            .register(registry);
+
+        Timer acquireNew = Timer.builder(ACQUIRE_METRICS_NAME)
+            .description("time a request waited for a connection")
+            .tags(tags.and(CONNECTION, "new"))
+            .register(registry);
+        Timer acquireReused = Timer.builder(ACQUIRE_METRICS_NAME)
+            .description("time a request waited for a connection")
+            .tags(tags.and(CONNECTION, "reused"))
+            .register(registry);
+        Timer connect = Timer.builder(CONNECT_METRICS_NAME)
+            .description("time to resolve the address and open the TCP connection")
+            .tags(tags)
+            .register(registry);
+        Timer handshake = Timer.builder(HANDSHAKE_METRICS_NAME)
+            .description("time of the TLS handshake of a new connection")
+            .tags(tags)
+            .register(registry);
+        endpoint.addListener(new ConnectionPoolMonitor.EndpointListener() {
+            @Override
+            public void onAcquire(long waitNanos, boolean newConnection) {
+                (newConnection ? acquireNew : acquireReused).record(waitNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void onConnect(long connectNanos, long handshakeNanos) {
+                connect.record(connectNanos, TimeUnit.NANOSECONDS);
+                if (handshakeNanos >= 0) {
+                    handshake.record(handshakeNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        });
+    }
+}
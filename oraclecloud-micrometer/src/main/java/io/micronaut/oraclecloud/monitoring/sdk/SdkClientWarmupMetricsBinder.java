@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.monitoring.sdk;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micronaut.configuration.metrics.micrometer.MeterRegistryFactory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.oraclecloud.httpclient.netty.NettyClientWarmup;
+import jakarta.inject.Singleton;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the duration of the OCI SDK client connection warmup per endpoint.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(beans = NettyClientWarmup.class)
+@Requires(property = MeterRegistryFactory.MICRONAUT_METRICS_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+@Requires(property = SdkMetricsNettyClientFilter.MICRONAUT_METRICS_OCI_SDK_CLIENT_ENABLED, notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+public class SdkClientWarmupMetricsBinder implements MeterBinder {
+
+    private static final String METRICS_NAME = "oci.sdk.client.warmup";
+    private static final String HOST = "host";
+
+    private final NettyClientWarmup warmup;
+
+    public SdkClientWarmupMetricsBinder(NettyClientWarmup warmup) {
+        this.warmup = warmup;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (URI endpoint : warmup.getEndpoints()) {
+            TimeGauge.builder(METRICS_NAME, warmup, TimeUnit.MILLISECONDS, w -> {
+                    Duration duration = w.getDuration(endpoint);
+                    return duration == null ? Double.NaN : duration.toMillis();
+                })
+                .description("time to open the pooled connections to the endpoint on startup")
+                .tag(HOST, endpoint.getHost())
+                .register(registry);
+        }
+    }
+}
@@ -17,25 +17,42 @@ package io.micronaut.oraclecloud.monitoring.sdk;
 
 import com.oracle.bmc.http.client.HttpRequest;
 import com.oracle.bmc.http.client.HttpResponse;
+import com.oracle.bmc.http.client.Method;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import io.micronaut.configuration.metrics.micrometer.MeterRegistryFactory;
 import io.micronaut.context.annotation.Requires;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.util.StringUtils;
+import io.micronaut.oraclecloud.httpclient.netty.MeteredHttpResponse;
 import io.micronaut.oraclecloud.httpclient.netty.OciNettyClientFilter;
 import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static io.micronaut.oraclecloud.httpclient.netty.NettyClientProperties.CLASS_AND_METHOD_KEY_NAME;
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientProperties.HOST_KEY_NAME;
 
 /**
- * The SdkMetricsNettyClientFilter will emit oci sdk client metrics.
+ * The SdkMetricsNettyClientFilter will emit oci sdk client metrics. Timers of successful
+ * exchanges are cached per operation, host, method and status, so that recording a request does
+ * not go through the meter registry.
+ * <p>
+ * For responses received from the network, the request and response body sizes and the time to
+ * the first and the last byte of the response are also recorded per operation, once the exchange
+ * has ended (see {@link MeteredHttpResponse#transfer()}).
  *
  * @since 4.2.0
  * @author Nemanja Mikic
@@ -54,39 +71,134 @@ public class SdkMetricsNettyClientFilter implements OciNettyClientFilter<Timer.S
     private static final String CLASS_NAME = "class_and_method";
 
     private static final String METRICS_NAME = "oci.sdk.client";
+    private static final String REQUEST_SIZE_METRICS_NAME = "oci.sdk.client.request.size";
+    private static final String RESPONSE_SIZE_METRICS_NAME = "oci.sdk.client.response.size";
+    private static final String FIRST_BYTE_METRICS_NAME = "oci.sdk.client.time.to.first.byte";
+    private static final String LAST_BYTE_METRICS_NAME = "oci.sdk.client.time.to.last.byte";
+    private static final String UNKNOWN_OPERATION = "N/A";
+
+    /**
+     * Bounds the number of cached (operation, host) pairs. Requests beyond this limit are still
+     * recorded, but the timer is looked up in the registry every time.
+     */
+    private static final int MAX_CACHED_ENDPOINTS = 1024;
+    /**
+     * Bounds the number of cached (method, status) pairs per endpoint.
+     */
+    private static final int MAX_CACHED_STATUSES = 16;
+    /**
+     * Bounds the number of operations whose transfer meters are cached.
+     */
+    private static final int MAX_CACHED_OPERATIONS = 1024;
 
     private final Provider<MeterRegistry> meterRegistryProvider;
+    private final Map<String, Map<String, EndpointTimers>> timers = new ConcurrentHashMap<>();
+    private final AtomicInteger cachedEndpoints = new AtomicInteger();
+    private final Map<String, TransferMeters> transferMeters = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
 
     public SdkMetricsNettyClientFilter(Provider<MeterRegistry> meterRegistryProvider) {
         this.meterRegistryProvider = meterRegistryProvider;
     }
 
+    private MeterRegistry meterRegistry() {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            registry = meterRegistryProvider.get();
+            // cached meters must not outlive their registration
+            registry.config().onMeterRemoved(meter -> {
+                String name = meter.getId().getName();
+                if (name.equals(METRICS_NAME)) {
+                    timers.clear();
+                    cachedEndpoints.set(0);
+                } else if (name.equals(REQUEST_SIZE_METRICS_NAME) || name.equals(RESPONSE_SIZE_METRICS_NAME)
+                    || name.equals(FIRST_BYTE_METRICS_NAME) || name.equals(LAST_BYTE_METRICS_NAME)) {
+                    transferMeters.clear();
+                }
+            });
+            meterRegistry = registry;
+        }
+        return registry;
+    }
+
     @Override
     public Timer.Sample beforeRequest(@NonNull HttpRequest request) {
-        return Timer.start(meterRegistryProvider.get());
+        return Timer.start(meterRegistry());
     }
 
     @Override
     public HttpResponse afterResponse(@NonNull HttpRequest request, @Nullable HttpResponse response, @Nullable Throwable throwable, @NonNull Timer.Sample timerSample) {
+        Object operationAttribute = request.attribute(CLASS_AND_METHOD_KEY_NAME);
+        String operation = operationAttribute instanceof String o ? o : UNKNOWN_OPERATION;
+        Object hostAttribute = request.attribute(HOST_KEY_NAME);
+        String host = hostAttribute instanceof String h ? h : request.uri().getHost();
+
+        Timer timer;
+        if (response != null && throwable == null) {
+            timer = timer(operation, host, request.method(), response.status());
+        } else {
+            timer = register(operation, host, request.method(), response == null ? null : response.status(), throwable);
+        }
+        timerSample.stop(timer);
+        if (throwable == null && response instanceof MeteredHttpResponse metered) {
+            CompletionStage<MeteredHttpResponse.Transfer> transfer = metered.transfer();
+            if (transfer != null) {
+                TransferMeters meters = transferMeters(operation);
+                timerSample.stop(meters.timeToFirstByte);
+                transfer.thenAccept(t -> meters.record(t, timerSample));
+            }
+        }
+        return response;
+    }
+
+    private TransferMeters transferMeters(String operation) {
+        TransferMeters meters = transferMeters.get(operation);
+        if (meters == null) {
+            if (transferMeters.size() >= MAX_CACHED_OPERATIONS) {
+                return new TransferMeters(operation);
+            }
+            meters = transferMeters.computeIfAbsent(operation, TransferMeters::new);
+        }
+        return meters;
+    }
+
+    /**
+     * Find the timer of a successful exchange. The lookup does not allocate once the timer is
+     * cached.
+     */
+    private Timer timer(String operation, String host, Method method, int status) {
+        Map<String, EndpointTimers> byHost = timers.get(operation);
+        EndpointTimers endpoint = byHost == null ? null : byHost.get(host);
+        if (endpoint == null) {
+            if (cachedEndpoints.get() >= MAX_CACHED_ENDPOINTS) {
+                return register(operation, host, method, status, null);
+            }
+            endpoint = timers.computeIfAbsent(operation, o -> new ConcurrentHashMap<>())
+                .computeIfAbsent(host, h -> {
+                    cachedEndpoints.incrementAndGet();
+                    return new EndpointTimers(operation, h);
+                });
+        }
+        return endpoint.timer(method, status);
+    }
 
-        List<Tag> tags = new ArrayList<>(4);
+    private Timer register(String operation, String host, Method method, @Nullable Integer status, @Nullable Throwable throwable) {
+        List<Tag> tags = new ArrayList<>(5);
 
-        tags.add(Tag.of(HOST, request.uri().getHost()));
-        tags.add(Tag.of(METHOD, request.method().name()));
-        tags.add(Tag.of(CLASS_NAME, (String) request.attribute(CLASS_AND_METHOD_KEY_NAME)));
+        tags.add(Tag.of(HOST, host));
+        tags.add(Tag.of(METHOD, method.name()));
+        tags.add(Tag.of(CLASS_NAME, operation));
 
         tags.add(exception(throwable));
 
-        if (response != null) {
-            tags.add(Tag.of(STATUS, String.valueOf(response.status())));
+        if (status != null) {
+            tags.add(Tag.of(STATUS, String.valueOf(status)));
         }
 
-        final Timer timer = Timer.builder(METRICS_NAME)
+        return Timer.builder(METRICS_NAME)
             .description("oci sdk client metrics")
             .tags(tags)
-            .register(meterRegistryProvider.get());
-        timerSample.stop(timer);
-        return response;
+            .register(meterRegistry());
     }
 
     /**
@@ -106,4 +218,83 @@ public class SdkMetricsNettyClientFilter implements OciNettyClientFilter<Timer.S
     public int getOrder() {
         return 100;
     }
+
+    /**
+     * The timers of one operation on one host, by method and status. Lookups scan a small
+     * copy-on-write array without locking, new timers are added with a CAS.
+     */
+    private final class EndpointTimers {
+        private final String operation;
+        private final String host;
+        private final AtomicReference<StatusTimer[]> statuses = new AtomicReference<>(new StatusTimer[0]);
+
+        EndpointTimers(String operation, String host) {
+            this.operation = operation;
+            this.host = host;
+        }
+
+        Timer timer(Method method, int status) {
+            while (true) {
+                StatusTimer[] current = statuses.get();
+                for (StatusTimer candidate : current) {
+                    if (candidate.status == status && candidate.method == method) {
+                        return candidate.timer;
+                    }
+                }
+                Timer timer = register(operation, host, method, status, null);
+                if (current.length >= MAX_CACHED_STATUSES) {
+                    return timer;
+                }
+                StatusTimer[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = new StatusTimer(method, status, timer);
+                if (statuses.compareAndSet(current, updated)) {
+                    return timer;
+                }
+            }
+        }
+    }
+
+    /**
+     * The meters of the transfers of one operation.
+     */
+    private final class TransferMeters {
+        private final DistributionSummary requestSize;
+        private final DistributionSummary responseSize;
+        private final Timer timeToFirstByte;
+        private final Timer timeToLastByte;
+
+        TransferMeters(String operation) {
+            MeterRegistry registry = meterRegistry();
+            requestSize = DistributionSummary.builder(REQUEST_SIZE_METRICS_NAME)
+                .description("oci sdk client request body size")
+                .baseUnit(BaseUnits.BYTES)
+                .tag(CLASS_NAME, operation)
+                .register(registry);
+            responseSize = DistributionSummary.builder(RESPONSE_SIZE_METRICS_NAME)
+                .description("oci sdk client response body size")
+                .baseUnit(BaseUnits.BYTES)
+                .tag(CLASS_NAME, operation)
+                .register(registry);
+            timeToFirstByte = Timer.builder(FIRST_BYTE_METRICS_NAME)
+                .description("time until the oci sdk client received the response head")
+                .tag(CLASS_NAME, operation)
+                .register(registry);
+            timeToLastByte = Timer.builder(LAST_BYTE_METRICS_NAME)
+                .description("time until the oci sdk client received the complete response body")
+                .tag(CLASS_NAME, operation)
+                .register(registry);
+        }
+
+        void record(MeteredHttpResponse.Transfer transfer, Timer.Sample sample) {
+            requestSize.record(transfer.requestBodyBytes());
+            responseSize.record(transfer.responseBodyBytes());
+            if (transfer.complete()) {
+                // a cancelled or broken body would only measure when it was abandoned
+                sample.stop(timeToLastByte);
+            }
+        }
+    }
+
+    private record StatusTimer(Method method, int status, Timer timer) {
+    }
 }
@@ -3,13 +3,16 @@ package io.micronaut.oraclecloud.monitoring.sdk
 import com.oracle.bmc.model.BmcException
 import com.oracle.bmc.monitoring.Monitoring
 import com.oracle.bmc.monitoring.requests.GetAlarmRequest
+import io.micrometer.core.instrument.DistributionSummary
 import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Timer
 import io.micronaut.context.ApplicationContext
 import io.micronaut.http.annotation.Controller
 import io.micronaut.http.annotation.Get
 import io.micronaut.runtime.server.EmbeddedServer
 import io.micronaut.test.extensions.spock.annotation.MicronautTest
 import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
 
 
 @MicronautTest(startApplication = false)
@@ -33,7 +36,7 @@ class OracleCloudSdkMetricsFilterTest extends Specification {
 
         expect:
         context.containsBean(SdkMetricsNettyClientFilter)
-        def meter = meterRegistry.getMeters().find(x -> x.getId().toString().contains("oci.sdk.client"))
+        def meter = meterRegistry.getMeters().find(x -> x.getId().getName() == "oci.sdk.client")
         meter.id.getTag("host") == "localhost"
         meter.id.getTag("http_method") == "GET"
         meter.id.getTag("status") == "200"
@@ -44,6 +47,72 @@ class OracleCloudSdkMetricsFilterTest extends Specification {
         embeddedServer.stop()
     }
 
+    def "test oci sdk metrics client filter reuses the timer of a call site"() {
+        given:
+        ApplicationContext context = ApplicationContext.run([
+                "micronaut.metrics.enabled": "true",
+                "micronaut.metrics.export.oraclecloud.enabled": "false"
+        ])
+
+        EmbeddedServer embeddedServer = context.getBean(EmbeddedServer)
+        embeddedServer.start()
+
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class)
+
+        Monitoring mon = context.getBean(Monitoring.class)
+        mon.setEndpoint(embeddedServer.getURL().toString())
+        mon.getAlarm(GetAlarmRequest.builder().alarmId("test").build())
+        mon.getAlarm(GetAlarmRequest.builder().alarmId("test2").build())
+
+        expect:
+        def meters = meterRegistry.getMeters().findAll(x -> x.getId().getName() == "oci.sdk.client")
+        meters.size() == 1
+        ((Timer) meters[0]).count() == 2
+
+        when:
+        meterRegistry.remove(meters[0])
+        mon.getAlarm(GetAlarmRequest.builder().alarmId("test").build())
+
+        then: "a removed timer is registered again"
+        ((Timer) meterRegistry.getMeters().find(x -> x.getId().getName() == "oci.sdk.client")).count() == 1
+
+        cleanup:
+        embeddedServer.stop()
+    }
+
+    def "test oci sdk metrics client filter records the transfer of a call site"() {
+        given:
+        ApplicationContext context = ApplicationContext.run([
+                "micronaut.metrics.enabled": "true",
+                "micronaut.metrics.export.oraclecloud.enabled": "false"
+        ])
+
+        EmbeddedServer embeddedServer = context.getBean(EmbeddedServer)
+        embeddedServer.start()
+
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class)
+
+        Monitoring mon = context.getBean(Monitoring.class)
+        mon.setEndpoint(embeddedServer.getURL().toString())
+        mon.getAlarm(GetAlarmRequest.builder().alarmId("test").build())
+        mon.getAlarm(GetAlarmRequest.builder().alarmId("test2").build())
+
+        expect:
+        new PollingConditions(timeout: 5).eventually {
+            def responseSize = meterRegistry.find("oci.sdk.client.response.size").tag("class_and_method", "MonitoringClient.getAlarm").summary()
+            responseSize.count() == 2
+            responseSize.totalAmount() == 2 * "{\"status\":\"OK\"}".length()
+            meterRegistry.find("oci.sdk.client.time.to.last.byte").tag("class_and_method", "MonitoringClient.getAlarm").timer().count() == 2
+        }
+        DistributionSummary requestSize = meterRegistry.find("oci.sdk.client.request.size").tag("class_and_method", "MonitoringClient.getAlarm").summary()
+        requestSize.count() == 2
+        requestSize.totalAmount() == 0
+        meterRegistry.find("oci.sdk.client.time.to.first.byte").tag("class_and_method", "MonitoringClient.getAlarm").timer().count() == 2
+
+        cleanup:
+        embeddedServer.stop()
+    }
+
     def "test oci sdk metrics client filter disabled"() {
         given:
         ApplicationContext context = ApplicationContext.run([
@@ -93,7 +162,7 @@ class OracleCloudSdkMetricsFilterTest extends Specification {
         expect:
         exception.message.contains("Error returned by GetAlarm operation in Monitoring service")
         context.containsBean(SdkMetricsNettyClientFilter)
-        def meter = meterRegistry.getMeters().find(x -> x.getId().toString().contains("oci.sdk.client"))
+        def meter = meterRegistry.getMeters().find(x -> x.getId().getName() == "oci.sdk.client")
         meter.id.getTag("host") == "localhost"
         meter.id.getTag("http_method") == "GET"
         meter.id.getTag("status") == "404"
@@ -128,7 +197,7 @@ class OracleCloudSdkMetricsFilterTest extends Specification {
         expect:
         exception.message.contains("Error returned by GetAlarm operation in Monitoring service")
         context.containsBean(SdkMetricsNettyClientFilter)
-        def meter = meterRegistry.getMeters().find(x -> x.getId().toString().contains("oci.sdk.client"))
+        def meter = meterRegistry.getMeters().find(x -> x.getId().getName() == "oci.sdk.client")
         meter.id.getTag("host") == "localhost"
         meter.id.getTag("http_method") == "GET"
         meter.id.getTag("exception") == "HttpClientException"
@@ -67,6 +67,7 @@ import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
@@ -328,6 +329,15 @@ public class OracleCloudSdkProcessor extends AbstractProcessor {
                                                                       .build());
                                         builder.addMethod(methodBuilder.build());
 
+                                        String bodyProperty = findStreamBodyProperty(variableElement.asType());
+                                        if (bodyProperty != null) {
+                                            builder.addMethod(reactiveBodyMethod(methodName, parameterName, requestType, responseType, rxSingleType, bodyProperty));
+                                        }
+                                        String responseBodyGetter = findStreamGetter(m);
+                                        if (responseBodyGetter != null) {
+                                            builder.addMethod(reactiveResponseBodyMethod(methodName, parameterName, requestType, responseBodyGetter));
+                                        }
+
                                     }
                                 }
                             }
@@ -349,6 +359,80 @@ public class OracleCloudSdkProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Find the {@link java.io.InputStream} body property of an SDK request model, such as
+     * {@code putObjectBody} of {@code PutObjectRequest}.
+     *
+     * @param requestType The request type
+     * @return The name of the builder method for the body, or {@code null} if there is no stream body
+     */
+    private String findStreamBodyProperty(TypeMirror requestType) {
+        String getter = findStreamGetter(requestType);
+        return getter == null ? null : NameUtils.decapitalize(getter.substring(3));
+    }
+
+    /**
+     * Find the {@link java.io.InputStream} getter of an SDK request or response model, such as
+     * {@code getInputStream} of {@code GetObjectResponse}.
+     *
+     * @param modelType The model type
+     * @return The name of the getter, or {@code null} if there is no stream property
+     */
+    private String findStreamGetter(TypeMirror modelType) {
+        Element modelElement = types.asElement(modelType);
+        TypeElement inputStream = elements.getTypeElement("java.io.InputStream");
+        if (!(modelElement instanceof TypeElement) || inputStream == null) {
+            return null;
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers((TypeElement) modelElement))) {
+            String name = method.getSimpleName().toString();
+            // getBody$() is the generic accessor of BmcRequest
+            if (name.startsWith("get") && !name.endsWith("$") && method.getParameters().isEmpty() &&
+                method.getModifiers().contains(Modifier.PUBLIC) &&
+                types.isSameType(method.getReturnType(), inputStream.asType())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Overload of a reactor client operation with a stream body, that takes the body as a
+     * {@code Publisher<ByteBuffer>} instead. The netty client writes it without blocking a thread.
+     */
+    private MethodSpec reactiveBodyMethod(String methodName, String parameterName, TypeName requestType, TypeName responseType, ClassName monoType, String bodyProperty) {
+        ClassName publisherInputStream = ClassName.get("io.micronaut.oraclecloud.httpclient.netty", "PublisherInputStream");
+        return MethodSpec.methodBuilder(methodName)
+            .addJavadoc("Variant of {@link #$L($T)} that takes the body as a publisher. The body is written as the\n", methodName, requestType)
+            .addJavadoc("connection accepts more data, without blocking a thread. The body in the request is ignored.\n")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(requestType, parameterName)
+            .addParameter(ParameterizedTypeName.get(ClassName.get("org.reactivestreams", "Publisher"), ClassName.get("java.nio", "ByteBuffer")), "body")
+            .returns(ParameterizedTypeName.get(monoType, responseType))
+            .addStatement("return $L($T.builder().copy($L).$L($T.ofByteBuffers(body)).build())",
+                methodName, requestType, parameterName, bodyProperty, publisherInputStream)
+            .build();
+    }
+
+    /**
+     * Companion of a reactor client operation with a stream response, such as {@code getObject},
+     * that publishes only the response body. With the netty client, the body is read from the
+     * connection as downstream demand arrives, without blocking a thread.
+     */
+    private MethodSpec reactiveResponseBodyMethod(String methodName, String parameterName, TypeName requestType, String bodyGetter) {
+        ClassName publishers = ClassName.get("io.micronaut.oraclecloud.httpclient.netty", "ResponseBodyPublishers");
+        ClassName fluxType = ClassName.get("reactor.core.publisher", "Flux");
+        return MethodSpec.methodBuilder(methodName + "Body")
+            .addJavadoc("Variant of {@link #$L($T)} that only publishes the response body. Data is read from the\n", methodName, requestType)
+            .addJavadoc("connection as it is requested, without blocking a thread.\n")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(requestType, parameterName)
+            .returns(ParameterizedTypeName.get(fluxType, ClassName.get("java.nio", "ByteBuffer")))
+            .addStatement("return $L($L).flatMapMany(response -> $T.ofByteBuffers(response.$L()))",
+                methodName, parameterName, publishers, bodyGetter)
+            .build();
+    }
+
     private String writeClientFactory(Element e, String packageName, String simpleName) {
         final String factoryName = simpleName + "Factory";
         final String factoryPackageName = packageName.replace("com.oracle.bmc", CLIENT_PACKAGE);
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.tracing.sdk;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.bind.annotation.Bindable;
+import io.micronaut.core.util.Toggleable;
+
+import static io.micronaut.oraclecloud.tracing.sdk.SdkClientTracingConfiguration.PREFIX;
+
+/**
+ * Configuration of the {@link SdkTracingNettyClientFilter}.
+ *
+ * @param enabled     Whether OCI SDK client calls are traced
+ * @param sampleRatio The fraction of calls outside any trace that start a new trace. Calls inside
+ *                    a trace follow the sampling decision of the trace
+ * @since 4.3.0
+ */
+@ConfigurationProperties(PREFIX)
+public record SdkClientTracingConfiguration(
+    @Bindable(defaultValue = "true") boolean enabled,
+    @Bindable(defaultValue = "1") double sampleRatio
+) implements Toggleable {
+    public static final String PREFIX = "micronaut.tracing.oci.sdk.client";
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.oraclecloud.tracing.sdk;
+
+import com.oracle.bmc.http.client.HttpRequest;
+import com.oracle.bmc.http.client.HttpResponse;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.oraclecloud.httpclient.netty.MeteredHttpResponse;
+import io.micronaut.oraclecloud.httpclient.netty.OciNettyClientFilter;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import jakarta.inject.Singleton;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientProperties.CLASS_AND_METHOD_KEY_NAME;
+import static io.micronaut.oraclecloud.httpclient.netty.NettyClientProperties.HOST_KEY_NAME;
+
+/**
+ * Creates a client span for every sampled OCI SDK call, and propagates the trace context to the
+ * server with the configured propagators, e.g. as W3C {@code traceparent} header. The span is
+ * named after the operation and carries the {@code opc-request-id} of the call, so it can be
+ * matched with the OCI service logs. The parent of the span is the current context of the thread
+ * that executes the call, also for calls whose body is buffered on another thread first.
+ * <p>
+ * The sampling decision is made before anything is allocated for the call: calls inside a trace
+ * follow the decision of the trace, other calls start a new trace with the configured
+ * {@link SdkClientTracingConfiguration#sampleRatio() ratio}. Calls that are not sampled are
+ * not traced. Inside an unsampled trace, the parent context is still propagated so that the
+ * server sees the trace and its decision, only unsampled root calls propagate nothing. For
+ * responses received from the network, the span ends when the body has been received, and
+ * carries the request and response body sizes.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Requires(beans = OpenTelemetry.class)
+@Requires(property = SdkClientTracingConfiguration.PREFIX + ".enabled", notEquals = StringUtils.FALSE, defaultValue = StringUtils.TRUE)
+public class SdkTracingNettyClientFilter implements OciNettyClientFilter<Span> {
+
+    private static final String INSTRUMENTATION_SCOPE = "io.micronaut.oraclecloud.sdk";
+    private static final String HEADER_OPC_REQUEST_ID = "opc-request-id";
+
+    private static final AttributeKey<String> OPERATION = AttributeKey.stringKey("oci.sdk.operation");
+    private static final AttributeKey<String> OPC_REQUEST_ID = AttributeKey.stringKey("oci.opc_request_id");
+    private static final AttributeKey<String> METHOD = AttributeKey.stringKey("http.request.method");
+    private static final AttributeKey<String> SERVER_ADDRESS = AttributeKey.stringKey("server.address");
+    private static final AttributeKey<Long> STATUS = AttributeKey.longKey("http.response.status_code");
+    private static final AttributeKey<Long> REQUEST_BODY_SIZE = AttributeKey.longKey("http.request.body.size");
+    private static final AttributeKey<Long> RESPONSE_BODY_SIZE = AttributeKey.longKey("http.response.body.size");
+
+    private static final TextMapSetter<HttpRequest> SETTER = (request, name, value) -> {
+        if (request != null) {
+            request.header(name, value);
+        }
+    };
+
+    private final Tracer tracer;
+    private final TextMapPropagator propagator;
+    private final double sampleRatio;
+
+    public SdkTracingNettyClientFilter(OpenTelemetry openTelemetry, SdkClientTracingConfiguration configuration) {
+        this.tracer = openTelemetry.getTracer(INSTRUMENTATION_SCOPE);
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        this.sampleRatio = configuration.sampleRatio();
+    }
+
+    @Override
+    public Span beforeRequest(@NonNull HttpRequest request) {
+        Context parent = Context.current();
+        SpanContext parentContext = Span.fromContext(parent).getSpanContext();
+        if (!isSampled(parentContext)) {
+            if (parentContext.isValid()) {
+                // keep the trace connected downstream, with the unsampled flag of the parent
+                propagator.inject(parent, request, SETTER);
+            }
+            return Span.getInvalid();
+        }
+        Object operation = request.attribute(CLASS_AND_METHOD_KEY_NAME);
+        Object host = request.attribute(HOST_KEY_NAME);
+        String method = request.method().name();
+        SpanBuilder builder = tracer.spanBuilder(operation instanceof String o ? o : method)
+            .setParent(parent)
+            .setSpanKind(SpanKind.CLIENT)
+            .setAttribute(METHOD, method);
+        if (operation instanceof String o) {
+            builder.setAttribute(OPERATION, o);
+        }
+        if (host instanceof String h) {
+            builder.setAttribute(SERVER_ADDRESS, h);
+        }
+        Span span = builder.startSpan();
+        propagator.inject(parent.with(span), request, SETTER);
+        return span;
+    }
+
+    private boolean isSampled(SpanContext parent) {
+        if (parent.isValid()) {
+            return parent.isSampled();
+        }
+        return sampleRatio >= 1 || sampleRatio > 0 && ThreadLocalRandom.current().nextDouble() < sampleRatio;
+    }
+
+    @Override
+    public HttpResponse afterResponse(@NonNull HttpRequest request, @Nullable HttpResponse response, @Nullable Throwable throwable, @NonNull Span span) {
+        if (span == Span.getInvalid()) {
+            return response;
+        }
+        if (response == null || throwable != null) {
+            if (throwable != null) {
+                span.recordException(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+            }
+            span.setStatus(StatusCode.ERROR);
+            if (span.isRecording()) {
+                setOpcRequestId(span, request.headers());
+            }
+            span.end();
+            return response;
+        }
+
+        int status = response.status();
+        span.setAttribute(STATUS, status);
+        if (status >= 400) {
+            span.setStatus(StatusCode.ERROR);
+        }
+        if (span.isRecording()) {
+            // the service echoes the id of the request, extended by its own part
+            setOpcRequestId(span, response.headers());
+        }
+        CompletionStage<MeteredHttpResponse.Transfer> transfer = response instanceof MeteredHttpResponse metered ? metered.transfer() : null;
+        if (transfer == null) {
+            span.end();
+        } else {
+            transfer.whenComplete((t, e) -> {
+                if (t != null) {
+                    span.setAttribute(REQUEST_BODY_SIZE, t.requestBodyBytes());
+                    span.setAttribute(RESPONSE_BODY_SIZE, t.responseBodyBytes());
+                }
+                span.end();
+            });
+        }
+        return response;
+    }
+
+    private static void setOpcRequestId(Span span, Map<String, List<String>> headers) {
+        List<String> values = headers.get(HEADER_OPC_REQUEST_ID);
+        if (values != null && !values.isEmpty()) {
+            span.setAttribute(OPC_REQUEST_ID, values.get(0));
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return 90;
+    }
+}
@@ -0,0 +1,228 @@
+package io.micronaut.oraclecloud.tracing.sdk;
+
+import com.oracle.bmc.monitoring.Monitoring;
+import com.oracle.bmc.monitoring.requests.GetAlarmRequest;
+import com.oracle.bmc.objectstorage.ObjectStorage;
+import com.oracle.bmc.objectstorage.requests.PutObjectRequest;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Put;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import jakarta.inject.Singleton;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+
+public class SdkTracingNettyClientFilterTest {
+
+    private static final String PARENT_TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final String PARENT_SPAN_ID = "b7ad6b7169203331";
+
+    @Test
+    public void tracesCall() throws InterruptedException {
+        try (ApplicationContext ctx = ApplicationContext.run(Map.of("spec.name", "SdkTracingNettyClientFilterTest"))) {
+            InMemorySpanExporter exporter = ctx.getBean(InMemorySpanExporter.class);
+            TraceController controller = ctx.getBean(TraceController.class);
+            Monitoring monitoring = monitoring(ctx);
+
+            monitoring.getAlarm(GetAlarmRequest.builder().alarmId("test").opcRequestId("request-1").build());
+
+            SpanData span = awaitSpan(exporter);
+            Assertions.assertEquals("MonitoringClient.getAlarm", span.getName());
+            Assertions.assertEquals(SpanKind.CLIENT, span.getKind());
+            Assertions.assertEquals("MonitoringClient.getAlarm", span.getAttributes().get(AttributeKey.stringKey("oci.sdk.operation")));
+            Assertions.assertEquals("GET", span.getAttributes().get(AttributeKey.stringKey("http.request.method")));
+            Assertions.assertEquals(200L, span.getAttributes().get(AttributeKey.longKey("http.response.status_code")));
+            Assertions.assertEquals("request-1", span.getAttributes().get(AttributeKey.stringKey("oci.opc_request_id")));
+            Assertions.assertEquals(0L, span.getAttributes().get(AttributeKey.longKey("http.request.body.size")));
+            Assertions.assertEquals((long) TraceController.BODY.length(), span.getAttributes().get(AttributeKey.longKey("http.response.body.size")));
+            Assertions.assertFalse(span.getParentSpanContext().isValid());
+            Assertions.assertEquals("00-" + span.getTraceId() + "-" + span.getSpanId() + "-01", controller.traceparent);
+        }
+    }
+
+    @Test
+    public void followsSampledParent() throws InterruptedException {
+        try (ApplicationContext ctx = ApplicationContext.run(Map.of("spec.name", "SdkTracingNettyClientFilterTest"))) {
+            InMemorySpanExporter exporter = ctx.getBean(InMemorySpanExporter.class);
+            Monitoring monitoring = monitoring(ctx);
+
+            try (Scope ignored = parent(TraceFlags.getSampled()).makeCurrent()) {
+                monitoring.getAlarm(GetAlarmRequest.builder().alarmId("test").build());
+            }
+
+            SpanData span = awaitSpan(exporter);
+            Assertions.assertEquals(PARENT_TRACE_ID, span.getTraceId());
+            Assertions.assertEquals(PARENT_SPAN_ID, span.getParentSpanId());
+        }
+    }
+
+    @Test
+    public void followsParentOfBufferedUpload() throws InterruptedException {
+        try (ApplicationContext ctx = ApplicationContext.run(Map.of("spec.name", "SdkTracingNettyClientFilterTest"))) {
+            InMemorySpanExporter exporter = ctx.getBean(InMemorySpanExporter.class);
+            TraceController controller = ctx.getBean(TraceController.class);
+            EmbeddedServer server = ctx.getBean(EmbeddedServer.class);
+            server.start();
+            ObjectStorage objectStorage = ctx.getBean(ObjectStorage.class);
+            objectStorage.setEndpoint(server.getURL().toString());
+
+            // the stream body is buffered on the blocking executor before the request is sent
+            try (Scope ignored = parent(TraceFlags.getSampled()).makeCurrent()) {
+                objectStorage.putObject(PutObjectRequest.builder()
+                    .namespaceName("ns")
+                    .bucketName("bucket")
+                    .objectName("object")
+                    .contentLength(3L)
+                    .putObjectBody(new ByteArrayInputStream(new byte[3]))
+                    .build());
+            }
+
+            SpanData span = awaitSpan(exporter);
+            Assertions.assertEquals("ObjectStorageClient.putObject", span.getName());
+            Assertions.assertEquals(PARENT_TRACE_ID, span.getTraceId());
+            Assertions.assertEquals(PARENT_SPAN_ID, span.getParentSpanId());
+            Assertions.assertEquals(3L, span.getAttributes().get(AttributeKey.longKey("http.request.body.size")));
+            Assertions.assertEquals("00-" + PARENT_TRACE_ID + "-" + span.getSpanId() + "-01", controller.traceparent);
+        }
+    }
+
+    @Test
+    public void skipsUnsampledParent() {
+        try (ApplicationContext ctx = ApplicationContext.run(Map.of("spec.name", "SdkTracingNettyClientFilterTest"))) {
+            InMemorySpanExporter exporter = ctx.getBean(InMemorySpanExporter.class);
+            TraceController controller = ctx.getBean(TraceController.class);
+            Monitoring monitoring = monitoring(ctx);
+
+            try (Scope ignored = parent(TraceFlags.getDefault()).makeCurrent()) {
+                monitoring.getAlarm(GetAlarmRequest.builder().alarmId("test").build());
+            }
+
+            // the parent is propagated as is, with its unsampled flag
+            Assertions.assertEquals("00-" + PARENT_TRACE_ID + "-" + PARENT_SPAN_ID + "-00", controller.traceparent);
+            Assertions.assertEquals(List.of(), exporter.getFinishedSpanItems());
+        }
+    }
+
+    @Test
+    public void skipsRootCallsWithoutRatio() {
+        try (ApplicationContext ctx = ApplicationContext.run(Map.of(
+            "spec.name", "SdkTracingNettyClientFilterTest",
+            "micronaut.tracing.oci.sdk.client.sample-ratio", "0"
+        ))) {
+            InMemorySpanExporter exporter = ctx.getBean(InMemorySpanExporter.class);
+            TraceController controller = ctx.getBean(TraceController.class);
+            Monitoring monitoring = monitoring(ctx);
+
+            monitoring.getAlarm(GetAlarmRequest.builder().alarmId("test").build());
+
+            Assertions.assertNull(controller.traceparent);
+            Assertions.assertEquals(List.of(), exporter.getFinishedSpanItems());
+        }
+    }
+
+    @Test
+    public void disabled() {
+        try (ApplicationContext ctx = ApplicationContext.run(Map.of(
+            "spec.name", "SdkTracingNettyClientFilterTest",
+            "micronaut.tracing.oci.sdk.client.enabled", "false"
+        ))) {
+            Assertions.assertFalse(ctx.containsBean(SdkTracingNettyClientFilter.class));
+        }
+    }
+
+    private static Monitoring monitoring(ApplicationContext ctx) {
+        EmbeddedServer server = ctx.getBean(EmbeddedServer.class);
+        server.start();
+        Monitoring monitoring = ctx.getBean(Monitoring.class);
+        monitoring.setEndpoint(server.getURL().toString());
+        return monitoring;
+    }
+
+    private static Span parent(TraceFlags flags) {
+        return Span.wrap(SpanContext.createFromRemoteParent(PARENT_TRACE_ID, PARENT_SPAN_ID, flags, TraceState.getDefault()));
+    }
+
+    private static SpanData awaitSpan(InMemorySpanExporter exporter) throws InterruptedException {
+        // the span ends when the body has been received, which may be after the call returns
+        for (int i = 0; i < 100; i++) {
+            List<SpanData> spans = exporter.getFinishedSpanItems();
+            if (!spans.isEmpty()) {
+                Assertions.assertEquals(1, spans.size());
+                return spans.get(0);
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("No span exported");
+    }
+
+    @Factory
+    @Requires(property = "spec.name", value = "SdkTracingNettyClientFilterTest")
+    static class TracingFactory {
+        @Singleton
+        InMemorySpanExporter exporter() {
+            return InMemorySpanExporter.create();
+        }
+
+        @Singleton
+        @Bean(preDestroy = "close")
+        OpenTelemetrySdk openTelemetry(InMemorySpanExporter exporter) {
+            return OpenTelemetrySdk.builder()
+                .setTracerProvider(SdkTracerProvider.builder()
+                    .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                    .build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+        }
+    }
+
+    @Controller
+    @Requires(property = "spec.name", value = "SdkTracingNettyClientFilterTest")
+    static class TraceController {
+        static final String BODY = "{\"status\":\"OK\"}";
+
+        volatile String traceparent;
+
+        @Put(uri = "/n/{namespace}/b/{bucket}/o/{name}", consumes = MediaType.ALL)
+        HttpResponse<?> putObject(String namespace, String bucket, String name, @Body byte[] body, @Nullable @Header String traceparent) {
+            this.traceparent = traceparent;
+            return HttpResponse.ok();
+        }
+
+        @Get("/20180401/alarms/{id}")
+        HttpResponse<String> alarm(@Nullable @Header String traceparent, @Nullable @Header("opc-request-id") String opcRequestId) {
+            this.traceparent = traceparent;
+            HttpResponse<String> response = HttpResponse.ok(BODY);
+            if (opcRequestId != null) {
+                response = response.header("opc-request-id", opcRequestId);
+            }
+            return response;
+        }
+    }
+}
@@ -32,6 +32,7 @@ plugins {
 
 rootProject.name = "oracle-cloud"
 
+include("benchmarks")
 include("oraclecloud-atp")
 include("oraclecloud-atp-hikari-test")
 include("oraclecloud-atp-ucp-test")
@@ -51,6 +52,7 @@ include("oraclecloud-sdk")
 include("oraclecloud-sdk-rxjava2")
 include("oraclecloud-sdk-reactor")
 include("oraclecloud-sdk-processor")
+include("oraclecloud-tracing")
 include("oraclecloud-vault")
 include("docs-examples:example-java")
 include("docs-examples:example-groovy")